@@ -0,0 +1,83 @@
+#!/usr/bin/env bash
+#
+# Compares the time to a healthy instance and the resident memory of the JVM
+# and native builds of the service.
+#
+# Build both first, from the project root:
+#   mvn -B -Pnative -DskipTests package
+# which produces the executable jar target/user-service-<version>-exec.jar and
+# the native executable target/user-service. Then run, with the environment the
+# service needs (CONFIG_SERVER_URI, MONGODB_URI, RABBITMQ_HOSTNAME, ...):
+#   scripts/startup-benchmark.sh [runs]
+#
+# Each run starts the service, polls /actuator/health on the management port
+# until it reports UP, reads VmRSS of the process and stops it. Both builds
+# talk to the same config server, MongoDB and RabbitMQ, so the difference is
+# the startup of the service itself.
+
+set -euo pipefail
+
+RUNS=${1:-5}
+PORT=${MANAGEMENT_PORT:-9093}
+HEALTH_URL="http://localhost:${PORT}/actuator/health"
+TIMEOUT_SECONDS=${TIMEOUT_SECONDS:-120}
+JVM_JAR=${JVM_JAR:-$(ls target/user-service-*-exec.jar 2>/dev/null | head -n 1)}
+NATIVE_BIN=${NATIVE_BIN:-target/user-service}
+
+if [[ -z "${JVM_JAR}" || ! -f "${JVM_JAR}" ]]; then
+  echo "Executable jar not found, build with: mvn -B -Pnative -DskipTests package" >&2
+  exit 1
+fi
+if [[ ! -x "${NATIVE_BIN}" ]]; then
+  echo "Native executable not found at ${NATIVE_BIN}" >&2
+  exit 1
+fi
+
+# Starts the given command, waits until it is healthy and prints
+# "<milliseconds to healthy> <RSS in KiB>".
+measure() {
+  local log
+  log=$(mktemp)
+  local start
+  start=$(date +%s%N)
+  "$@" >"${log}" 2>&1 &
+  local pid=$!
+
+  local deadline=$((SECONDS + TIMEOUT_SECONDS))
+  until curl -fs "${HEALTH_URL}" >/dev/null 2>&1; do
+    if ! kill -0 "${pid}" 2>/dev/null || ((SECONDS > deadline)); then
+      echo "Service did not become healthy, see ${log}" >&2
+      kill "${pid}" 2>/dev/null || true
+      exit 1
+    fi
+    sleep 0.05
+  done
+  local end
+  end=$(date +%s%N)
+  local rss
+  rss=$(awk '/^VmRSS:/ { print $2 }' "/proc/${pid}/status")
+
+  kill "${pid}"
+  wait "${pid}" 2>/dev/null || true
+  rm -f "${log}"
+  echo "$(((end - start) / 1000000)) ${rss}"
+}
+
+# Runs a build RUNS times and prints its average startup time and RSS.
+benchmark() {
+  local name=$1
+  shift
+  local total_ms=0
+  local total_rss=0
+  for ((run = 1; run <= RUNS; run++)); do
+    read -r ms rss < <(measure "$@")
+    echo "${name} run ${run}: ${ms} ms, ${rss} KiB" >&2
+    total_ms=$((total_ms + ms))
+    total_rss=$((total_rss + rss))
+  done
+  printf "%-6s %10d ms %10d MiB\n" "${name}" $((total_ms / RUNS)) $((total_rss / RUNS / 1024))
+}
+
+printf "%-6s %13s %14s\n" "build" "to healthy" "RSS"
+benchmark jvm java -jar "${JVM_JAR}"
+benchmark native "${NATIVE_BIN}"
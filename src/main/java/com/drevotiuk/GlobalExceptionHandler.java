@@ -2,6 +2,7 @@ package com.drevotiuk;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -18,7 +19,11 @@ import org.springframework.web.method.annotation.MethodArgumentTypeMismatchExcep
 
 import io.jsonwebtoken.JwtException;
 
+import com.drevotiuk.model.ErrorResponse;
 import com.drevotiuk.model.exception.ConfirmationTokenException;
+import com.drevotiuk.model.exception.InvalidCursorException;
+import com.drevotiuk.model.exception.PreconditionFailedException;
+import com.drevotiuk.model.exception.PreconditionRequiredException;
 import com.drevotiuk.model.exception.UserExistsException;
 import com.drevotiuk.model.exception.UserNotFoundException;
 
@@ -64,7 +69,7 @@ public class GlobalExceptionHandler {
    */
   @ExceptionHandler(HttpClientErrorException.class)
   @ResponseStatus(HttpStatus.BAD_REQUEST)
-  public ResponseEntity<Map<String, String>> handleHttpClientErrorException(HttpClientErrorException e) {
+  public ResponseEntity<ErrorResponse> handleHttpClientErrorException(HttpClientErrorException e) {
     return buildErrorResponse(e, HttpStatus.BAD_REQUEST);
   }
 
@@ -76,7 +81,7 @@ public class GlobalExceptionHandler {
    */
   @ExceptionHandler(UserExistsException.class)
   @ResponseStatus(HttpStatus.BAD_REQUEST)
-  public ResponseEntity<Map<String, String>> handleUserExistsException(UserExistsException e) {
+  public ResponseEntity<ErrorResponse> handleUserExistsException(UserExistsException e) {
     return buildErrorResponse(e, HttpStatus.BAD_REQUEST);
   }
 
@@ -89,7 +94,20 @@ public class GlobalExceptionHandler {
    */
   @ExceptionHandler(ConfirmationTokenException.class)
   @ResponseStatus(HttpStatus.BAD_REQUEST)
-  public ResponseEntity<Map<String, String>> handleConfirmationTokenException(ConfirmationTokenException e) {
+  public ResponseEntity<ErrorResponse> handleConfirmationTokenException(ConfirmationTokenException e) {
+    return buildErrorResponse(e, HttpStatus.BAD_REQUEST);
+  }
+
+  /**
+   * Handles the {@link InvalidCursorException}.
+   * 
+   * @param e the {@link InvalidCursorException} thrown when a page cursor is
+   *          malformed
+   * @return a ResponseEntity containing a standardized error response
+   */
+  @ExceptionHandler(InvalidCursorException.class)
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public ResponseEntity<ErrorResponse> handleInvalidCursorException(InvalidCursorException e) {
     return buildErrorResponse(e, HttpStatus.BAD_REQUEST);
   }
 
@@ -102,7 +120,7 @@ public class GlobalExceptionHandler {
    */
   @ExceptionHandler(MethodArgumentTypeMismatchException.class)
   @ResponseStatus(HttpStatus.BAD_REQUEST)
-  public ResponseEntity<Map<String, String>> handleTypeMismatchException(MethodArgumentTypeMismatchException e) {
+  public ResponseEntity<ErrorResponse> handleTypeMismatchException(MethodArgumentTypeMismatchException e) {
     return buildErrorResponse(e, HttpStatus.BAD_REQUEST);
   }
 
@@ -115,7 +133,7 @@ public class GlobalExceptionHandler {
    */
   @ExceptionHandler(HttpMessageConversionException.class)
   @ResponseStatus(HttpStatus.BAD_REQUEST)
-  public ResponseEntity<Map<String, String>> handleMessageConversionException(HttpMessageConversionException e) {
+  public ResponseEntity<ErrorResponse> handleMessageConversionException(HttpMessageConversionException e) {
     return buildErrorResponse(e, HttpStatus.BAD_REQUEST);
   }
 
@@ -127,10 +145,37 @@ public class GlobalExceptionHandler {
    */
   @ExceptionHandler(UserNotFoundException.class)
   @ResponseStatus(HttpStatus.NOT_FOUND)
-  public ResponseEntity<Map<String, String>> handleUserNotFoundException(UserNotFoundException e) {
+  public ResponseEntity<ErrorResponse> handleUserNotFoundException(UserNotFoundException e) {
     return buildErrorResponse(e, HttpStatus.NOT_FOUND);
   }
 
+  /**
+   * Handles the {@link PreconditionFailedException}.
+   * 
+   * @param e the {@link PreconditionFailedException} thrown when the provided
+   *          version does not match the stored one
+   * @return a ResponseEntity containing a standardized error response
+   */
+  @ExceptionHandler(PreconditionFailedException.class)
+  @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+  public ResponseEntity<ErrorResponse> handlePreconditionFailedException(PreconditionFailedException e) {
+    return buildErrorResponse(e, HttpStatus.PRECONDITION_FAILED);
+  }
+
+  /**
+   * Handles the {@link PreconditionRequiredException}.
+   * 
+   * @param e the {@link PreconditionRequiredException} thrown when a
+   *          conditional request lacks a version
+   * @return a ResponseEntity containing a standardized error response
+   */
+  @ExceptionHandler(PreconditionRequiredException.class)
+  @ResponseStatus(HttpStatus.PRECONDITION_REQUIRED)
+  public ResponseEntity<ErrorResponse> handlePreconditionRequiredException(
+      PreconditionRequiredException e) {
+    return buildErrorResponse(e, HttpStatus.PRECONDITION_REQUIRED);
+  }
+
   /**
    * Handles the {@link UsernameNotFoundException}.
    * 
@@ -140,7 +185,7 @@ public class GlobalExceptionHandler {
    */
   @ExceptionHandler(UsernameNotFoundException.class)
   @ResponseStatus(HttpStatus.NOT_FOUND)
-  public ResponseEntity<Map<String, String>> handleUsernameNotFoundException(UsernameNotFoundException e) {
+  public ResponseEntity<ErrorResponse> handleUsernameNotFoundException(UsernameNotFoundException e) {
     return buildErrorResponse(e, HttpStatus.NOT_FOUND);
   }
 
@@ -153,7 +198,7 @@ public class GlobalExceptionHandler {
    */
   @ExceptionHandler(AuthenticationException.class)
   @ResponseStatus(HttpStatus.FORBIDDEN)
-  public ResponseEntity<Map<String, String>> handleAuthenticationException(AuthenticationException e) {
+  public ResponseEntity<ErrorResponse> handleAuthenticationException(AuthenticationException e) {
     return buildErrorResponse(e, HttpStatus.FORBIDDEN);
   }
 
@@ -166,7 +211,7 @@ public class GlobalExceptionHandler {
    */
   @ExceptionHandler(IllegalArgumentException.class)
   @ResponseStatus(HttpStatus.FORBIDDEN)
-  public ResponseEntity<Map<String, String>> handleIllegalArgException(IllegalArgumentException e) {
+  public ResponseEntity<ErrorResponse> handleIllegalArgException(IllegalArgumentException e) {
     return buildErrorResponse(e, HttpStatus.FORBIDDEN);
   }
 
@@ -179,10 +224,23 @@ public class GlobalExceptionHandler {
    */
   @ExceptionHandler(JwtException.class)
   @ResponseStatus(HttpStatus.UNAUTHORIZED)
-  public ResponseEntity<Map<String, String>> handleJwtException(JwtException e) {
+  public ResponseEntity<ErrorResponse> handleJwtException(JwtException e) {
     return buildErrorResponse(e, HttpStatus.UNAUTHORIZED);
   }
 
+  /**
+   * Handles the {@link RejectedExecutionException}.
+   * 
+   * @param e the {@link RejectedExecutionException} thrown when an executor is
+   *          saturated and cannot accept more work
+   * @return a ResponseEntity containing a standardized error response
+   */
+  @ExceptionHandler(RejectedExecutionException.class)
+  @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+  public ResponseEntity<ErrorResponse> handleRejectedExecutionException(RejectedExecutionException e) {
+    return buildErrorResponse(e, HttpStatus.SERVICE_UNAVAILABLE);
+  }
+
   /**
    * Handles global exceptions such as any uncaught exceptions.
    * 
@@ -192,7 +250,7 @@ public class GlobalExceptionHandler {
    */
   @ExceptionHandler(Exception.class)
   @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
-  public ResponseEntity<Map<String, String>> handleGlobalException(Exception e) {
+  public ResponseEntity<ErrorResponse> handleGlobalException(Exception e) {
     return buildErrorResponse(e, HttpStatus.INTERNAL_SERVER_ERROR);
   }
 
@@ -213,12 +271,8 @@ public class GlobalExceptionHandler {
    * @param status the HTTP status to return
    * @return a ResponseEntity containing the error message, status, and timestamp
    */
-  private ResponseEntity<Map<String, String>> buildErrorResponse(Exception e, HttpStatus status) {
+  private ResponseEntity<ErrorResponse> buildErrorResponse(Exception e, HttpStatus status) {
     logException(e);
-    Map<String, String> error = new HashMap<>();
-    error.put("error", e.getMessage());
-    error.put("status", status.toString());
-    error.put("timestamp", String.valueOf(System.currentTimeMillis()));
-    return ResponseEntity.status(status).body(error);
+    return ResponseEntity.status(status).body(ErrorResponse.of(e.getMessage(), status));
   }
 }
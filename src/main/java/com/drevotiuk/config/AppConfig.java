@@ -10,13 +10,19 @@ import yandex.cloud.sdk.ServiceFactory;
 import yandex.cloud.sdk.auth.Auth;
 import yandex.cloud.sdk.auth.provider.CredentialProvider;
 
+import java.util.Map;
+
 import org.springframework.amqp.core.AmqpTemplate;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.beans.factory.annotation.Value;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 /**
  * Configuration class for setting up application-specific beans and
  * configurations.
@@ -33,39 +39,66 @@ public class AppConfig {
   private int passwordEncoderStrength;
 
   /**
-   * Provides a {@link BCryptPasswordEncoder} bean with a strength of 10.
-   * This encoder is used for hashing passwords.
+   * Provides a {@link BCryptPasswordEncoder} bean with the configured strength.
+   * This encoder is used for hashing passwords and times every hash and
+   * verification.
    *
+   * @param registry the registry the password timers are registered in.
    * @return a {@link BCryptPasswordEncoder} instance.
    */
   @Bean
-  public BCryptPasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder(passwordEncoderStrength);
+  public BCryptPasswordEncoder passwordEncoder(MeterRegistry registry) {
+    return new TimedBCryptPasswordEncoder(passwordEncoderStrength, registry);
   }
 
   /**
-   * Provides a {@link MessageConverter} bean that converts messages to and from
-   * JSON format
+   * Provides a {@link MessageConverter} bean that writes messages as JSON and
+   * reads both JSON and the binary Smile format, chosen by the content type of
+   * each incoming message.
    *
    * @return a {@link MessageConverter} instance.
    */
   @Bean
   public MessageConverter messageConverter() {
-    return new Jackson2JsonMessageConverter();
+    return negotiatingMessageConverter(MessageProperties.CONTENT_TYPE_JSON);
+  }
+
+  /**
+   * Creates a {@link MessageConverter} that reads JSON and Smile messages by
+   * their content type and writes outgoing messages in the given format.
+   *
+   * @param contentType the content type of outgoing messages, either JSON or
+   *                    {@value SmileMessageConverter#CONTENT_TYPE}.
+   * @return a {@link ContentTypeDelegatingMessageConverter} instance.
+   * @throws IllegalArgumentException if the content type is not supported.
+   */
+  public static MessageConverter negotiatingMessageConverter(String contentType) {
+    Map<String, MessageConverter> delegates = Map.of(
+        MessageProperties.CONTENT_TYPE_JSON, new Jackson2JsonMessageConverter(),
+        SmileMessageConverter.CONTENT_TYPE, new SmileMessageConverter());
+    MessageConverter outgoing = delegates.get(contentType);
+    if (outgoing == null)
+      throw new IllegalArgumentException("Unsupported message content type: " + contentType);
+
+    ContentTypeDelegatingMessageConverter converter = new ContentTypeDelegatingMessageConverter(outgoing);
+    delegates.forEach(converter::addDelegate);
+    return converter;
   }
 
   /**
    * Provides an {@link AmqpTemplate} bean configured with a
    * {@link RabbitTemplate}.
-   * This template is used for sending and receiving messages with RabbitMQ.
+   * This template is used for sending and receiving messages with RabbitMQ and
+   * times every publish.
    *
    * @param connectionFactory the connection factory used to create the RabbitMQ
    *                          connection.
-   * @return an {@link AmqpTemplate} instance.
+   * @param registry          the registry the publish timers are registered in.
+   * @return a {@link RabbitTemplate} instance.
    */
   @Bean
-  public AmqpTemplate amqpTemplate(ConnectionFactory connectionFactory) {
-    RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
+  public RabbitTemplate amqpTemplate(ConnectionFactory connectionFactory, MeterRegistry registry) {
+    RabbitTemplate rabbitTemplate = new TimedRabbitTemplate(connectionFactory, registry);
     rabbitTemplate.setMessageConverter(messageConverter());
     return rabbitTemplate;
   }
@@ -0,0 +1,41 @@
+package com.drevotiuk.config;
+
+import java.time.Duration;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.drevotiuk.model.UserView;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Configuration class for setting up local in-memory caches.
+ * This class defines the bounded, TTL-based cache of user views that backs
+ * profile reads and user lookups over RabbitMQ.
+ */
+@Configuration
+public class CacheConfig {
+  @Value("${app.cache.user-view.max-size}")
+  private long userViewMaxSize;
+  @Value("${app.cache.user-view.ttl}")
+  private Duration userViewTtl;
+
+  /**
+   * Provides a {@link Cache} bean of {@link UserView} objects keyed by user ID.
+   * Entries expire after the configured TTL, the cache is bounded to the
+   * configured size and hit and miss statistics are recorded.
+   *
+   * @return a {@link Cache} instance.
+   */
+  @Bean
+  public Cache<ObjectId, UserView> userViewCache() {
+    return Caffeine.newBuilder()
+        .maximumSize(userViewMaxSize)
+        .expireAfterWrite(userViewTtl)
+        .recordStats()
+        .build();
+  }
+}
@@ -0,0 +1,77 @@
+package com.drevotiuk.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Configuration class for the executors running registration and login off
+ * the request threads.
+ * Password hashing is CPU-bound and runs on a pool sized to the available
+ * processors, while database writes and broker publishes wait on I/O and run
+ * on a separate, larger pool, so that neither kind of work starves the other.
+ * Both pools are bounded; once their queues are full, new work is rejected
+ * instead of piling up.
+ */
+@Configuration
+public class ExecutorConfig {
+  /** Name of the executor for CPU-bound password hashing. */
+  public static final String PASSWORD_HASHING_EXECUTOR = "passwordHashingExecutor";
+  /** Name of the executor for the blocking I/O of registration. */
+  public static final String AUTH_IO_EXECUTOR = "authIoExecutor";
+
+  @Value("${app.executors.password-hashing.pool-size}")
+  private int passwordHashingPoolSize;
+  @Value("${app.executors.password-hashing.queue-capacity}")
+  private int passwordHashingQueueCapacity;
+  @Value("${app.executors.auth-io.pool-size}")
+  private int authIoPoolSize;
+  @Value("${app.executors.auth-io.queue-capacity}")
+  private int authIoQueueCapacity;
+
+  /**
+   * Provides the {@link ThreadPoolTaskExecutor} bean for password hashing and
+   * verification. A pool size of {@code 0} uses one thread per available
+   * processor.
+   *
+   * @return a {@link ThreadPoolTaskExecutor} instance.
+   */
+  @Bean(PASSWORD_HASHING_EXECUTOR)
+  public ThreadPoolTaskExecutor passwordHashingExecutor() {
+    int poolSize = passwordHashingPoolSize > 0
+        ? passwordHashingPoolSize
+        : Runtime.getRuntime().availableProcessors();
+    return fixedPool("password-hashing-", poolSize, passwordHashingQueueCapacity);
+  }
+
+  /**
+   * Provides the {@link ThreadPoolTaskExecutor} bean for the database writes
+   * and broker publishes of registration.
+   *
+   * @return a {@link ThreadPoolTaskExecutor} instance.
+   */
+  @Bean(AUTH_IO_EXECUTOR)
+  public ThreadPoolTaskExecutor authIoExecutor() {
+    return fixedPool("auth-io-", authIoPoolSize, authIoQueueCapacity);
+  }
+
+  /**
+   * Builds a fixed-size pool with a bounded queue that lets queued tasks finish
+   * on shutdown.
+   *
+   * @param threadNamePrefix the prefix of the thread names.
+   * @param poolSize         the number of threads.
+   * @param queueCapacity    the number of tasks that may wait for a thread.
+   * @return the configured {@link ThreadPoolTaskExecutor}.
+   */
+  private ThreadPoolTaskExecutor fixedPool(String threadNamePrefix, int poolSize, int queueCapacity) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setThreadNamePrefix(threadNamePrefix);
+    executor.setCorePoolSize(poolSize);
+    executor.setMaxPoolSize(poolSize);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setWaitForTasksToCompleteOnShutdown(true);
+    return executor;
+  }
+}
@@ -0,0 +1,42 @@
+package com.drevotiuk.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.grpc.BindableService;
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+
+/**
+ * Configuration class for the internal gRPC server.
+ * The server listens on its own port next to the HTTP server and serves every
+ * {@link BindableService} bean over HTTP/2.
+ */
+@Configuration
+public class GrpcConfig {
+  @Value("${app.grpc.port}")
+  private int port;
+  @Value("${app.threads.virtual}")
+  private boolean virtualThreads;
+
+  /**
+   * Provides the gRPC {@link Server} bean, started with the application context
+   * and shut down with it. Calls in progress are allowed to finish on shutdown,
+   * while new calls are rejected. In the virtual thread mode every call runs on
+   * its own virtual thread instead of the default cached pool.
+   *
+   * @param services the gRPC services to serve.
+   * @return a {@link Server} instance.
+   */
+  @Bean(initMethod = "start", destroyMethod = "shutdown")
+  public Server grpcServer(List<BindableService> services) {
+    ServerBuilder<?> builder = ServerBuilder.forPort(port);
+    if (virtualThreads)
+      builder.executor(VirtualThreads.executor("grpc-"));
+    services.forEach(builder::addService);
+    return builder.build();
+  }
+}
@@ -0,0 +1,47 @@
+package com.drevotiuk.config;
+
+import java.util.regex.Pattern;
+
+import ch.qos.logback.classic.pattern.ClassicConverter;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+/**
+ * Logback converter that writes the log message with personal data and
+ * credentials masked.
+ * <p>
+ * Emails keep their first character and domain, e.g. {@code j***@mail.com},
+ * UUIDs such as confirmation tokens keep their first group and JWTs are
+ * replaced entirely. Converters run in the appender, which is asynchronous,
+ * so masking does not cost request threads any time.
+ * </p>
+ */
+public class MaskingMessageConverter extends ClassicConverter {
+  private static final Pattern EMAIL = Pattern.compile("([A-Za-z0-9])[A-Za-z0-9._%+-]*@");
+  private static final Pattern UUID = Pattern.compile(
+      "\\b([0-9a-fA-F]{8})-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}\\b");
+  private static final Pattern JWT = Pattern.compile("\\beyJ[A-Za-z0-9_-]*\\.[A-Za-z0-9_-]*\\.[A-Za-z0-9_-]*");
+
+  @Override
+  public String convert(ILoggingEvent event) {
+    return mask(event.getFormattedMessage());
+  }
+
+  /**
+   * Masks the emails, UUIDs and JWTs in a message.
+   *
+   * @param message the message to mask, may be {@code null}.
+   * @return the masked message.
+   */
+  static String mask(String message) {
+    if (message == null)
+      return null;
+    String masked = message;
+    if (masked.indexOf('@') >= 0)
+      masked = EMAIL.matcher(masked).replaceAll("$1***@");
+    if (masked.indexOf('-') >= 0)
+      masked = UUID.matcher(masked).replaceAll("$1-****");
+    if (masked.contains("eyJ"))
+      masked = JWT.matcher(masked).replaceAll("<jwt>");
+    return masked;
+  }
+}
@@ -0,0 +1,45 @@
+package com.drevotiuk.config;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.drevotiuk.model.UserView;
+import com.drevotiuk.service.UserViewCache;
+import com.github.benmanes.caffeine.cache.Cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Configuration class for setting up application metrics.
+ * Metrics are exported by the Prometheus actuator endpoint; which meters
+ * publish percentile histograms is configured under
+ * {@code management.metrics.distribution}.
+ */
+@Configuration
+public class MetricsConfig {
+  /**
+   * Provides a {@link MeterBinder} bean that exposes the hit, miss and
+   * eviction statistics of the user view cache, and the number of lookups
+   * served by a load already in progress. The service is resolved when the
+   * counter is read, as it depends on beans that need the registry.
+   *
+   * @param cache         the cache of user views.
+   * @param userViewCache the provider of the service reading through the cache.
+   * @return a {@link MeterBinder} instance.
+   */
+  @Bean
+  public MeterBinder userViewCacheMetrics(Cache<ObjectId, UserView> cache,
+      ObjectProvider<UserViewCache> userViewCache) {
+    return registry -> {
+      CaffeineCacheMetrics.monitor(registry, cache, "user-view");
+      FunctionCounter.builder("cache.coalesced", userViewCache, provider -> provider.getObject().coalescedCount())
+          .tag("cache", "user-view")
+          .description("Lookups served by a load already in progress")
+          .register(registry);
+    };
+  }
+}
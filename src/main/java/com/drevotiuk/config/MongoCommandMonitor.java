@@ -0,0 +1,219 @@
+package com.drevotiuk.config;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Mongo driver {@link CommandListener} that times every command per command
+ * name and collection and logs the commands slower than a threshold.
+ * <p>
+ * The query plan of a slow query is explained in the background and logged as
+ * a chain of stages, e.g. {@code FETCH <- IXSCAN(email)}, so that a collection
+ * scan shows up without logging the filter values. Explains run on a single
+ * thread with a short queue; the ones that do not fit are dropped.
+ * </p>
+ */
+@Slf4j
+public class MongoCommandMonitor implements CommandListener, DisposableBean {
+  private static final Set<String> EXPLAINABLE_COMMANDS = Set.of(
+      "find", "aggregate", "count", "distinct", "findAndModify", "update", "delete");
+  private static final Set<String> SESSION_FIELDS = Set.of(
+      "lsid", "txnNumber", "autocommit", "startTransaction", "readConcern", "writeConcern", "apiVersion");
+  private static final String NO_COLLECTION = "none";
+  private static final int EXPLAIN_QUEUE_CAPACITY = 16;
+
+  private final MeterRegistry registry;
+  private final long slowThresholdNanos;
+  private final boolean explainSlowCommands;
+  private final ObjectProvider<MongoTemplate> mongoTemplate;
+  private final ExecutorService explainExecutor;
+  private final ConcurrentMap<Integer, StartedCommand> inFlight = new ConcurrentHashMap<>();
+
+  public MongoCommandMonitor(MeterRegistry registry, Duration slowThreshold, boolean explainSlowCommands,
+      ObjectProvider<MongoTemplate> mongoTemplate) {
+    this.registry = registry;
+    this.slowThresholdNanos = slowThreshold.toNanos();
+    this.explainSlowCommands = explainSlowCommands;
+    this.mongoTemplate = mongoTemplate;
+    CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("mongo-explain-");
+    threadFactory.setDaemon(true);
+    this.explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(EXPLAIN_QUEUE_CAPACITY), threadFactory, new ThreadPoolExecutor.DiscardPolicy());
+  }
+
+  /**
+   * Remembers the collection of a started command and, if it may need to be
+   * explained, a copy of the command, as the driver releases the original once
+   * the command is sent.
+   *
+   * @param event the command started event.
+   */
+  @Override
+  public void commandStarted(CommandStartedEvent event) {
+    String commandName = event.getCommandName();
+    BsonDocument command = event.getCommand();
+    BsonDocument explainable = explainSlowCommands && EXPLAINABLE_COMMANDS.contains(commandName)
+        ? command.clone()
+        : null;
+    inFlight.put(event.getRequestId(), new StartedCommand(
+        collectionOf(commandName, command), event.getDatabaseName(), explainable));
+  }
+
+  /**
+   * Records the latency of a succeeded command and reports it if it is slow.
+   *
+   * @param event the command succeeded event.
+   */
+  @Override
+  public void commandSucceeded(CommandSucceededEvent event) {
+    complete(event.getRequestId(), event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS), "success");
+  }
+
+  /**
+   * Records the latency of a failed command and reports it if it is slow.
+   *
+   * @param event the command failed event.
+   */
+  @Override
+  public void commandFailed(CommandFailedEvent event) {
+    complete(event.getRequestId(), event.getCommandName(), event.getElapsedTime(TimeUnit.NANOSECONDS), "failed");
+  }
+
+  /**
+   * Stops the explain thread.
+   */
+  @Override
+  public void destroy() {
+    explainExecutor.shutdownNow();
+  }
+
+  /**
+   * Records the latency of a completed command, logs it if it is slow and
+   * schedules an explain of its query plan.
+   *
+   * @param requestId    the ID of the request that carried the command.
+   * @param commandName  the name of the command.
+   * @param elapsedNanos the time the command took, in nanoseconds.
+   * @param status       the outcome of the command.
+   */
+  private void complete(int requestId, String commandName, long elapsedNanos, String status) {
+    StartedCommand started = inFlight.remove(requestId);
+    String collection = started != null ? started.collection : NO_COLLECTION;
+    Timer.builder("mongodb.commands")
+        .tag("command", commandName)
+        .tag("collection", collection)
+        .tag("status", status)
+        .description("Latency of Mongo commands")
+        .register(registry)
+        .record(elapsedNanos, TimeUnit.NANOSECONDS);
+
+    if (elapsedNanos < slowThresholdNanos || "explain".equals(commandName))
+      return;
+    log.warn("Slow Mongo command {} on {} took {} ms ({})",
+        commandName, collection, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), status);
+    if (started != null && started.command != null)
+      explainExecutor.execute(() -> explain(commandName, started));
+  }
+
+  /**
+   * Explains the query plan of a slow command and logs its winning plan.
+   *
+   * @param commandName the name of the command.
+   * @param started     the started command, including a copy of it.
+   */
+  private void explain(String commandName, StartedCommand started) {
+    BsonDocument command = new BsonDocument();
+    for (String key : started.command.keySet()) {
+      if (!key.startsWith("$") && !SESSION_FIELDS.contains(key))
+        command.put(key, started.command.get(key));
+    }
+
+    try {
+      Document result = mongoTemplate.getObject().getMongoDatabaseFactory()
+          .getMongoDatabase(started.database)
+          .runCommand(new BsonDocument("explain", command).append("verbosity", new BsonString("queryPlanner")));
+      Document planner = result.get("queryPlanner", Document.class);
+      Document plan = planner != null ? planner.get("winningPlan", Document.class) : null;
+      log.warn("Plan of slow Mongo command {} on {}: {}", commandName, started.collection, describePlan(plan));
+    } catch (RuntimeException e) {
+      log.warn("Failed to explain slow Mongo command {} on {}: {}", commandName, started.collection,
+          e.getMessage());
+    }
+  }
+
+  /**
+   * Finds the collection a command targets.
+   *
+   * @param commandName the name of the command.
+   * @param command     the command document.
+   * @return the collection name, or {@code none} for commands that do not
+   *         target a collection.
+   */
+  static String collectionOf(String commandName, BsonDocument command) {
+    BsonValue value = command.get("getMore".equals(commandName) ? "collection" : commandName);
+    return value != null && value.isString() ? value.asString().getValue() : NO_COLLECTION;
+  }
+
+  /**
+   * Describes a winning plan as the chain of its stages, from the outermost to
+   * the one reading the data, with the index of every index scan.
+   *
+   * @param plan the winning plan returned by {@code explain}, may be
+   *             {@code null}.
+   * @return the description of the plan.
+   */
+  static String describePlan(Document plan) {
+    if (plan == null)
+      return "unknown";
+    Document stage = plan.containsKey("queryPlan") ? plan.get("queryPlan", Document.class) : plan;
+    StringBuilder description = new StringBuilder();
+    while (stage != null) {
+      if (description.length() > 0)
+        description.append(" <- ");
+      description.append(stage.getString("stage"));
+      if (stage.containsKey("indexName"))
+        description.append('(').append(stage.getString("indexName")).append(')');
+      stage = stage.get("inputStage", Document.class);
+    }
+    return description.toString();
+  }
+
+  /**
+   * A command sent to the server and not completed yet.
+   */
+  private static final class StartedCommand {
+    private final String collection;
+    private final String database;
+    private final BsonDocument command;
+
+    private StartedCommand(String collection, String database, BsonDocument command) {
+      this.collection = collection;
+      this.database = database;
+      this.command = command;
+    }
+  }
+}
@@ -0,0 +1,52 @@
+package com.drevotiuk.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Configuration class for monitoring the MongoDB client.
+ * This class registers a command listener that times every command per
+ * collection and reports slow commands with their query plans.
+ */
+@Configuration
+public class MongoConfig {
+  @Value("${app.mongo.slow-command-threshold}")
+  private Duration slowCommandThreshold;
+  @Value("${app.mongo.explain-slow-commands}")
+  private boolean explainSlowCommands;
+
+  /**
+   * Provides a {@link MongoCommandMonitor} bean. The template used to explain
+   * slow commands is resolved lazily, as it is built on the client the monitor
+   * is registered with.
+   *
+   * @param registry      the registry the command timers are registered in.
+   * @param mongoTemplate the provider of the template used for explains.
+   * @return a {@link MongoCommandMonitor} instance.
+   */
+  @Bean
+  public MongoCommandMonitor mongoCommandMonitor(MeterRegistry registry,
+      ObjectProvider<MongoTemplate> mongoTemplate) {
+    return new MongoCommandMonitor(registry, slowCommandThreshold, explainSlowCommands, mongoTemplate);
+  }
+
+  /**
+   * Provides a {@link MongoClientSettingsBuilderCustomizer} bean that registers
+   * the command monitor with the MongoDB client.
+   *
+   * @param monitor the command monitor.
+   * @return a {@link MongoClientSettingsBuilderCustomizer} instance.
+   */
+  @Bean
+  public MongoClientSettingsBuilderCustomizer mongoCommandMonitorCustomizer(MongoCommandMonitor monitor) {
+    return settings -> settings.addCommandListener(monitor);
+  }
+}
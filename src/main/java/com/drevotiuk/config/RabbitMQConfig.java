@@ -1,18 +1,28 @@
 package com.drevotiuk.config;
 
+import org.springframework.amqp.core.AnonymousQueue;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.DirectExchange;
+import org.springframework.amqp.core.FanoutExchange;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 
 /**
  * Configuration class for setting up RabbitMQ components including exchanges,
  * queues, and bindings.
  * This class defines the configuration for a direct exchange, a queue, and
- * the binding between them with a specified routing key.
+ * the binding between them with a specified routing key, the queue of batched
+ * user requests bound to the same exchange, as well as the fanout exchange used to invalidate user caches across service replicas, the
+ * topic exchange of user change events and the listener container factory of
+ * the user request queue.
  */
 @Configuration
 public class RabbitMQConfig {
@@ -22,6 +32,24 @@ public class RabbitMQConfig {
   private String userQueue;
   @Value("${rabbitmq.routingkey.user}")
   private String userRoutingKey;
+  @Value("${rabbitmq.queue.user-batch}")
+  private String userBatchQueue;
+  @Value("${rabbitmq.routingkey.user-batch}")
+  private String userBatchRoutingKey;
+  @Value("${rabbitmq.exchange.user-cache}")
+  private String userCacheExchange;
+  @Value("${rabbitmq.exchange.user-events}")
+  private String userEventsExchange;
+  @Value("${rabbitmq.listener.user-request.concurrency}")
+  private int userRequestConcurrency;
+  @Value("${rabbitmq.listener.user-request.max-concurrency}")
+  private int userRequestMaxConcurrency;
+  @Value("${rabbitmq.listener.user-request.prefetch}")
+  private int userRequestPrefetch;
+  @Value("${rabbitmq.listener.user-request.reply-content-type}")
+  private String userRequestReplyContentType;
+  @Value("${app.threads.virtual}")
+  private boolean virtualThreads;
 
   /**
    * Provides a {@link DirectExchange} bean for the user service.
@@ -59,4 +87,105 @@ public class RabbitMQConfig {
     return BindingBuilder.bind(userQueue()).to(userServiceExchange())
         .with(userRoutingKey);
   }
+
+  /**
+   * Provides a {@link Queue} bean for batched user requests.
+   * Batches have their own queue, so that single-ID requests keep their
+   * existing contract and each listener infers its payload type.
+   *
+   * @return a {@link Queue} instance.
+   */
+  @Bean
+  public Queue userBatchQueue() {
+    return new Queue(userBatchQueue);
+  }
+
+  /**
+   * Provides a {@link Binding} bean that binds the batched user request queue
+   * to the user service exchange with its own routing key.
+   *
+   * @return a {@link Binding} instance.
+   */
+  @Bean
+  public Binding userBatchBinding() {
+    return BindingBuilder.bind(userBatchQueue()).to(userServiceExchange())
+        .with(userBatchRoutingKey);
+  }
+
+  /**
+   * Provides a {@link TopicExchange} bean for user change events.
+   * Consumers bind their own queues with the routing keys of the changes they
+   * need, e.g. {@code user.*}.
+   *
+   * @return a {@link TopicExchange} instance.
+   */
+  @Bean
+  public TopicExchange userEventsExchange() {
+    return new TopicExchange(userEventsExchange);
+  }
+
+  /**
+   * Provides a {@link FanoutExchange} bean for user cache invalidations.
+   * Every replica of the service receives each message published to it.
+   *
+   * @return a {@link FanoutExchange} instance.
+   */
+  @Bean
+  public FanoutExchange userCacheExchange() {
+    return new FanoutExchange(userCacheExchange);
+  }
+
+  /**
+   * Provides an exclusive, auto-delete {@link Queue} bean that receives user
+   * cache invalidations for this replica only.
+   *
+   * @return a {@link Queue} instance.
+   */
+  @Bean
+  public Queue userCacheInvalidationQueue() {
+    return new AnonymousQueue();
+  }
+
+  /**
+   * Provides a {@link Binding} bean that binds this replica's invalidation queue
+   * to the user cache exchange.
+   *
+   * @return a {@link Binding} instance.
+   */
+  @Bean
+  public Binding userCacheInvalidationBinding() {
+    return BindingBuilder.bind(userCacheInvalidationQueue()).to(userCacheExchange());
+  }
+
+  /**
+   * Provides a {@link SimpleRabbitListenerContainerFactory} bean for the user
+   * request listeners.
+   * Each lookup blocks on MongoDB, so the queue is drained by several
+   * consumers that scale up to the configured maximum under load, each with
+   * its own prefetch window, on dedicated named threads, which are virtual in
+   * the virtual thread mode. Requests are read as
+   * JSON or Smile by their content type and replies are written in the
+   * configured format.
+   *
+   * @param configurer        the Spring Boot configurer applying the common
+   *                          listener settings and message converter.
+   * @param connectionFactory the connection factory used to create the RabbitMQ
+   *                          connection.
+   * @return a {@link SimpleRabbitListenerContainerFactory} instance.
+   */
+  @Bean
+  public SimpleRabbitListenerContainerFactory userRequestContainerFactory(
+      SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory) {
+    SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+    configurer.configure(factory, connectionFactory);
+    factory.setConcurrentConsumers(userRequestConcurrency);
+    factory.setMaxConcurrentConsumers(userRequestMaxConcurrency);
+    factory.setPrefetchCount(userRequestPrefetch);
+    SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor("user-request-");
+    if (virtualThreads)
+      taskExecutor.setThreadFactory(VirtualThreads.factory("user-request-"));
+    factory.setTaskExecutor(taskExecutor);
+    factory.setMessageConverter(AppConfig.negotiatingMessageConverter(userRequestReplyContentType));
+    return factory;
+  }
 }
@@ -0,0 +1,52 @@
+package com.drevotiuk.config;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Marker;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+
+/**
+ * Logback turbo filter that keeps only one in {@code rate} {@code INFO}
+ * events of the configured loggers, which log every request on their success
+ * path. Warnings and errors are never sampled.
+ * <p>
+ * Turbo filters run before the event is created, so a dropped event costs no
+ * allocation and no message formatting.
+ * </p>
+ */
+public class SamplingTurboFilter extends TurboFilter {
+  private final Set<String> loggers = new HashSet<>();
+  private int rate = 1;
+
+  @Override
+  public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params,
+      Throwable t) {
+    if (rate <= 1 || level == null || level.toInt() != Level.INFO_INT || !loggers.contains(logger.getName()))
+      return FilterReply.NEUTRAL;
+    return ThreadLocalRandom.current().nextInt(rate) == 0 ? FilterReply.NEUTRAL : FilterReply.DENY;
+  }
+
+  /**
+   * Adds a logger whose {@code INFO} events are sampled.
+   *
+   * @param logger the name of the logger.
+   */
+  public void addLogger(String logger) {
+    loggers.add(logger);
+  }
+
+  /**
+   * Sets how many {@code INFO} events are sampled down to one.
+   *
+   * @param rate the sampling rate; {@code 1} keeps every event.
+   */
+  public void setRate(int rate) {
+    this.rate = rate;
+  }
+}
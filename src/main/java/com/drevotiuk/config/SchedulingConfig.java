@@ -0,0 +1,13 @@
+package com.drevotiuk.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Configuration class that enables scheduled background jobs, such as the
+ * purge of deleted users.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -1,5 +1,9 @@
 package com.drevotiuk.config;
 
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -13,8 +17,10 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
 
 import com.drevotiuk.filter.JwtFilter;
+import com.drevotiuk.filter.RateLimitFilter;
 
 import lombok.RequiredArgsConstructor;
 
@@ -29,17 +35,26 @@ import lombok.RequiredArgsConstructor;
 @EnableWebSecurity
 @RequiredArgsConstructor
 public class SecurityConfig {
+  @Value("${server.port}")
+  private int serverPort;
+  @Value("${management.server.port}")
+  private int managementPort;
+
   private final BCryptPasswordEncoder passwordEncoder;
   private final UserDetailsService userDetailsService;
   private final JwtFilter jwtFilter;
+  private final RateLimitFilter rateLimitFilter;
 
   /**
    * Configures HTTP security settings, including disabling CSRF protection,
-   * defining access rules for specific endpoints, and configuring session
-   * management.
+   * defining access rules for specific endpoints, leaving the health endpoint
+   * open for probes, and configuring session management. The Prometheus
+   * endpoint is open only on the separate management port, which is not
+   * exposed to clients; anywhere else it requires authentication.
    * Adds the JWT filter to the security filter chain before the username and
    * password
-   * authentication filter.
+   * authentication filter, and the rate limit filter before the JWT filter so
+   * that throttled requests are rejected before any token is parsed.
    *
    * @param http the {@link HttpSecurity} instance used to configure security
    *             settings.
@@ -54,15 +69,32 @@ public class SecurityConfig {
         .antMatchers("/api/v*/users/login", "/api/v*/users/register",
             "/api/v*/users/confirm**")
         .permitAll()
+        .requestMatchers(EndpointRequest.to("health"))
+        .permitAll()
+        .requestMatchers(new AndRequestMatcher(EndpointRequest.to("prometheus"), this::isManagementPort))
+        .permitAll()
         .antMatchers("/api/v*/management/users/**")
         .hasRole("ADMIN")
         .anyRequest().authenticated().and()
         .sessionManagement()
         .sessionCreationPolicy(SessionCreationPolicy.STATELESS).and()
         .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
+        .addFilterBefore(rateLimitFilter, JwtFilter.class)
         .build();
   }
 
+  /**
+   * Checks if the request arrived on the management port. A management port
+   * equal to the API port does not count, so that a misconfiguration cannot
+   * make the scrape endpoint public.
+   *
+   * @param request the HTTP request.
+   * @return {@code true} if the request arrived on a separate management port.
+   */
+  private boolean isManagementPort(HttpServletRequest request) {
+    return managementPort != serverPort && request.getLocalPort() == managementPort;
+  }
+
   /**
    * Provides an {@link AuthenticationProvider} bean that uses a
    * {@link DaoAuthenticationProvider}.
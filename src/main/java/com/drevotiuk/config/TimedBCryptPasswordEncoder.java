@@ -0,0 +1,45 @@
+package com.drevotiuk.config;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * {@link BCryptPasswordEncoder} that times hashing and verification, the most
+ * CPU-intensive steps of registration and login.
+ */
+public class TimedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+  private final Timer encodeTimer;
+  private final Timer matchesTimer;
+
+  public TimedBCryptPasswordEncoder(int strength, MeterRegistry registry) {
+    super(strength);
+    this.encodeTimer = timer(registry, "encode");
+    this.matchesTimer = timer(registry, "verify");
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return encodeTimer.record(() -> super.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return matchesTimer.record(() -> super.matches(rawPassword, encodedPassword));
+  }
+
+  /**
+   * Registers the timer of a password operation.
+   *
+   * @param registry  the registry the timer is registered in.
+   * @param operation the name of the operation.
+   * @return the {@link Timer}.
+   */
+  private static Timer timer(MeterRegistry registry, String operation) {
+    return Timer.builder("auth.password")
+        .tag("operation", operation)
+        .description("Time spent hashing or verifying passwords with BCrypt")
+        .register(registry);
+  }
+}
@@ -0,0 +1,53 @@
+package com.drevotiuk.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * {@link RabbitTemplate} that times every publish, tagged by exchange.
+ * Every {@code convertAndSend} variant ends up in
+ * {@link #send(String, String, Message, CorrelationData)}, so message
+ * conversion is not included.
+ */
+public class TimedRabbitTemplate extends RabbitTemplate {
+  private final MeterRegistry registry;
+  private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+  public TimedRabbitTemplate(ConnectionFactory connectionFactory, MeterRegistry registry) {
+    super(connectionFactory);
+    this.registry = registry;
+  }
+
+  @Override
+  public void send(String exchange, String routingKey, Message message, CorrelationData correlationData)
+      throws AmqpException {
+    Timer.Sample sample = Timer.start(registry);
+    try {
+      super.send(exchange, routingKey, message, correlationData);
+    } finally {
+      sample.stop(timers.computeIfAbsent(exchange == null ? "" : exchange, this::timer));
+    }
+  }
+
+  /**
+   * Registers the publish timer of an exchange.
+   *
+   * @param exchange the name of the exchange, empty for the default one.
+   * @return the {@link Timer}.
+   */
+  private Timer timer(String exchange) {
+    return Timer.builder("rabbitmq.publish")
+        .tag("exchange", exchange)
+        .description("Time spent publishing messages to RabbitMQ")
+        .register(registry);
+  }
+}
@@ -0,0 +1,34 @@
+package com.drevotiuk.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Configuration class for the virtual thread mode of the web tier, enabled
+ * with {@code app.threads.virtual}.
+ * In this mode every HTTP request runs on its own virtual thread, so requests
+ * blocked on MongoDB, KMS or RabbitMQ no longer hold one of Tomcat's platform
+ * threads and concurrency is bounded by the downstream connection pools
+ * instead. The user request listener and the gRPC server switch to virtual
+ * threads with the same property.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.threads.virtual", havingValue = "true")
+@Slf4j
+public class VirtualThreadConfig {
+  /**
+   * Provides a {@link TomcatProtocolHandlerCustomizer} bean that replaces the
+   * request thread pool of Tomcat with a virtual thread per request.
+   *
+   * @return a {@link TomcatProtocolHandlerCustomizer} instance.
+   */
+  @Bean
+  public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+    log.info("Running HTTP requests on virtual threads");
+    return protocolHandler -> protocolHandler.setExecutor(VirtualThreads.executor("http-"));
+  }
+}
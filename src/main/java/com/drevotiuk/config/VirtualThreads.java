@@ -0,0 +1,88 @@
+package com.drevotiuk.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Factory of virtual threads for the optional virtual thread mode.
+ * <p>
+ * The service is built for Java 17, so virtual threads are created through
+ * reflection and are only available when the service runs on Java 21 or
+ * later. Enabling the mode on an older runtime fails at startup instead of
+ * silently falling back to platform threads.
+ * </p>
+ */
+public final class VirtualThreads {
+  private static final int MIN_FEATURE_VERSION = 21;
+
+  private VirtualThreads() {
+  }
+
+  /**
+   * Tells whether the running JVM supports virtual threads.
+   *
+   * @return {@code true} on Java 21 or later.
+   */
+  public static boolean isSupported() {
+    return Runtime.version().feature() >= MIN_FEATURE_VERSION;
+  }
+
+  /**
+   * Creates a factory of virtual threads named with the given prefix and an
+   * increasing counter, e.g. {@code http-0}, {@code http-1}.
+   *
+   * @param prefix the prefix of the thread names.
+   * @return a {@link ThreadFactory} of virtual threads.
+   * @throws IllegalStateException if the running JVM does not support virtual
+   *                               threads.
+   */
+  public static ThreadFactory factory(String prefix) {
+    if (!isSupported()) {
+      throw new IllegalStateException("Virtual threads require Java " + MIN_FEATURE_VERSION
+          + " or later, running on " + Runtime.version());
+    }
+    try {
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+      builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+      return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+    } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException
+        | InvocationTargetException e) {
+      throw new IllegalStateException("Failed to create a virtual thread factory", e);
+    }
+  }
+
+  /**
+   * Creates an executor that runs every task on a new virtual thread. Virtual
+   * threads are cheap to create and park without holding a carrier thread, so
+   * they are not pooled.
+   *
+   * @param prefix the prefix of the thread names.
+   * @return an {@link Executor} backed by virtual threads.
+   * @throws IllegalStateException if the running JVM does not support virtual
+   *                               threads.
+   */
+  public static Executor executor(String prefix) {
+    ThreadFactory factory = factory(prefix);
+    return task -> factory.newThread(task).start();
+  }
+
+  /**
+   * Tells whether the given thread is virtual.
+   *
+   * @param thread the thread to check.
+   * @return {@code true} if the thread is virtual.
+   */
+  public static boolean isVirtual(Thread thread) {
+    if (!isSupported())
+      return false;
+    try {
+      Method isVirtual = Thread.class.getMethod("isVirtual");
+      return (Boolean) isVirtual.invoke(thread);
+    } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+      return false;
+    }
+  }
+}
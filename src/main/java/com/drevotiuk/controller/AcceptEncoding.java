@@ -0,0 +1,66 @@
+package com.drevotiuk.controller;
+
+import java.util.Locale;
+
+/**
+ * Helper for negotiating a content coding from an {@code Accept-Encoding}
+ * header.
+ * <p>
+ * The header is a list of codings with optional quality values, e.g.
+ * {@code gzip;q=0.8, identity}. A coding is acceptable if it is listed, or
+ * covered by {@code *}, with a quality above zero; an explicit entry takes
+ * precedence over the wildcard (RFC 7231, section 5.3.4).
+ * </p>
+ */
+final class AcceptEncoding {
+  private static final String WILDCARD = "*";
+  private static final String QUALITY_PARAMETER = "q=";
+
+  private AcceptEncoding() {
+  }
+
+  /**
+   * Checks if the given coding is acceptable to the client.
+   *
+   * @param acceptEncoding the raw {@code Accept-Encoding} header value, may be
+   *                       {@code null}
+   * @param coding         the coding to check, e.g. {@code gzip}
+   * @return {@code true} if the coding is acceptable
+   */
+  static boolean accepts(String acceptEncoding, String coding) {
+    if (acceptEncoding == null)
+      return false;
+
+    Double wildcardQuality = null;
+    for (String element : acceptEncoding.split(",")) {
+      String[] parts = element.split(";");
+      String name = parts[0].trim().toLowerCase(Locale.ROOT);
+      if (name.equals(coding))
+        return quality(parts) > 0;
+      if (name.equals(WILDCARD))
+        wildcardQuality = quality(parts);
+    }
+    return wildcardQuality != null && wildcardQuality > 0;
+  }
+
+  /**
+   * Reads the quality value of a coding, {@code 1} if it has none and
+   * {@code 0} if it is malformed.
+   *
+   * @param parts the coding followed by its parameters
+   * @return the quality value
+   */
+  private static double quality(String[] parts) {
+    for (int i = 1; i < parts.length; i++) {
+      String parameter = parts[i].trim().toLowerCase(Locale.ROOT);
+      if (!parameter.startsWith(QUALITY_PARAMETER))
+        continue;
+      try {
+        return Double.parseDouble(parameter.substring(QUALITY_PARAMETER.length()).trim());
+      } catch (NumberFormatException e) {
+        return 0;
+      }
+    }
+    return 1;
+  }
+}
@@ -0,0 +1,63 @@
+package com.drevotiuk.controller;
+
+import com.drevotiuk.model.UserView;
+import com.drevotiuk.model.exception.PreconditionFailedException;
+import com.drevotiuk.model.exception.PreconditionRequiredException;
+
+/**
+ * Helper for converting user document versions to and from HTTP entity tags.
+ * <p>
+ * A user's ETag is its document version in quotes, e.g. {@code "3"}. Returning
+ * it from a {@code ResponseEntity} lets Spring MVC answer {@code GET} requests
+ * carrying a matching {@code If-None-Match} with {@code 304 Not Modified}
+ * without writing the body.
+ * </p>
+ */
+final class ETags {
+  private static final String WEAK_PREFIX = "W/";
+  private static final PreconditionRequiredException MISSING_IF_MATCH =
+      new PreconditionRequiredException("If-Match header with the user ETag is required");
+  private static final PreconditionFailedException INVALID_IF_MATCH =
+      new PreconditionFailedException("If-Match header does not match the user ETag");
+
+  private ETags() {
+  }
+
+  /**
+   * Builds the ETag of the given user view.
+   *
+   * @param view the user view to tag
+   * @return the quoted ETag value
+   */
+  static String of(UserView view) {
+    return "\"" + view.getVersion() + "\"";
+  }
+
+  /**
+   * Parses the version from the value of an {@code If-Match} header.
+   *
+   * @param ifMatch the raw {@code If-Match} header value, may be {@code null}
+   * @return the version the client expects the user to have
+   * @throws PreconditionRequiredException if the header is missing or is a
+   *                                       wildcard
+   * @throws PreconditionFailedException   if the header is not a strong user
+   *                                       ETag
+   */
+  static long parseIfMatch(String ifMatch) {
+    if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*"))
+      throw MISSING_IF_MATCH;
+
+    String tag = ifMatch.trim();
+    // If-Match uses the strong comparison, which a weak tag never passes
+    if (tag.startsWith(WEAK_PREFIX))
+      throw INVALID_IF_MATCH;
+    if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\""))
+      tag = tag.substring(1, tag.length() - 1);
+
+    try {
+      return Long.parseLong(tag);
+    } catch (NumberFormatException e) {
+      throw INVALID_IF_MATCH;
+    }
+  }
+}
@@ -11,15 +11,19 @@ import com.drevotiuk.service.UserService;
 
 import lombok.RequiredArgsConstructor;
 
+import java.util.concurrent.CompletableFuture;
+
 import javax.validation.Valid;
 
 import org.bson.types.ObjectId;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -38,14 +42,15 @@ public class UserController {
 
   /**
    * Registers a new user.
+   * The request thread is released while the registration runs and the
+   * response is written once it completes.
    *
    * @param request the registration details for the new user.
-   * @return a ResponseEntity containing a confirmation message.
+   * @return a future ResponseEntity containing a confirmation message.
    */
   @PostMapping("/register")
-  public ResponseEntity<String> register(@Valid @RequestBody RegisterRequest request) {
-    String response = authService.register(request);
-    return ResponseEntity.ok(response);
+  public CompletableFuture<ResponseEntity<String>> register(@Valid @RequestBody RegisterRequest request) {
+    return authService.register(request).thenApply(ResponseEntity::ok);
   }
 
   /**
@@ -62,14 +67,15 @@ public class UserController {
 
   /**
    * Authenticates a user and returns a JWT token.
+   * The request thread is released while the credentials are verified and the
+   * response is written once it completes.
    *
    * @param user the login request containing user credentials.
-   * @return a ResponseEntity containing the JWT token.
+   * @return a future ResponseEntity containing the JWT token.
    */
   @PostMapping("/login")
-  public ResponseEntity<String> login(@Valid @RequestBody LoginRequest user) {
-    String token = authService.login(user);
-    return ResponseEntity.ok(token);
+  public CompletableFuture<ResponseEntity<String>> login(@Valid @RequestBody LoginRequest user) {
+    return authService.login(user).thenApply(ResponseEntity::ok);
   }
 
   /**
@@ -85,26 +91,34 @@ public class UserController {
 
   /**
    * Retrieves the profile information of a user by their ID.
+   * Responds with {@code 304 Not Modified} if the {@code If-None-Match} header
+   * matches the current user ETag.
    *
    * @param userId the ID of the user to retrieve.
-   * @return a ResponseEntity containing the user's profile information.
+   * @return a ResponseEntity containing the user's profile information and
+   *         ETag.
    */
   @GetMapping("/profile/{userId}")
   public ResponseEntity<UserView> find(@PathVariable ObjectId userId) {
     UserView user = userService.find(userId);
-    return ResponseEntity.ok(user);
+    return ResponseEntity.ok().eTag(ETags.of(user)).body(user);
   }
 
   /**
    * Updates the profile information of a user.
+   * Requires an {@code If-Match} header with the ETag the changes are based on.
    *
    * @param userId  the ID of the user to update.
+   * @param ifMatch the {@code If-Match} header value.
    * @param updated the updated user profile information.
-   * @return a ResponseEntity containing the updated user's profile information.
+   * @return a ResponseEntity containing the updated user's profile information
+   *         and ETag.
    */
   @PutMapping("/profile/{userId}")
-  public ResponseEntity<UserView> update(@PathVariable ObjectId userId, @RequestBody UserView updated) {
-    UserView updatedUser = userService.update(userId, updated);
-    return ResponseEntity.ok(updatedUser);
+  public ResponseEntity<UserView> update(@PathVariable ObjectId userId,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      @RequestBody UserView updated) {
+    UserView updatedUser = userService.update(userId, updated, ETags.parseIfMatch(ifMatch));
+    return ResponseEntity.ok().eTag(ETags.of(updatedUser)).body(updatedUser);
   }
 }
@@ -1,21 +1,37 @@
 package com.drevotiuk.controller;
 
+import com.drevotiuk.model.UserBulkRequest;
+import com.drevotiuk.model.UserBulkResult;
+import com.drevotiuk.model.UserPage;
+import com.drevotiuk.model.UserPageRequest;
 import com.drevotiuk.model.UserPrincipal;
+import com.drevotiuk.model.UserSearchRequest;
+import com.drevotiuk.model.UserStatsReport;
 import com.drevotiuk.model.UserView;
 import com.drevotiuk.service.UserManagementService;
+import com.drevotiuk.service.UserStatsService;
 
 import lombok.RequiredArgsConstructor;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.Valid;
 
 import org.bson.types.ObjectId;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 /**
@@ -27,44 +43,127 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/${api.version}/management/users")
 @RequiredArgsConstructor
 public class UserManagementController {
+  private static final String NDJSON_CONTENT_TYPE = "application/x-ndjson";
+  private static final String GZIP_ENCODING = "gzip";
+  private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
   private final UserManagementService service;
+  private final UserStatsService statsService;
 
   /**
-   * Retrieves all users.
+   * Retrieves a page of users, optionally filtered by role, flags and last name
+   * prefix.
    *
-   * @return ResponseEntity containing a list of all UserView objects.
+   * @param request the filters, sort, cursor and page size bound from the query
+   *                parameters.
+   * @return ResponseEntity containing the UserPage with the users and the cursor
+   *         of the next page.
    */
   @GetMapping
-  public ResponseEntity<List<UserView>> findAll() {
-    List<UserView> users = service.findAll();
-    return ResponseEntity.ok(users);
+  public ResponseEntity<UserPage> findPage(UserPageRequest request) {
+    UserPage page = service.findPage(request);
+    return ResponseEntity.ok(page);
+  }
+
+  /**
+   * Searches users by a case-insensitive prefix of their email, first name or
+   * last name.
+   *
+   * @param request the query, field, cursor and page size bound from the query
+   *                parameters.
+   * @return ResponseEntity containing the UserPage with the matching users and
+   *         the cursor of the next page.
+   */
+  @GetMapping("/search")
+  public ResponseEntity<UserPage> search(UserSearchRequest request) {
+    UserPage page = service.search(request);
+    return ResponseEntity.ok(page);
+  }
+
+  /**
+   * Retrieves the user statistics: totals, verification status and role counts,
+   * and the signups per day of the requested period.
+   *
+   * @param days the number of days, including today, to report signups for.
+   * @return ResponseEntity containing the UserStatsReport.
+   */
+  @GetMapping("/stats")
+  public ResponseEntity<UserStatsReport> stats(@RequestParam(defaultValue = "30") int days) {
+    UserStatsReport report = statsService.find(days);
+    return ResponseEntity.ok(report);
+  }
+
+  /**
+   * Applies a moderation action, such as locking or deleting, to many users at
+   * once.
+   *
+   * @param request the user IDs, the action and, for role changes, the role.
+   * @return ResponseEntity containing the outcome for every requested user ID.
+   */
+  @PostMapping("/bulk")
+  public ResponseEntity<List<UserBulkResult>> bulk(@Valid @RequestBody UserBulkRequest request) {
+    List<UserBulkResult> results = service.bulk(request);
+    return ResponseEntity.ok(results);
+  }
+
+  /**
+   * Streams all users as newline-delimited JSON.
+   * The response is gzip-compressed if the client accepts gzip with a non-zero
+   * quality, and varies by {@code Accept-Encoding} either way. Rows are written
+   * directly to the servlet output stream, so a slow client throttles the
+   * database cursor instead of the export being buffered in memory.
+   *
+   * @param acceptEncoding the {@code Accept-Encoding} header value.
+   * @param response       the HTTP response to write the export to.
+   * @throws IOException if writing the response fails.
+   */
+  @GetMapping("/export")
+  public void export(@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+      HttpServletResponse response) throws IOException {
+    response.setContentType(NDJSON_CONTENT_TYPE);
+    response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (!AcceptEncoding.accepts(acceptEncoding, GZIP_ENCODING)) {
+      service.export(response.getOutputStream());
+      return;
+    }
+
+    response.setHeader(HttpHeaders.CONTENT_ENCODING, GZIP_ENCODING);
+    try (GZIPOutputStream gzip = new GZIPOutputStream(response.getOutputStream(), GZIP_BUFFER_SIZE)) {
+      service.export(gzip);
+    }
   }
 
   /**
    * Retrieves a specific user by their ID.
+   * Responds with {@code 304 Not Modified} if the {@code If-None-Match} header
+   * matches the current user ETag.
    *
    * @param userId the ID of the user to retrieve.
-   * @return ResponseEntity containing the UserView object of the requested user.
+   * @return ResponseEntity containing the UserView object of the requested user
+   *         and its ETag.
    */
   @GetMapping("/{userId}")
   public ResponseEntity<UserView> find(@PathVariable ObjectId userId) {
     UserView user = service.find(userId);
-    return ResponseEntity.ok(user);
+    return ResponseEntity.ok().eTag(ETags.of(user)).body(user);
   }
 
   /**
    * Updates a user identified by their ID with new information.
+   * Requires an {@code If-Match} header with the ETag the changes are based on.
    *
    * @param userId           the ID of the user to update.
+   * @param ifMatch          the {@code If-Match} header value.
    * @param updatedPrincipal the UserPrincipal object containing the updated user
    *                         information.
-   * @return ResponseEntity containing the updated UserView object.
+   * @return ResponseEntity containing the updated UserView object and its ETag.
    */
   @PutMapping("/{userId}")
-  public ResponseEntity<UserView> update(
-      @PathVariable ObjectId userId, @RequestBody UserPrincipal updatedPrincipal) {
-    UserView updatedUser = service.update(userId, updatedPrincipal);
-    return ResponseEntity.ok(updatedUser);
+  public ResponseEntity<UserView> update(@PathVariable ObjectId userId,
+      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+      @RequestBody UserPrincipal updatedPrincipal) {
+    UserView updatedUser = service.update(userId, updatedPrincipal, ETags.parseIfMatch(ifMatch));
+    return ResponseEntity.ok().eTag(ETags.of(updatedUser)).body(updatedUser);
   }
 
   /**
@@ -7,8 +7,9 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -16,37 +17,56 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
-import org.springframework.web.servlet.HandlerExceptionResolver;
 
+import com.drevotiuk.model.ErrorResponse;
 import com.drevotiuk.service.UserPrincipalService;
 import com.drevotiuk.service.JwtService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
 
 /**
  * A filter that processes JWT authentication tokens for incoming HTTP requests.
  * <p>
  * This filter extracts the JWT token from the `Authorization` header, validates
  * it,
- * and sets the authentication context if the token is valid. It handles
- * exceptions
- * that occur during the authentication process using the provided
- * {@link HandlerExceptionResolver}.
+ * and sets the authentication context if the token is valid. The user is
+ * loaded once per request and kept as the authentication principal. Exceptions
+ * that occur during the authentication process are answered directly with an
+ * {@link ErrorResponse}, without going through the handler exception
+ * resolvers.
  * </p>
  */
 @Component
+@Slf4j
 public class JwtFilter extends OncePerRequestFilter {
   private static final String BEARER_PREFIX = "Bearer ";
 
   private final JwtService jwtService;
   private final UserPrincipalService principalService;
-  private final HandlerExceptionResolver exceptionResolver;
-
-  public JwtFilter(JwtService jwtService, UserPrincipalService principalService,
-      @Qualifier("handlerExceptionResolver") HandlerExceptionResolver exceptionResolver) {
+  private final ObjectWriter errorWriter;
+  private final Timer parseTimer;
+  private final Timer loadUserTimer;
+  private final Timer verifyTimer;
+  private final Counter invalidTokenCounter;
+  private final Counter unknownUserCounter;
+
+  public JwtFilter(JwtService jwtService, UserPrincipalService principalService, ObjectMapper objectMapper,
+      MeterRegistry registry) {
     this.jwtService = jwtService;
     this.principalService = principalService;
-    this.exceptionResolver = exceptionResolver;
+    this.errorWriter = objectMapper.writerFor(ErrorResponse.class);
+    this.parseTimer = stageTimer(registry, "parse");
+    this.loadUserTimer = stageTimer(registry, "load_user");
+    this.verifyTimer = stageTimer(registry, "verify");
+    this.invalidTokenCounter = failureCounter(registry, "invalid_token");
+    this.unknownUserCounter = failureCounter(registry, "unknown_user");
   }
 
   /**
@@ -78,17 +98,19 @@ public class JwtFilter extends OncePerRequestFilter {
 
     try {
       String token = extractToken(authHeader);
-      String email = jwtService.extractUsername(token);
+      Claims claims = parseTimer.record(() -> jwtService.parseToken(token));
+      String email = claims.getSubject();
       if (email == null || isAuthenticationPresent()) {
         filterChain.doFilter(request, response);
         return;
       }
 
-      validateToken(token, email);
-      authenticateUser(request, email);
+      UserDetails userDetails = loadUserTimer.record(() -> principalService.loadUserByUsername(email));
+      verifyTimer.record(() -> validateToken(claims, userDetails));
+      authenticateUser(request, userDetails);
       filterChain.doFilter(request, response);
     } catch (JwtException | UsernameNotFoundException e) {
-      handleException(request, response, e);
+      handleException(response, e);
     }
   }
 
@@ -123,26 +145,24 @@ public class JwtFilter extends OncePerRequestFilter {
   }
 
   /**
-   * Validates the JWT token using the provided email.
+   * Validates the claims of the already parsed JWT token against the user it
+   * was issued for.
    *
-   * @param token the JWT token
-   * @param email the email extracted from the token
-   * @return {@code true} if the token is valid, otherwise {@code false}
+   * @param claims      the claims of the JWT token
+   * @param userDetails the user loaded for the email extracted from the token
    */
-  private void validateToken(String token, String email) {
-    UserDetails userDetails = principalService.loadUserByUsername(email);
-    if (!jwtService.validateToken(token, userDetails))
+  private void validateToken(Claims claims, UserDetails userDetails) {
+    if (!jwtService.validateToken(claims, userDetails))
       throw new JwtException("JWT is invalid"); // For case when JwtService won't throw exception itself
   }
 
   /**
    * Authenticates the user and sets the authentication context.
    *
-   * @param request the HTTP request
-   * @param email   the email extracted from the JWT token
+   * @param request     the HTTP request
+   * @param userDetails the user loaded for the email extracted from the token
    */
-  private void authenticateUser(HttpServletRequest request, String email) {
-    UserDetails userDetails = principalService.loadUserByUsername(email);
+  private void authenticateUser(HttpServletRequest request, UserDetails userDetails) {
     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
         userDetails, null, userDetails.getAuthorities());
     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -150,13 +170,49 @@ public class JwtFilter extends OncePerRequestFilter {
   }
 
   /**
-   * Handles exceptions that occur during JWT authentication.
+   * Handles exceptions that occur during JWT authentication by writing the same
+   * error response {@code GlobalExceptionHandler} would: {@code 404} for an
+   * unknown user and {@code 401} for an invalid token.
    *
-   * @param request   the HTTP request
    * @param response  the HTTP response
    * @param exception the exception that occurred
+   * @throws IOException if the response cannot be written
+   */
+  private void handleException(HttpServletResponse response, RuntimeException exception) throws IOException {
+    log.error("{} occurred: {}", exception.getClass().getSimpleName(), exception.getMessage());
+    boolean unknownUser = exception instanceof UsernameNotFoundException;
+    (unknownUser ? unknownUserCounter : invalidTokenCounter).increment();
+    HttpStatus status = unknownUser ? HttpStatus.NOT_FOUND : HttpStatus.UNAUTHORIZED;
+    response.setStatus(status.value());
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    errorWriter.writeValue(response.getOutputStream(), ErrorResponse.of(exception.getMessage(), status));
+  }
+
+  /**
+   * Registers the timer of an authentication stage.
+   *
+   * @param registry the registry the timer is registered in
+   * @param stage    the name of the stage
+   * @return the {@link Timer}
+   */
+  private static Timer stageTimer(MeterRegistry registry, String stage) {
+    return Timer.builder("auth.jwt.filter")
+        .tag("stage", stage)
+        .description("Time spent in each stage of JWT authentication")
+        .register(registry);
+  }
+
+  /**
+   * Registers the counter of a rejected authentication.
+   *
+   * @param registry the registry the counter is registered in
+   * @param reason   the reason authentication was rejected
+   * @return the {@link Counter}
    */
-  private void handleException(HttpServletRequest request, HttpServletResponse response, Exception exception) {
-    exceptionResolver.resolveException(request, response, null, exception);
+  private static Counter failureCounter(MeterRegistry registry, String reason) {
+    return Counter.builder("auth.jwt.failures")
+        .tag("reason", reason)
+        .description("JWT authentications rejected by reason")
+        .register(registry);
   }
 }
@@ -0,0 +1,168 @@
+package com.drevotiuk.filter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.drevotiuk.model.ErrorResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A filter that rate limits the public, unauthenticated endpoints per client.
+ * <p>
+ * Every client IP address gets a {@link TokenBucket} per route, so that a
+ * client flooding login requests is throttled without affecting its
+ * registrations or other clients. Buckets are kept in bounded maps and are
+ * dropped once their client has been idle for the configured time. Requests
+ * over the limit are answered with {@code 429 Too Many Requests} and a
+ * {@code Retry-After} header before they reach authentication or any
+ * controller.
+ * </p>
+ */
+@Component
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+  private static final String TOO_MANY_REQUESTS = "Too many requests, retry later";
+
+  private final RouteLimit[] routes;
+  private final ObjectWriter errorWriter;
+
+  public RateLimitFilter(ObjectMapper objectMapper,
+      @Value("${app.rate-limit.max-clients}") long maxClients,
+      @Value("${app.rate-limit.idle-timeout}") Duration idleTimeout,
+      @Value("${app.rate-limit.register.capacity}") int registerCapacity,
+      @Value("${app.rate-limit.register.refill-period}") Duration registerRefillPeriod,
+      @Value("${app.rate-limit.login.capacity}") int loginCapacity,
+      @Value("${app.rate-limit.login.refill-period}") Duration loginRefillPeriod,
+      @Value("${app.rate-limit.confirm.capacity}") int confirmCapacity,
+      @Value("${app.rate-limit.confirm.refill-period}") Duration confirmRefillPeriod) {
+    this.routes = new RouteLimit[] {
+        new RouteLimit("/users/register", registerCapacity, registerRefillPeriod, maxClients, idleTimeout),
+        new RouteLimit("/users/login", loginCapacity, loginRefillPeriod, maxClients, idleTimeout),
+        new RouteLimit("/users/confirm", confirmCapacity, confirmRefillPeriod, maxClients, idleTimeout)
+    };
+    this.errorWriter = objectMapper.writerFor(ErrorResponse.class);
+  }
+
+  /**
+   * Lets the request through if its client has a token left for the route,
+   * otherwise rejects it with {@code 429 Too Many Requests}.
+   *
+   * @param request     the HTTP request
+   * @param response    the HTTP response
+   * @param filterChain the filter chain to pass control to the next filter
+   * @throws ServletException if a servlet error occurs
+   * @throws IOException      if an I/O error occurs
+   */
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    RouteLimit route = findRoute(request.getRequestURI());
+    if (route == null) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+
+    long waitNanos = route.tryAcquire(request.getRemoteAddr(), System.nanoTime());
+    if (waitNanos == 0) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+    reject(request, response, waitNanos);
+  }
+
+  /**
+   * Finds the rate-limited route the request URI points to.
+   *
+   * @param uri the request URI
+   * @return the {@link RouteLimit} of the route, or {@code null} if the route
+   *         is not rate limited
+   */
+  private RouteLimit findRoute(String uri) {
+    for (RouteLimit route : routes) {
+      if (uri.endsWith(route.suffix))
+        return route;
+    }
+    return null;
+  }
+
+  /**
+   * Rejects a request over the limit, telling the client when to retry.
+   *
+   * @param request   the HTTP request
+   * @param response  the HTTP response
+   * @param waitNanos the time until the client gets its next token
+   * @throws IOException if the response cannot be written
+   */
+  private void reject(HttpServletRequest request, HttpServletResponse response, long waitNanos)
+      throws IOException {
+    log.warn("Rate limit exceeded for {} on {}", request.getRemoteAddr(), request.getRequestURI());
+    long retryAfterSeconds = Math.max(1, (long) Math.ceil((double) waitNanos / TimeUnit.SECONDS.toNanos(1)));
+    response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    errorWriter.writeValue(response.getOutputStream(),
+        ErrorResponse.of(TOO_MANY_REQUESTS, HttpStatus.TOO_MANY_REQUESTS));
+  }
+
+  /**
+   * The limit of a single route and the buckets of its clients.
+   */
+  static final class RouteLimit {
+    private final String suffix;
+    private final int capacity;
+    private final long refillNanos;
+    private final Cache<String, TokenBucket> buckets;
+
+    /**
+     * Creates the limit of a route.
+     *
+     * @param suffix       the suffix of the request URIs of the route
+     * @param capacity     the maximum number of requests a client may send at
+     *                     once
+     * @param refillPeriod the time it takes a client to regain one request
+     * @param maxClients   the maximum number of clients tracked
+     * @param idleTimeout  the time after which the bucket of an idle client is
+     *                     dropped
+     */
+    RouteLimit(String suffix, int capacity, Duration refillPeriod, long maxClients, Duration idleTimeout) {
+      this.suffix = suffix;
+      this.capacity = capacity;
+      this.refillNanos = refillPeriod.toNanos();
+      this.buckets = Caffeine.newBuilder()
+          .maximumSize(maxClients)
+          .expireAfterAccess(idleTimeout)
+          .build();
+    }
+
+    /**
+     * Takes a token from the bucket of the given client, creating a full
+     * bucket for a new client.
+     *
+     * @param client   the IP address of the client
+     * @param nowNanos the current time, as returned by {@link System#nanoTime()}
+     * @return {@code 0} if the request is allowed, otherwise the time until the
+     *         client gets its next token, in nanoseconds
+     */
+    long tryAcquire(String client, long nowNanos) {
+      return buckets.get(client, key -> new TokenBucket(capacity, refillNanos, nowNanos)).tryAcquire(nowNanos);
+    }
+  }
+}
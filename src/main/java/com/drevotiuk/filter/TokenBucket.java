@@ -0,0 +1,50 @@
+package com.drevotiuk.filter;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket of a single client.
+ * <p>
+ * Instead of a token count and a refill time, the bucket keeps only the time
+ * at which it will be full again, so that a request costs one compare-and-set
+ * and no background refill is needed. A bucket that is full allows
+ * {@code capacity} requests at once and then one request per refill period.
+ * </p>
+ */
+final class TokenBucket {
+  private final long refillNanos;
+  private final long burstNanos;
+  private final AtomicLong fullAt;
+
+  /**
+   * Creates a full bucket.
+   *
+   * @param capacity    the maximum number of requests allowed at once.
+   * @param refillNanos the time it takes to regain one token, in nanoseconds.
+   * @param nowNanos    the current time, as returned by {@link System#nanoTime()}.
+   */
+  TokenBucket(int capacity, long refillNanos, long nowNanos) {
+    this.refillNanos = refillNanos;
+    this.burstNanos = (capacity - 1) * refillNanos;
+    this.fullAt = new AtomicLong(nowNanos);
+  }
+
+  /**
+   * Takes a token from the bucket if one is available.
+   *
+   * @param nowNanos the current time, as returned by {@link System#nanoTime()}.
+   * @return {@code 0} if a token was taken, otherwise the time until the next
+   *         token is available, in nanoseconds.
+   */
+  long tryAcquire(long nowNanos) {
+    while (true) {
+      long current = fullAt.get();
+      long start = current - nowNanos > 0 ? current : nowNanos;
+      long waitNanos = start - nowNanos - burstNanos;
+      if (waitNanos > 0)
+        return waitNanos;
+      if (fullAt.compareAndSet(current, start + refillNanos))
+        return 0;
+    }
+  }
+}
@@ -0,0 +1,252 @@
+package com.drevotiuk.grpc;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.bson.types.ObjectId;
+import org.springframework.stereotype.Component;
+
+import com.drevotiuk.grpc.proto.GetUserRequest;
+import com.drevotiuk.grpc.proto.GetUsersRequest;
+import com.drevotiuk.grpc.proto.GetUsersResponse;
+import com.drevotiuk.grpc.proto.StreamUsersRequest;
+import com.drevotiuk.grpc.proto.User;
+import com.drevotiuk.grpc.proto.UserChange;
+import com.drevotiuk.grpc.proto.UserLookupGrpc;
+import com.drevotiuk.model.UserPrincipal;
+import com.drevotiuk.model.UserView;
+import com.drevotiuk.model.exception.UserNotFoundException;
+import com.drevotiuk.service.UserService;
+import com.google.protobuf.Timestamp;
+
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * gRPC endpoint for internal user lookups by other services.
+ * Exposes the same lookups as the RabbitMQ user queue, backed by
+ * {@link UserService}, plus a server-streaming feed of changed users.
+ * <p>
+ * Like the RabbitMQ lookups, the endpoint is meant for the internal network
+ * only and does not authenticate callers.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserLookupGrpcService extends UserLookupGrpc.UserLookupImplBase {
+  private final UserService userService;
+
+  /**
+   * Returns a single user, or fails with {@code INVALID_ARGUMENT} for a
+   * malformed ID and with {@code NOT_FOUND} for an unknown one.
+   *
+   * @param request          the request carrying the user ID.
+   * @param responseObserver the observer receiving the user.
+   */
+  @Override
+  public void getUser(GetUserRequest request, StreamObserver<User> responseObserver) {
+    if (!ObjectId.isValid(request.getId())) {
+      responseObserver.onError(Status.INVALID_ARGUMENT
+          .withDescription("Invalid user ID: " + request.getId())
+          .asRuntimeException());
+      return;
+    }
+
+    ObjectId userId = new ObjectId(request.getId());
+    try {
+      UserView user = userService.lookup(userId);
+      responseObserver.onNext(toUser(userId, user));
+      responseObserver.onCompleted();
+    } catch (UserNotFoundException e) {
+      responseObserver.onError(Status.NOT_FOUND
+          .withDescription("User not found with ID: " + userId)
+          .asRuntimeException());
+    }
+  }
+
+  /**
+   * Returns every requested user that exists, loading all cache misses with a
+   * single query. Malformed and unknown IDs are absent from the response.
+   *
+   * @param request          the request carrying the user IDs.
+   * @param responseObserver the observer receiving the users.
+   */
+  @Override
+  public void getUsers(GetUsersRequest request, StreamObserver<GetUsersResponse> responseObserver) {
+    log.info("Received gRPC batched user request; {} user IDs", request.getIdsCount());
+    Set<ObjectId> userIds = new LinkedHashSet<>();
+    for (String userId : request.getIdsList()) {
+      if (ObjectId.isValid(userId))
+        userIds.add(new ObjectId(userId));
+    }
+
+    GetUsersResponse.Builder response = GetUsersResponse.newBuilder();
+    for (Map.Entry<ObjectId, UserView> user : userService.lookupAll(userIds).entrySet())
+      response.putUsers(user.getKey().toHexString(), toUser(user.getKey(), user.getValue()));
+    responseObserver.onNext(response.build());
+    responseObserver.onCompleted();
+  }
+
+  /**
+   * Streams users changed at or after the requested time, oldest change first.
+   * Deleted users that are not purged yet are sent as tombstones.
+   * <p>
+   * Users are sent only while the transport is ready to accept them. When it
+   * is not, the handler returns and the feed resumes from the on-ready
+   * callback, so a slow client neither buffers the whole feed in memory nor
+   * holds a server thread while it catches up. A cancelled call closes the
+   * cursor.
+   * </p>
+   *
+   * @param request          the request carrying the earliest change time.
+   * @param responseObserver the observer receiving the changed users.
+   */
+  @Override
+  public void streamUsers(StreamUsersRequest request, StreamObserver<UserChange> responseObserver) {
+    ServerCallStreamObserver<UserChange> call = (ServerCallStreamObserver<UserChange>) responseObserver;
+    LocalDateTime since = toLocalDateTime(request.getChangedSince());
+    ChangeFeed feed = new ChangeFeed(call, userService.streamChangesSince(since));
+    call.setOnCancelHandler(feed::cancel);
+    call.setOnReadyHandler(feed::drain);
+    feed.drain();
+  }
+
+  /**
+   * Maps a changed user to its feed entry. A deleted user becomes a tombstone
+   * carrying only its ID and version.
+   *
+   * @param principal the user, populated with the view fields, update time and
+   *                  deletion time.
+   * @return the {@link UserChange} message.
+   */
+  private UserChange toChange(UserPrincipal principal) {
+    UserChange.Builder change = UserChange.newBuilder().setUpdatedAt(toTimestamp(principal.getUpdatedAt()));
+    if (principal.getDeletedAt() == null)
+      return change.setUser(toUser(principal.getId(), new UserView(principal))).build();
+
+    User.Builder tombstone = User.newBuilder().setId(principal.getId().toHexString());
+    if (principal.getVersion() != null)
+      tombstone.setVersion(principal.getVersion());
+    return change.setUser(tombstone).setDeleted(true).build();
+  }
+
+  /**
+   * Maps a user view to its message. Missing fields are left at their defaults,
+   * as protobuf does not accept {@code null}.
+   *
+   * @param userId the ID of the user.
+   * @param view   the view of the user.
+   * @return the {@link User} message.
+   */
+  private User toUser(ObjectId userId, UserView view) {
+    User.Builder user = User.newBuilder().setId(userId.toHexString());
+    if (view.getFirstName() != null)
+      user.setFirstName(view.getFirstName());
+    if (view.getLastName() != null)
+      user.setLastName(view.getLastName());
+    if (view.getEmail() != null)
+      user.setEmail(view.getEmail());
+    if (view.getDateOfBirth() != null)
+      user.setDateOfBirth(view.getDateOfBirth());
+    if (view.getVersion() != null)
+      user.setVersion(view.getVersion());
+    return user.build();
+  }
+
+  /**
+   * Converts a protobuf timestamp to the local date-time stored in MongoDB.
+   *
+   * @param timestamp the timestamp to convert.
+   * @return the corresponding {@link LocalDateTime}.
+   */
+  private LocalDateTime toLocalDateTime(Timestamp timestamp) {
+    return LocalDateTime.ofInstant(
+        Instant.ofEpochSecond(timestamp.getSeconds(), timestamp.getNanos()), ZoneId.systemDefault());
+  }
+
+  /**
+   * The changed users of a single streaming call, sent as the transport of the
+   * call becomes ready.
+   * <p>
+   * gRPC runs the handler and every callback of a call on the same serialized
+   * executor, so the feed is never drained concurrently and needs no locking.
+   * </p>
+   */
+  private final class ChangeFeed {
+    private final ServerCallStreamObserver<UserChange> call;
+    private final Stream<UserPrincipal> users;
+    private final Iterator<UserPrincipal> iterator;
+    private long sent;
+    private boolean closed;
+
+    private ChangeFeed(ServerCallStreamObserver<UserChange> call, Stream<UserPrincipal> users) {
+      this.call = call;
+      this.users = users;
+      this.iterator = users.iterator();
+    }
+
+    /**
+     * Sends changed users until the transport stops being ready, and completes
+     * the call once the cursor is exhausted.
+     */
+    private void drain() {
+      if (closed)
+        return;
+      try {
+        while (call.isReady() && iterator.hasNext()) {
+          call.onNext(toChange(iterator.next()));
+          sent++;
+        }
+        if (!iterator.hasNext()) {
+          close();
+          call.onCompleted();
+          log.info("Streamed {} changed users", sent);
+        }
+      } catch (RuntimeException e) {
+        close();
+        log.warn("User stream failed after {} users: {}", sent, e.getMessage());
+        call.onError(Status.INTERNAL.withDescription("Failed to stream users").asRuntimeException());
+      }
+    }
+
+    /**
+     * Closes the cursor of a call the client cancelled.
+     */
+    private void cancel() {
+      close();
+      log.info("User stream cancelled after {} users", sent);
+    }
+
+    /**
+     * Closes the cursor and stops further draining.
+     */
+    private void close() {
+      closed = true;
+      users.close();
+    }
+  }
+
+  /**
+   * Converts a local date-time stored in MongoDB to a protobuf timestamp.
+   *
+   * @param dateTime the date-time to convert.
+   * @return the corresponding {@link Timestamp}.
+   */
+  private Timestamp toTimestamp(LocalDateTime dateTime) {
+    Instant instant = dateTime.atZone(ZoneId.systemDefault()).toInstant();
+    return Timestamp.newBuilder()
+        .setSeconds(instant.getEpochSecond())
+        .setNanos(instant.getNano())
+        .build();
+  }
+}
@@ -48,6 +48,11 @@ public class ConfirmationToken {
    */
   private boolean activated;
 
-  /** The email address of the user associated with the token. */
+  /**
+   * The email address of the user associated with the token.
+   * This field is indexed so that the tokens of a deleted user can be purged
+   * without a collection scan.
+   */
+  @Indexed
   private String userEmail;
 }
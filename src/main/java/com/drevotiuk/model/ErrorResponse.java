@@ -0,0 +1,61 @@
+package com.drevotiuk.model;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+
+import lombok.Value;
+
+/**
+ * Represents the body of an error response.
+ * <p>
+ * The status and timestamp are serialized as strings, e.g.
+ * {@code {"error":"Access forbidden","status":"403 FORBIDDEN","timestamp":"1714557600000"}},
+ * matching the shape clients already parse. Status texts are built once per
+ * status, so an error response costs a single small allocation.
+ * </p>
+ */
+@Value
+@JsonPropertyOrder({ "error", "status", "timestamp" })
+public class ErrorResponse {
+  private static final Map<HttpStatus, String> STATUS_TEXTS = statusTexts();
+
+  /** The message of the error. */
+  String error;
+
+  /** The HTTP status code and reason phrase, e.g. {@code 404 NOT_FOUND}. */
+  String status;
+
+  /** The time the error occurred, in milliseconds since the epoch. */
+  @JsonFormat(shape = JsonFormat.Shape.STRING)
+  long timestamp;
+
+  /**
+   * Creates an error response for the given message and status, timestamped
+   * with the current time.
+   *
+   * @param error  the message of the error.
+   * @param status the HTTP status of the response.
+   * @return the {@link ErrorResponse}.
+   */
+  public static ErrorResponse of(String error, HttpStatus status) {
+    return new ErrorResponse(error, STATUS_TEXTS.get(status), System.currentTimeMillis());
+  }
+
+  /**
+   * Builds the text of every HTTP status.
+   *
+   * @return an unmodifiable map of status texts.
+   */
+  private static Map<HttpStatus, String> statusTexts() {
+    Map<HttpStatus, String> texts = new EnumMap<>(HttpStatus.class);
+    for (HttpStatus status : HttpStatus.values())
+      texts.put(status, status.toString());
+    return Collections.unmodifiableMap(texts);
+  }
+}
@@ -0,0 +1,28 @@
+package com.drevotiuk.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents the lock of a scheduled job that must run on a single replica.
+ * This class maps to the "job_locks" collection in MongoDB, with one document
+ * per job keyed by its name.
+ */
+@Document("job_locks")
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class JobLock {
+  /** The unique name of the job. */
+  @Id
+  private String name;
+
+  /** The date and time the job was last locked by a replica. */
+  private LocalDateTime lockedAt;
+}
@@ -0,0 +1,32 @@
+package com.drevotiuk.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents the progress of a one-off data migration.
+ * This class maps to the "migrations" collection in MongoDB, with one document
+ * per migration keyed by its name, so that a migration runs on a single
+ * replica and is skipped by a single ID lookup once it has completed.
+ */
+@Document("migrations")
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class Migration {
+  /** The unique name of the migration. */
+  @Id
+  private String name;
+
+  /** The date and time the migration was last claimed by a replica. */
+  private LocalDateTime startedAt;
+
+  /** The date and time the migration completed, or {@code null} if it has not. */
+  private LocalDateTime completedAt;
+}
@@ -0,0 +1,22 @@
+package com.drevotiuk.model;
+
+/**
+ * Enum representing the moderation actions that can be applied to many users
+ * at once through the admin bulk endpoint.
+ */
+public enum UserBulkAction {
+  /** Locks the user accounts. */
+  LOCK,
+
+  /** Unlocks the user accounts. */
+  UNLOCK,
+
+  /** Enables the user accounts. */
+  ENABLE,
+
+  /** Assigns the requested role to the users. */
+  SET_ROLE,
+
+  /** Deletes the users. */
+  DELETE
+}
@@ -0,0 +1,49 @@
+package com.drevotiuk.model;
+
+import java.util.List;
+
+import javax.validation.constraints.AssertTrue;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents a request to apply a single moderation action to many users.
+ * <p>
+ * The number of IDs per request is capped so that a single call cannot hold a
+ * request thread for an unbounded time; larger jobs are split by the client.
+ * </p>
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class UserBulkRequest {
+  /** The maximum number of user IDs accepted in a single request. */
+  public static final int MAX_USER_IDS = 10_000;
+
+  /** The IDs of the users to apply the action to. */
+  @NotEmpty(message = "User IDs are required")
+  @Size(max = MAX_USER_IDS, message = "At most " + MAX_USER_IDS + " user IDs are allowed per request")
+  private List<String> userIds;
+
+  /** The action to apply. */
+  @NotNull(message = "Action is required")
+  private UserBulkAction action;
+
+  /** The role to assign, required for {@link UserBulkAction#SET_ROLE}. */
+  private UserRole role;
+
+  /**
+   * Checks that a role is given whenever the action assigns one.
+   *
+   * @return {@code true} if the role is present or not needed.
+   */
+  @AssertTrue(message = "Role is required for SET_ROLE")
+  public boolean isRoleValid() {
+    return action != UserBulkAction.SET_ROLE || role != null;
+  }
+}
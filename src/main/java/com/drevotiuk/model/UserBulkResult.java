@@ -0,0 +1,19 @@
+package com.drevotiuk.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents the outcome of a bulk action for a single user ID.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class UserBulkResult {
+  /** The user ID as sent by the client. */
+  private String userId;
+
+  /** The outcome of the action for this user. */
+  private UserBulkStatus status;
+}
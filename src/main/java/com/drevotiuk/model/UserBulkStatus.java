@@ -0,0 +1,18 @@
+package com.drevotiuk.model;
+
+/**
+ * Enum representing the outcome of a bulk action for a single user.
+ */
+public enum UserBulkStatus {
+  /** The action was applied to the user. */
+  APPLIED,
+
+  /** No user exists with the given ID. */
+  NOT_FOUND,
+
+  /** The given ID is not a valid user ID. */
+  INVALID_ID,
+
+  /** The database rejected the write for this user. */
+  FAILED
+}
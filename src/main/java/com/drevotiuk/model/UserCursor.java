@@ -0,0 +1,84 @@
+package com.drevotiuk.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.bson.types.ObjectId;
+
+import com.drevotiuk.model.exception.InvalidCursorException;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Represents the position after which the next page of a keyset-paginated
+ * user listing starts.
+ * <p>
+ * It holds the sort value and the ID of the last user on the previous page and
+ * is exchanged with clients as an opaque URL-safe string. The ID is followed
+ * by a marker telling a missing sort value from an empty one, since the keyset
+ * condition differs for the two.
+ * </p>
+ */
+@AllArgsConstructor
+@Getter
+public class UserCursor {
+  private static final int ID_LENGTH = 24;
+  private static final char NULL_MARKER = '-';
+  private static final char VALUE_MARKER = ':';
+  private static final InvalidCursorException MALFORMED_CURSOR =
+      new InvalidCursorException("Malformed page cursor");
+
+  /** The sort value of the last user, or {@code null} when sorting by ID. */
+  private final String value;
+
+  /** The ID of the last user. */
+  private final ObjectId id;
+
+  /**
+   * Creates the cursor pointing after the given user.
+   *
+   * @param principal the last user of a page.
+   * @param sort      the field the listing is sorted by.
+   * @return the {@link UserCursor} pointing after the user.
+   */
+  public static UserCursor after(UserPrincipal principal, UserSortField sort) {
+    return new UserCursor(sort.valueOf(principal), principal.getId());
+  }
+
+  /**
+   * Encodes this cursor as an opaque URL-safe string.
+   *
+   * @return the encoded cursor.
+   */
+  public String encode() {
+    String raw = id.toHexString() + (value != null ? VALUE_MARKER + value : String.valueOf(NULL_MARKER));
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decodes a cursor previously produced by {@link #encode()}.
+   *
+   * @param encoded the encoded cursor.
+   * @return the decoded {@link UserCursor}.
+   * @throws InvalidCursorException if the cursor is malformed.
+   */
+  public static UserCursor decode(String encoded) {
+    String raw;
+    try {
+      raw = new String(Base64.getUrlDecoder().decode(encoded), StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException e) {
+      throw MALFORMED_CURSOR;
+    }
+    if (raw.length() <= ID_LENGTH || !ObjectId.isValid(raw.substring(0, ID_LENGTH)))
+      throw MALFORMED_CURSOR;
+
+    ObjectId id = new ObjectId(raw.substring(0, ID_LENGTH));
+    char marker = raw.charAt(ID_LENGTH);
+    if (marker == NULL_MARKER && raw.length() == ID_LENGTH + 1)
+      return new UserCursor(null, id);
+    if (marker == VALUE_MARKER)
+      return new UserCursor(raw.substring(ID_LENGTH + 1), id);
+    throw MALFORMED_CURSOR;
+  }
+}
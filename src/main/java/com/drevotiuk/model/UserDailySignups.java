@@ -0,0 +1,26 @@
+package com.drevotiuk.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents the number of users who signed up on a single day.
+ * This class maps to the "user_daily_signups" collection in MongoDB, with one
+ * document per day keyed by its ISO date, so a range of days is read by ID.
+ */
+@Document("user_daily_signups")
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class UserDailySignups {
+  /** The ISO-8601 date of the day, e.g. {@code 2024-05-17}. */
+  @Id
+  private String day;
+
+  /** The number of users who signed up on that day. */
+  private long count;
+}
@@ -0,0 +1,35 @@
+package com.drevotiuk.model;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents a change of a user published to other services, so that they can
+ * keep a local copy of user data instead of requesting it over RPC.
+ * <p>
+ * Events are delivered at least once and may arrive out of order; consumers
+ * apply an event only if its version is newer than the one they hold.
+ * </p>
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class UserEvent {
+  /** The kind of change. */
+  private UserEventType type;
+
+  /** The ID of the changed user. */
+  private String userId;
+
+  /** The version of the user after the change. */
+  private Long version;
+
+  /** The user after the change, or {@code null} for a deleted user. */
+  private UserView user;
+
+  /** The date and time the event was published. */
+  private LocalDateTime occurredAt;
+}
@@ -0,0 +1,35 @@
+package com.drevotiuk.model;
+
+/**
+ * Enum representing the kinds of user changes published to other services.
+ * Each kind is published with its own routing key on the user events topic
+ * exchange, so consumers can bind to the changes they care about.
+ */
+public enum UserEventType {
+  /** A user registered. */
+  CREATED("user.created"),
+
+  /** A user's profile or account settings changed. */
+  UPDATED("user.updated"),
+
+  /** A user verified their email and was enabled. */
+  ENABLED("user.enabled"),
+
+  /** A user and their dependent data were purged. */
+  DELETED("user.deleted");
+
+  private final String routingKey;
+
+  UserEventType(String routingKey) {
+    this.routingKey = routingKey;
+  }
+
+  /**
+   * Returns the routing key events of this kind are published with.
+   *
+   * @return the routing key.
+   */
+  public String getRoutingKey() {
+    return routingKey;
+  }
+}
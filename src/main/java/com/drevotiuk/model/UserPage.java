@@ -0,0 +1,22 @@
+package com.drevotiuk.model;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents a single page of the admin user listing.
+ * It includes the users on the page and the cursor to request the next one.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class UserPage {
+  /** The users on this page. */
+  private List<UserView> users;
+
+  /** The cursor of the next page, or {@code null} if this is the last page. */
+  private String nextCursor;
+}
@@ -0,0 +1,43 @@
+package com.drevotiuk.model;
+
+import org.springframework.data.domain.Sort;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents the query parameters of a paginated admin user listing.
+ * <p>
+ * All filters are optional. Pages are resumed with the opaque cursor returned
+ * in the previous {@link UserPage}.
+ * </p>
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class UserPageRequest {
+  /** Only users with this role are listed, if set. */
+  private UserRole role;
+
+  /** Only users with this enabled flag are listed, if set. */
+  private Boolean enabled;
+
+  /** Only users with this locked flag are listed, if set. */
+  private Boolean locked;
+
+  /** Only users whose last name starts with this prefix are listed, if set. */
+  private String namePrefix;
+
+  /** The field to sort by. */
+  private UserSortField sort = UserSortField.ID;
+
+  /** The sort direction. */
+  private Sort.Direction direction = Sort.Direction.ASC;
+
+  /** The cursor returned with the previous page, or {@code null} for the first. */
+  private String cursor;
+
+  /** The requested page size, capped by the configured maximum. */
+  private Integer limit;
+}
@@ -1,11 +1,15 @@
 package com.drevotiuk.model;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.Collections;
 
 import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.security.core.GrantedAuthority;
@@ -24,8 +28,21 @@ import lombok.NoArgsConstructor;
  * {@link UserDetails}.
  * It includes user information such as name, date of birth, email, password,
  * and role.
+ * Deleted users are only marked with {@code deletedAt} until the background
+ * cleanup purges them.
+ * Compound indexes back the filters and sorts of the admin user listing and
+ * the prefix search over the case-folded keys in the {@code search}
+ * sub-document, as well as the changed-since feed over {@code updatedAt}.
  */
 @Document("users")
+@CompoundIndexes({
+    @CompoundIndex(name = "role_enabled_locked_id", def = "{ 'role': 1, 'enabled': 1, 'locked': 1, '_id': 1 }"),
+    @CompoundIndex(name = "lastName_id", def = "{ 'lastName': 1, '_id': 1 }"),
+    @CompoundIndex(name = "search_email_id", def = "{ 'search.email': 1, '_id': 1 }"),
+    @CompoundIndex(name = "search_firstName_id", def = "{ 'search.firstName': 1, '_id': 1 }"),
+    @CompoundIndex(name = "search_lastName_id", def = "{ 'search.lastName': 1, '_id': 1 }"),
+    @CompoundIndex(name = "updatedAt_id", def = "{ 'updatedAt': 1, '_id': 1 }")
+})
 @NoArgsConstructor
 @AllArgsConstructor
 @Data
@@ -63,6 +80,30 @@ public class UserPrincipal implements UserDetails {
   /** Indicates whether the user account is enabled. */
   private boolean enabled = false;
 
+  /**
+   * The optimistic-locking version of the document.
+   * Incremented on every write and exposed to clients as the profile ETag.
+   */
+  @Version
+  @EqualsAndHashCode.Exclude
+  private Long version;
+
+  /**
+   * The date and time the user was deleted, or {@code null} for an active user.
+   * Deleted users are hidden from every read and purged in the background
+   * together with their dependent data.
+   */
+  @Indexed(sparse = true)
+  private LocalDateTime deletedAt;
+
+  /**
+   * The date and time of the last write to the user, or {@code null} for users
+   * not written since the field was introduced.
+   * Set together with every version increment.
+   */
+  @EqualsAndHashCode.Exclude
+  private LocalDateTime updatedAt;
+
   public UserPrincipal(RegisterRequest registerRequest) {
     this.firstName = registerRequest.getFirstName();
     this.lastName = registerRequest.getLastName();
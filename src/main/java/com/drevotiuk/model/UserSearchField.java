@@ -0,0 +1,72 @@
+package com.drevotiuk.model;
+
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Enum representing the user fields the admin search can match by prefix.
+ * <p>
+ * Each field has a case-folded copy stored under the {@value #KEYS_FIELD}
+ * sub-document of the user, indexed together with the user ID so that prefix
+ * matches and keyset pagination are both served from the index.
+ * </p>
+ */
+public enum UserSearchField {
+  /** Matches users by their email address. */
+  EMAIL("email", UserPrincipal::getEmail),
+
+  /** Matches users by their first name. */
+  FIRST_NAME("firstName", UserPrincipal::getFirstName),
+
+  /** Matches users by their last name. */
+  LAST_NAME("lastName", UserPrincipal::getLastName);
+
+  /** The name of the sub-document holding the case-folded search keys. */
+  public static final String KEYS_FIELD = "search";
+
+  private final String field;
+  private final Function<UserPrincipal, String> valueExtractor;
+
+  UserSearchField(String field, Function<UserPrincipal, String> valueExtractor) {
+    this.field = field;
+    this.valueExtractor = valueExtractor;
+  }
+
+  /**
+   * Returns the name of the user document field this search field mirrors.
+   *
+   * @return the document field name.
+   */
+  public String getField() {
+    return field;
+  }
+
+  /**
+   * Returns the path of the case-folded search key of this field.
+   *
+   * @return the search key path, e.g. {@code search.email}.
+   */
+  public String getKeyPath() {
+    return KEYS_FIELD + "." + field;
+  }
+
+  /**
+   * Extracts the case-folded search key of this field from the given user.
+   *
+   * @param principal the user to extract the key from.
+   * @return the search key, or {@code null} if the field is not set.
+   */
+  public String keyOf(UserPrincipal principal) {
+    return normalize(valueExtractor.apply(principal));
+  }
+
+  /**
+   * Case-folds the given text the same way search keys are stored.
+   *
+   * @param text the text to fold, may be {@code null}.
+   * @return the folded text, or {@code null} if the text is {@code null}.
+   */
+  public static String normalize(String text) {
+    return text != null ? text.trim().toLowerCase(Locale.ROOT) : null;
+  }
+}
@@ -0,0 +1,30 @@
+package com.drevotiuk.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents the query parameters of a paginated admin user search.
+ * <p>
+ * Users whose selected field starts with the query, ignoring case, are
+ * returned ordered by that field. Pages are resumed with the opaque cursor
+ * returned in the previous {@link UserPage}.
+ * </p>
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class UserSearchRequest {
+  /** The prefix to search for. */
+  private String query;
+
+  /** The field to match the prefix against. */
+  private UserSearchField field = UserSearchField.LAST_NAME;
+
+  /** The cursor returned with the previous page, or {@code null} for the first. */
+  private String cursor;
+
+  /** The requested page size, capped by the configured maximum. */
+  private Integer limit;
+}
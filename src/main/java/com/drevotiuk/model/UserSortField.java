@@ -0,0 +1,48 @@
+package com.drevotiuk.model;
+
+import java.util.function.Function;
+
+/**
+ * Enum representing the fields the admin user listing can be sorted by.
+ * <p>
+ * Every sort is backed by an index and uses the user ID as a tie-breaker, so
+ * pages can be resumed with a keyset cursor.
+ * </p>
+ */
+public enum UserSortField {
+  /** Sorts users by their ID, i.e. by creation time. */
+  ID("_id", principal -> null),
+
+  /** Sorts users by their email address. */
+  EMAIL("email", UserPrincipal::getEmail),
+
+  /** Sorts users by their last name. */
+  LAST_NAME("lastName", UserPrincipal::getLastName);
+
+  private final String field;
+  private final Function<UserPrincipal, String> valueExtractor;
+
+  UserSortField(String field, Function<UserPrincipal, String> valueExtractor) {
+    this.field = field;
+    this.valueExtractor = valueExtractor;
+  }
+
+  /**
+   * Returns the name of the document field backing this sort.
+   *
+   * @return the document field name.
+   */
+  public String getField() {
+    return field;
+  }
+
+  /**
+   * Extracts the value of this sort field from the given user.
+   *
+   * @param principal the user to extract the value from.
+   * @return the sort value, or {@code null} when sorting by ID.
+   */
+  public String valueOf(UserPrincipal principal) {
+    return valueExtractor.apply(principal);
+  }
+}
@@ -0,0 +1,46 @@
+package com.drevotiuk.model;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents the pre-aggregated counters of active users.
+ * This class maps to the "user_stats" collection in MongoDB, which holds a
+ * single document that is incremented on every user lifecycle change and
+ * periodically reconciled against the users collection.
+ */
+@Document("user_stats")
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class UserStats {
+  /** The ID of the single counters document. */
+  public static final String GLOBAL_ID = "global";
+
+  /** Identifier of the counters document, always {@link #GLOBAL_ID}. */
+  @Id
+  private String id = GLOBAL_ID;
+
+  /** The number of active users. */
+  private long total;
+
+  /** The number of active users who verified their email. */
+  private long enabled;
+
+  /** The number of active users pending email verification. */
+  private long pending;
+
+  /** The number of active users per role name. */
+  private Map<String, Long> roles = new HashMap<>();
+
+  /** The date and time of the last reconciliation, if any. */
+  private LocalDateTime reconciledAt;
+}
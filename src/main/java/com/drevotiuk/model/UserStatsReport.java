@@ -0,0 +1,32 @@
+package com.drevotiuk.model;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents the user statistics returned to administrators.
+ * It includes the current user counters and the number of signups per day of
+ * the requested period.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+public class UserStatsReport {
+  /** The number of active users. */
+  private long total;
+
+  /** The number of active users who verified their email. */
+  private long enabled;
+
+  /** The number of active users pending email verification. */
+  private long pending;
+
+  /** The number of active users per role name. */
+  private Map<String, Long> roles;
+
+  /** The number of signups per ISO date, oldest day first. */
+  private Map<String, Long> signupsPerDay;
+}
@@ -9,8 +9,8 @@ import lombok.NoArgsConstructor;
  * interfaces.
  * This class is used to encapsulate user information for display purposes.
  * 
- * It includes fields for the user's first name, last name, email, and date of
- * birth.
+ * It includes fields for the user's first name, last name, email, date of
+ * birth and document version.
  * The class provides constructors for creating instances based on individual
  * fields orfrom a {@link UserPrincipal} object.
  */
@@ -30,6 +30,13 @@ public class UserView {
   /** The user's date of birth. */
   private String dateOfBirth;
 
+  /**
+   * The version of the underlying user document.
+   * Documents written before versioning was introduced are reported as version
+   * {@code 0}.
+   */
+  private Long version;
+
   public UserView(String firstName, String lastName) {
     this.firstName = firstName;
     this.lastName = lastName;
@@ -40,5 +47,6 @@ public class UserView {
     this.lastName = principal.getLastName();
     this.dateOfBirth = principal.getDateOfBirth().toString();
     this.email = principal.getEmail();
+    this.version = principal.getVersion() != null ? principal.getVersion() : 0L;
   }
 }
@@ -6,7 +6,7 @@ package com.drevotiuk.model.exception;
  * confirmation tokens during operations such as user registration or email
  * verification.
  */
-public class ConfirmationTokenException extends RuntimeException {
+public class ConfirmationTokenException extends StacklessException {
   private static final long serialVersionUID = 7485429211216895539L;
 
   public ConfirmationTokenException(String message) {
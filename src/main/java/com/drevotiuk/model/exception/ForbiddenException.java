@@ -5,7 +5,7 @@ package com.drevotiuk.model.exception;
  * This exception can be used when the user does not have the necessary
  * permissions to perform a specific action.
  */
-public class ForbiddenException extends RuntimeException {
+public class ForbiddenException extends StacklessException {
   private static final long serialVersionUID = -3420521489662093038L;
 
   public ForbiddenException(String message) {
@@ -0,0 +1,22 @@
+package com.drevotiuk.model.exception;
+
+/**
+ * Custom exception class that indicates a malformed pagination cursor.
+ * This exception is typically thrown when a client sends a cursor that was not
+ * produced by a previous page of the same listing.
+ */
+public class InvalidCursorException extends StacklessException {
+  private static final long serialVersionUID = -1187430254518609462L;
+
+  public InvalidCursorException(String message) {
+    super(message);
+  }
+
+  public InvalidCursorException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
+  public InvalidCursorException(Throwable cause) {
+    super(cause);
+  }
+}
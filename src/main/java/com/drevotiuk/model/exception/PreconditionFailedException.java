@@ -0,0 +1,23 @@
+package com.drevotiuk.model.exception;
+
+/**
+ * Custom exception class that indicates a conditional update was rejected
+ * because the provided version no longer matches the stored document.
+ * This exception is typically thrown when a client sends a stale
+ * {@code If-Match} ETag while updating a user.
+ */
+public class PreconditionFailedException extends StacklessException {
+  private static final long serialVersionUID = -5214786593027718420L;
+
+  public PreconditionFailedException(String message) {
+    super(message);
+  }
+
+  public PreconditionFailedException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
+  public PreconditionFailedException(Throwable cause) {
+    super(cause);
+  }
+}
@@ -0,0 +1,23 @@
+package com.drevotiuk.model.exception;
+
+/**
+ * Custom exception class that indicates a conditional request was expected but
+ * no usable version was provided.
+ * This exception is typically thrown when a client updates a user without a
+ * valid {@code If-Match} header.
+ */
+public class PreconditionRequiredException extends StacklessException {
+  private static final long serialVersionUID = 3370152871295063614L;
+
+  public PreconditionRequiredException(String message) {
+    super(message);
+  }
+
+  public PreconditionRequiredException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
+  public PreconditionRequiredException(Throwable cause) {
+    super(cause);
+  }
+}
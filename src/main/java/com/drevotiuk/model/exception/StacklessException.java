@@ -0,0 +1,25 @@
+package com.drevotiuk.model.exception;
+
+/**
+ * Base class for domain exceptions thrown on expected, frequent paths, such as
+ * unknown users, invalid verification links or stale versions.
+ * These exceptions are translated into error responses and never logged with
+ * a stack trace, so capturing one is skipped and throwing them costs about as
+ * much as a return. Suppression is disabled as well, which makes instances
+ * with a constant message safe to preallocate and share.
+ */
+public abstract class StacklessException extends RuntimeException {
+  private static final long serialVersionUID = -6527138240614402151L;
+
+  protected StacklessException(String message) {
+    super(message, null, false, false);
+  }
+
+  protected StacklessException(String message, Throwable cause) {
+    super(message, cause, false, false);
+  }
+
+  protected StacklessException(Throwable cause) {
+    super(cause == null ? null : cause.toString(), cause, false, false);
+  }
+}
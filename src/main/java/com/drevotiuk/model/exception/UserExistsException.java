@@ -6,7 +6,7 @@ package com.drevotiuk.model.exception;
  * This exception is typically thrown during user registration when a user with
  * the same identifier is found in the database.
  */
-public class UserExistsException extends RuntimeException {
+public class UserExistsException extends StacklessException {
   private static final long serialVersionUID = 6008056172163723728L;
 
   public UserExistsException(String message) {
@@ -5,7 +5,7 @@ package com.drevotiuk.model.exception;
  * This exception is typically thrown when a requested user does not exist in
  * the system.
  */
-public class UserNotFoundException extends RuntimeException {
+public class UserNotFoundException extends StacklessException {
   private static final long serialVersionUID = 8909120762917242496L;
 
   public UserNotFoundException(String message) {
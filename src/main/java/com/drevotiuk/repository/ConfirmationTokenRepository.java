@@ -1,5 +1,6 @@
 package com.drevotiuk.repository;
 
+import java.util.Collection;
 import java.util.Optional;
 
 import org.bson.types.ObjectId;
@@ -14,7 +15,8 @@ import com.drevotiuk.model.ConfirmationToken;
  * <p>
  * This interface extends {@link MongoRepository} to provide CRUD operations for
  * {@link ConfirmationToken} entities,
- * with an additional method to query tokens by their value.
+ * with additional methods to query tokens by their value and to purge the
+ * tokens of deleted users.
  * </p>
  */
 @Repository
@@ -27,4 +29,12 @@ public interface ConfirmationTokenRepository extends MongoRepository<Confirmatio
    *         found, otherwise an empty {@link Optional}
    */
   Optional<ConfirmationToken> findByToken(String token);
+
+  /**
+   * Deletes all {@link ConfirmationToken} entities issued to the given emails.
+   *
+   * @param emails the emails whose tokens are deleted
+   * @return the number of deleted tokens
+   */
+  long deleteByUserEmailIn(Collection<String> emails);
 }
@@ -0,0 +1,17 @@
+package com.drevotiuk.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.drevotiuk.model.JobLock;
+
+/**
+ * Repository interface for managing {@link JobLock} documents in MongoDB.
+ * <p>
+ * This interface extends {@link MongoRepository} to read the locks, with the
+ * atomic acquisition declared in {@link JobLockRepositoryCustom}.
+ * </p>
+ */
+@Repository
+public interface JobLockRepository extends MongoRepository<JobLock, String>, JobLockRepositoryCustom {
+}
@@ -0,0 +1,27 @@
+package com.drevotiuk.repository;
+
+import java.time.Duration;
+
+import com.drevotiuk.model.JobLock;
+
+/**
+ * Custom repository fragment for acquiring {@link JobLock} locks.
+ * <p>
+ * Implemented by {@link JobLockRepositoryImpl} on top of
+ * {@link org.springframework.data.mongodb.core.MongoTemplate}.
+ * </p>
+ */
+public interface JobLockRepositoryCustom {
+  /**
+   * Atomically acquires the lock of the given job for this replica. The lock
+   * is never released; it keeps other replicas from running the job until it
+   * is older than the hold time, so a job scheduled on every replica runs once
+   * per interval as long as the hold is shorter than the interval.
+   *
+   * @param name the unique name of the job
+   * @param hold how long an acquired lock keeps other replicas from running
+   *             the job
+   * @return {@code true} if this replica acquired the lock and must run the job
+   */
+  boolean acquire(String name, Duration hold);
+}
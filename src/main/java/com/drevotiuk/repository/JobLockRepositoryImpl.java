@@ -0,0 +1,50 @@
+package com.drevotiuk.repository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.drevotiuk.model.JobLock;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link MongoTemplate}-based implementation of {@link JobLockRepositoryCustom}.
+ * <p>
+ * Spring Data picks this class up by its {@code Impl} suffix and merges it into
+ * {@link JobLockRepository}.
+ * </p>
+ */
+@RequiredArgsConstructor
+public class JobLockRepositoryImpl implements JobLockRepositoryCustom {
+  private static final String ID_FIELD = "_id";
+  private static final String LOCKED_AT_FIELD = "lockedAt";
+
+  private final MongoTemplate mongoTemplate;
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Like a migration claim, the lock is a single upsert matching only an
+   * expired lock. If the job is locked, the upsert tries to insert a second
+   * document with the same ID and fails on the unique {@code _id} index, so
+   * concurrent replicas cannot both acquire it.
+   * </p>
+   */
+  @Override
+  public boolean acquire(String name, Duration hold) {
+    LocalDateTime now = LocalDateTime.now();
+    Query expired = Query.query(Criteria.where(ID_FIELD).is(name).and(LOCKED_AT_FIELD).lt(now.minus(hold)));
+    try {
+      mongoTemplate.upsert(expired, new Update().set(LOCKED_AT_FIELD, now), JobLock.class);
+      return true;
+    } catch (DuplicateKeyException e) {
+      return false;
+    }
+  }
+}
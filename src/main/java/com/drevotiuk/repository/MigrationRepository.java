@@ -0,0 +1,18 @@
+package com.drevotiuk.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.drevotiuk.model.Migration;
+
+/**
+ * Repository interface for managing {@link Migration} documents in MongoDB.
+ * <p>
+ * This interface extends {@link MongoRepository} to read the migrations, with
+ * the atomic claim and completion declared in
+ * {@link MigrationRepositoryCustom}.
+ * </p>
+ */
+@Repository
+public interface MigrationRepository extends MongoRepository<Migration, String>, MigrationRepositoryCustom {
+}
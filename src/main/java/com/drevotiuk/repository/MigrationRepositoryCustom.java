@@ -0,0 +1,34 @@
+package com.drevotiuk.repository;
+
+import java.time.Duration;
+
+import com.drevotiuk.model.Migration;
+
+/**
+ * Custom repository fragment for claiming and completing {@link Migration}
+ * runs.
+ * <p>
+ * Implemented by {@link MigrationRepositoryImpl} on top of
+ * {@link org.springframework.data.mongodb.core.MongoTemplate}.
+ * </p>
+ */
+public interface MigrationRepositoryCustom {
+  /**
+   * Atomically claims the given migration for this replica. A migration can be
+   * claimed if it never ran, or if it has not completed and its last claim is
+   * older than the lease, i.e. the replica running it died.
+   *
+   * @param name  the unique name of the migration
+   * @param lease how long a claim keeps other replicas from running the
+   *              migration
+   * @return {@code true} if this replica claimed the migration and must run it
+   */
+  boolean claim(String name, Duration lease);
+
+  /**
+   * Marks the given migration as completed, so that it is never claimed again.
+   *
+   * @param name the unique name of the migration
+   */
+  void complete(String name);
+}
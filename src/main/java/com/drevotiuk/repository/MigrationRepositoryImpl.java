@@ -0,0 +1,60 @@
+package com.drevotiuk.repository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.drevotiuk.model.Migration;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link MongoTemplate}-based implementation of
+ * {@link MigrationRepositoryCustom}.
+ * <p>
+ * Spring Data picks this class up by its {@code Impl} suffix and merges it into
+ * {@link MigrationRepository}.
+ * </p>
+ */
+@RequiredArgsConstructor
+public class MigrationRepositoryImpl implements MigrationRepositoryCustom {
+  private static final String ID_FIELD = "_id";
+  private static final String STARTED_AT_FIELD = "startedAt";
+  private static final String COMPLETED_AT_FIELD = "completedAt";
+
+  private final MongoTemplate mongoTemplate;
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * The claim is a single upsert matching only a claimable document. If the
+   * migration exists but is running or completed, the upsert tries to insert
+   * a second document with the same ID and fails on the unique {@code _id}
+   * index, so concurrent replicas cannot both claim it.
+   * </p>
+   */
+  @Override
+  public boolean claim(String name, Duration lease) {
+    LocalDateTime now = LocalDateTime.now();
+    Query claimable = Query.query(Criteria.where(ID_FIELD).is(name)
+        .and(COMPLETED_AT_FIELD).is(null)
+        .and(STARTED_AT_FIELD).lt(now.minus(lease)));
+    try {
+      mongoTemplate.upsert(claimable, new Update().set(STARTED_AT_FIELD, now), Migration.class);
+      return true;
+    } catch (DuplicateKeyException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public void complete(String name) {
+    mongoTemplate.updateFirst(Query.query(Criteria.where(ID_FIELD).is(name)),
+        new Update().set(COMPLETED_AT_FIELD, LocalDateTime.now()), Migration.class);
+  }
+}
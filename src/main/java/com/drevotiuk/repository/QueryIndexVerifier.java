@@ -0,0 +1,163 @@
+package com.drevotiuk.repository;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.bson.Document;
+import org.bson.json.JsonParseException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Component;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Checks once the application is ready that every repository query method can
+ * be served by an index, and warns about the ones that cannot.
+ * <p>
+ * A query method is considered supported when an index of its collection
+ * starts with one of the fields it filters on, or with the first field it
+ * sorts by. Both derived queries and {@link Query} annotations are checked;
+ * custom fragment implementations are not.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class QueryIndexVerifier {
+  private static final Pattern PLACEHOLDER = Pattern.compile("\\?\\d+");
+  private static final String ID_FIELD = "_id";
+
+  @Value("${app.mongo.verify-indexes}")
+  private boolean enabled;
+
+  private final ApplicationContext applicationContext;
+  private final MongoTemplate mongoTemplate;
+
+  /**
+   * Checks the query methods of every repository against the indexes of its
+   * collection.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void verify() {
+    if (!enabled)
+      return;
+
+    Repositories repositories = new Repositories(applicationContext);
+    for (Class<?> domainType : repositories) {
+      Set<String> leadingFields = leadingIndexFields(domainType);
+      RepositoryInformation information = repositories.getRequiredRepositoryInformation(domainType);
+      for (Method method : information.getQueryMethods()) {
+        List<String> fields = queriedFields(method, domainType);
+        if (!fields.isEmpty() && fields.stream().noneMatch(leadingFields::contains))
+          log.warn("No index of {} supports {}.{}, which queries {}", mongoTemplate.getCollectionName(domainType),
+              information.getRepositoryInterface().getSimpleName(), method.getName(), fields);
+      }
+    }
+  }
+
+  /**
+   * Returns the first field of every index of the collection of the given
+   * type.
+   *
+   * @param domainType the type stored in the collection.
+   * @return the leading index fields, always including {@code _id}.
+   */
+  private Set<String> leadingIndexFields(Class<?> domainType) {
+    Set<String> fields = new HashSet<>();
+    fields.add(ID_FIELD);
+    for (IndexInfo index : mongoTemplate.indexOps(domainType).getIndexInfo()) {
+      if (!index.getIndexFields().isEmpty())
+        fields.add(index.getIndexFields().get(0).getKey());
+    }
+    return fields;
+  }
+
+  /**
+   * Returns the fields a query method filters on, followed by the first field
+   * it sorts by.
+   *
+   * @param method     the query method.
+   * @param domainType the type the method queries.
+   * @return the document field names, empty if the method queries no field or
+   *         its query cannot be parsed.
+   */
+  private List<String> queriedFields(Method method, Class<?> domainType) {
+    Query query = AnnotatedElementUtils.findMergedAnnotation(method, Query.class);
+    if (query != null && !query.value().isEmpty()) {
+      List<String> fields = topLevelFields(query.value());
+      List<String> sort = topLevelFields(query.sort());
+      if (!sort.isEmpty())
+        fields.add(sort.get(0));
+      return fields;
+    }
+
+    PartTree tree;
+    try {
+      tree = new PartTree(method.getName(), domainType);
+    } catch (RuntimeException e) {
+      log.debug("Skipping index check of {}: {}", method.getName(), e.getMessage());
+      return List.of();
+    }
+    List<String> fields = new ArrayList<>();
+    for (Part part : tree.getParts())
+      fields.add(fieldName(part.getProperty().toDotPath(), domainType));
+    for (Sort.Order order : tree.getSort()) {
+      fields.add(fieldName(order.getProperty(), domainType));
+      break;
+    }
+    return fields;
+  }
+
+  /**
+   * Returns the top-level field names of a JSON query or sort, ignoring
+   * operators such as {@code $or}.
+   *
+   * @param json the JSON query or sort, with {@code ?0} style placeholders.
+   * @return the field names, empty if the JSON is blank or cannot be parsed.
+   */
+  private List<String> topLevelFields(String json) {
+    List<String> fields = new ArrayList<>();
+    if (json.isBlank())
+      return fields;
+    try {
+      for (String key : Document.parse(PLACEHOLDER.matcher(json).replaceAll("null")).keySet()) {
+        if (!key.startsWith("$"))
+          fields.add(key);
+      }
+    } catch (JsonParseException e) {
+      log.debug("Skipping index check of query {}: {}", json, e.getMessage());
+    }
+    return fields;
+  }
+
+  /**
+   * Maps a property path of the given type to its document field name.
+   *
+   * @param propertyPath the dot-separated property path.
+   * @param domainType   the type declaring the path.
+   * @return the dot-separated document field name.
+   */
+  private String fieldName(String propertyPath, Class<?> domainType) {
+    return mongoTemplate.getConverter().getMappingContext()
+        .getPersistentPropertyPath(propertyPath, domainType)
+        .toDotPath(MongoPersistentProperty::getFieldName);
+  }
+}
@@ -1,9 +1,15 @@
 package com.drevotiuk.repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import com.drevotiuk.model.UserPrincipal;
@@ -13,27 +19,106 @@ import com.drevotiuk.model.UserPrincipal;
  * <p>
  * This interface extends {@link MongoRepository} to provide CRUD operations for
  * {@link UserPrincipal} entities,
- * with additional methods to query by email.
+ * with additional methods to query active users by email, to read only the
+ * fields needed
+ * for a {@link com.drevotiuk.model.UserView} and to apply partial updates
+ * declared in {@link UserRepositoryCustom}.
  * </p>
  */
 @Repository
-public interface UserRepository extends MongoRepository<UserPrincipal, ObjectId> {
+public interface UserRepository extends MongoRepository<UserPrincipal, ObjectId>, UserRepositoryCustom {
   /**
-   * Checks if a {@link UserPrincipal} with the specified email exists in the
-   * repository.
-   *
-   * @param email the email to check for existence
-   * @return {@code true} if a {@link UserPrincipal} with the specified email
-   *         exists, otherwise {@code false}
+   * Projection of the fields backing a {@link com.drevotiuk.model.UserView}.
+   * Sensitive fields such as the password hash are never read.
+   */
+  String VIEW_FIELDS = "{ 'firstName': 1, 'lastName': 1, 'email': 1, 'dateOfBirth': 1, 'version': 1 }";
+
+  /**
+   * Projection of the {@link #VIEW_FIELDS view fields}, the time of the last
+   * change and the deletion time, backing the changed-since feed.
+   */
+  String CHANGE_FIELDS = "{ 'firstName': 1, 'lastName': 1, 'email': 1, 'dateOfBirth': 1, 'version': 1, "
+      + "'updatedAt': 1, 'deletedAt': 1 }";
+
+  /**
+   * Number of documents fetched per cursor round trip when streaming users.
    */
-  boolean existsByEmail(String email);
+  int STREAM_BATCH_SIZE = 1000;
 
   /**
-   * Finds a {@link UserPrincipal} by its email.
+   * Finds an active {@link UserPrincipal} by its email.
    *
    * @param email the email to search for
-   * @return an {@link Optional} containing the {@link UserPrincipal} if found,
-   *         otherwise an empty {@link Optional}
+   * @return an {@link Optional} containing the {@link UserPrincipal} if found
+   *         and not deleted, otherwise an empty {@link Optional}
    */
+  @Query("{ 'email': ?0, 'deletedAt': null }")
   Optional<UserPrincipal> findByEmail(String email);
+
+  /**
+   * Finds an active {@link UserPrincipal} by its ID, reading only the
+   * {@link #VIEW_FIELDS view fields}.
+   *
+   * @param userId the ID to search for
+   * @return an {@link Optional} containing the partially populated
+   *         {@link UserPrincipal} if found and not deleted, otherwise an empty
+   *         {@link Optional}
+   */
+  @Query(value = "{ '_id': ?0, 'deletedAt': null }", fields = VIEW_FIELDS)
+  Optional<UserPrincipal> findViewById(ObjectId userId);
+
+  /**
+   * Finds the active {@link UserPrincipal} entities with the given IDs in a
+   * single {@code $in} query, reading only the {@link #VIEW_FIELDS view
+   * fields}.
+   *
+   * @param userIds the IDs to search for
+   * @return the partially populated {@link UserPrincipal} entities found, in no
+   *         particular order
+   */
+  @Query(value = "{ '_id': { '$in': ?0 }, 'deletedAt': null }", fields = VIEW_FIELDS)
+  List<UserPrincipal> findViewsByIdIn(Collection<ObjectId> userIds);
+
+  /**
+   * Finds the active {@link UserPrincipal} entities with the given IDs in a
+   * single {@code $in} query, reading only the role and enabled flag counted by
+   * the user statistics.
+   *
+   * @param userIds the IDs to search for
+   * @return the partially populated {@link UserPrincipal} entities found, in no
+   *         particular order
+   */
+  @Query(value = "{ '_id': { '$in': ?0 }, 'deletedAt': null }", fields = "{ 'role': 1, 'enabled': 1 }")
+  List<UserPrincipal> findCountedStatesByIdIn(Collection<ObjectId> userIds);
+
+  /**
+   * Streams all active {@link UserPrincipal} entities in ID order, reading only the
+   * {@link #VIEW_FIELDS view fields} through a server-side cursor fetched in
+   * batches of {@link #STREAM_BATCH_SIZE}.
+   * <p>
+   * The returned {@link Stream} holds an open cursor and must be closed.
+   * </p>
+   *
+   * @return a stream of partially populated {@link UserPrincipal} entities
+   */
+  @Query(value = "{ 'deletedAt': null }", fields = VIEW_FIELDS, sort = "{ '_id': 1 }")
+  @Meta(cursorBatchSize = STREAM_BATCH_SIZE)
+  Stream<UserPrincipal> streamAllViews();
+
+  /**
+   * Streams the {@link UserPrincipal} entities changed at or after the given
+   * time, oldest change first, reading only the {@link #CHANGE_FIELDS change
+   * fields} through a server-side cursor fetched in batches of
+   * {@link #STREAM_BATCH_SIZE}. Users marked as deleted but not purged yet are
+   * included, with their deletion time set.
+   * <p>
+   * The returned {@link Stream} holds an open cursor and must be closed.
+   * </p>
+   *
+   * @param since the earliest change time to include
+   * @return a stream of partially populated {@link UserPrincipal} entities
+   */
+  @Query(value = "{ 'updatedAt': { '$gte': ?0 } }", fields = CHANGE_FIELDS, sort = "{ 'updatedAt': 1, '_id': 1 }")
+  @Meta(cursorBatchSize = STREAM_BATCH_SIZE)
+  Stream<UserPrincipal> streamChangesSince(LocalDateTime since);
 }
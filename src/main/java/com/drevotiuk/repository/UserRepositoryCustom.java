@@ -0,0 +1,201 @@
+package com.drevotiuk.repository;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.bson.types.ObjectId;
+
+import com.drevotiuk.model.UserBulkAction;
+import com.drevotiuk.model.UserBulkStatus;
+import com.drevotiuk.model.UserCursor;
+import com.drevotiuk.model.UserPageRequest;
+import com.drevotiuk.model.UserPrincipal;
+import com.drevotiuk.model.UserRole;
+import com.drevotiuk.model.UserSearchRequest;
+import com.drevotiuk.model.UserStats;
+
+/**
+ * Custom repository fragment for {@link UserPrincipal} operations that cannot
+ * be expressed as derived query methods.
+ * <p>
+ * Implemented by {@link UserRepositoryImpl} on top of
+ * {@link org.springframework.data.mongodb.core.MongoTemplate}. Every update
+ * increments the document version, and deleted users are never matched by
+ * reads or updates.
+ * </p>
+ */
+public interface UserRepositoryCustom {
+  /**
+   * Checks if a {@link UserPrincipal} with the specified email exists in the
+   * repository.
+   * <p>
+   * The lookup projects only the indexed {@code email} field, so it is answered
+   * from the index without fetching the document. Deleted users that have not
+   * been purged yet still count, so their email cannot be reused before their
+   * dependent data is gone.
+   * </p>
+   *
+   * @param email the email to check for existence
+   * @return {@code true} if a {@link UserPrincipal} with the specified email
+   *         exists, otherwise {@code false}
+   */
+  boolean existsByEmail(String email);
+
+  /**
+   * Applies a partial {@code $set} update to the user with the given ID and
+   * version in a single {@code findAndModify} round trip.
+   *
+   * @param userId          the ID of the user to update
+   * @param expectedVersion the version the stored document must have
+   * @param fields          the document fields to set, keyed by field name
+   * @return an {@link Optional} containing the updated user projected to its
+   *         view fields, or an empty {@link Optional} if no user matched
+   */
+  Optional<UserPrincipal> updateFields(ObjectId userId, long expectedVersion, Map<String, Object> fields);
+
+  /**
+   * Applies a partial {@code $set} update to the user with the given ID and
+   * version only if it is owned by the given email, in a single
+   * {@code findAndModify} round trip.
+   *
+   * @param userId          the ID of the user to update
+   * @param email           the email the user document must have
+   * @param expectedVersion the version the stored document must have
+   * @param fields          the document fields to set, keyed by field name
+   * @return an {@link Optional} containing the updated user projected to its
+   *         view fields, or an empty {@link Optional} if no user matched
+   */
+  Optional<UserPrincipal> updateFields(ObjectId userId, String email, long expectedVersion,
+      Map<String, Object> fields);
+
+  /**
+   * Enables the user with the given email if it is not enabled yet, regardless
+   * of its version, in a single {@code findAndModify} round trip. Only the call
+   * that actually flips the flag matches, so concurrent or replayed
+   * confirmations enable the user once.
+   *
+   * @param email the email of the user to enable
+   * @return an {@link Optional} containing the enabled user projected to its
+   *         view fields, or an empty {@link Optional} if no disabled user
+   *         matched
+   */
+  Optional<UserPrincipal> enableByEmail(String email);
+
+  /**
+   * Finds a page of users matching the filters of the request, ordered by its
+   * sort field and the user ID, reading only the view fields.
+   *
+   * @param request the filters and sort of the listing
+   * @param after   the position after which the page starts, or {@code null}
+   *                for the first page
+   * @param limit   the maximum number of users to return
+   * @return a list of partially populated {@link UserPrincipal} entities
+   */
+  List<UserPrincipal> findViewPage(UserPageRequest request, UserCursor after, int limit);
+
+  /**
+   * Finds a page of users whose case-folded search key of the requested field
+   * starts with the query, ordered by that key and the user ID, reading only
+   * the view fields.
+   *
+   * @param request the query and field to search
+   * @param after   the position after which the page starts, or {@code null}
+   *                for the first page
+   * @param limit   the maximum number of users to return
+   * @param maxTime the server-side time budget of the query
+   * @return a list of partially populated {@link UserPrincipal} entities
+   */
+  List<UserPrincipal> searchViews(UserSearchRequest request, UserCursor after, int limit, Duration maxTime);
+
+  /**
+   * Writes the case-folded search keys to every user document that does not
+   * have them yet, in unordered bulk batches. No index covers the missing
+   * keys, so this scans the collection and is meant to run once.
+   *
+   * @param batchSize the number of users updated per bulk write
+   * @return the number of updated users
+   */
+  long backfillSearchKeys(int batchSize);
+
+  /**
+   * Sets the update time of every user written before the field was introduced
+   * to the current time, so that the changed-since feed delivers them once.
+   * The versions are left unchanged, so cached views and the ETags clients
+   * hold stay valid.
+   *
+   * @return the number of updated users
+   */
+  long backfillUpdateTimes();
+
+  /**
+   * Applies a moderation action to the given users as a single unordered bulk
+   * write. Users that do not exist are not written, and a write rejected for
+   * one user does not stop the others. Users deleted between the lookup and the
+   * write are reported as not found. {@link UserBulkAction#DELETE} marks the
+   * users as deleted, like {@link #softDelete(ObjectId)}.
+   *
+   * @param userIds the IDs of the users to apply the action to
+   * @param action  the action to apply
+   * @param role    the role to assign, used only by
+   *                {@link UserBulkAction#SET_ROLE}
+   * @return the outcome of the action for every given ID
+   */
+  Map<ObjectId, UserBulkStatus> applyBulk(Collection<ObjectId> userIds, UserBulkAction action, UserRole role);
+
+  /**
+   * Marks the active user with the given ID as deleted and increments its
+   * version. The user disappears from every read immediately and is purged
+   * later by {@link #purgeClaimed(String)}.
+   *
+   * @param userId the ID of the user to delete
+   * @return an {@link Optional} containing the role and enabled flag of the user
+   *         before deletion, or an empty {@link Optional} if no active user
+   *         matched
+   */
+  Optional<UserPrincipal> softDelete(ObjectId userId);
+
+  /**
+   * Atomically claims a batch of users marked as deleted for purging, oldest
+   * first, and reads their ID, email, deletion time and version. Users claimed
+   * by another replica are skipped until their claim is older than the lease.
+   * The versions are left unchanged.
+   *
+   * @param claim a unique identifier of this claim
+   * @param limit the maximum number of users to claim
+   * @param lease how long a claim keeps other replicas from purging the users
+   * @return a list of partially populated {@link UserPrincipal} entities
+   *         claimed by this call
+   */
+  List<UserPrincipal> claimDeleted(String claim, int limit, Duration lease);
+
+  /**
+   * Removes the users held by the given claim, provided they are still marked
+   * as deleted. Users whose claim expired and was taken over are kept.
+   *
+   * @param claim the identifier passed to
+   *              {@link #claimDeleted(String, int, Duration)}
+   * @return the number of removed users
+   */
+  long purgeClaimed(String claim);
+
+  /**
+   * Counts the active users in a single aggregation, grouped by role and
+   * enabled flag.
+   *
+   * @return freshly computed {@link UserStats} counters
+   */
+  UserStats countActive();
+
+  /**
+   * Counts the users created on each day from the given one onwards, in UTC,
+   * using the creation time embedded in their IDs.
+   *
+   * @param from the first day to count
+   * @return the number of users created per day
+   */
+  Map<LocalDate, Long> countSignupsSince(LocalDate from);
+}
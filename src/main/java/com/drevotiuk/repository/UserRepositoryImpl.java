@@ -0,0 +1,485 @@
+package com.drevotiuk.repository;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.drevotiuk.model.UserBulkAction;
+import com.drevotiuk.model.UserBulkStatus;
+import com.drevotiuk.model.UserCursor;
+import com.drevotiuk.model.UserPageRequest;
+import com.drevotiuk.model.UserPrincipal;
+import com.drevotiuk.model.UserRole;
+import com.drevotiuk.model.UserSearchField;
+import com.drevotiuk.model.UserSearchRequest;
+import com.drevotiuk.model.UserStats;
+import com.drevotiuk.model.UserSortField;
+
+import com.mongodb.BulkWriteError;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link MongoTemplate}-based implementation of {@link UserRepositoryCustom}.
+ * <p>
+ * Spring Data picks this class up by its {@code Impl} suffix and merges it into
+ * {@link UserRepository}.
+ * </p>
+ */
+@RequiredArgsConstructor
+public class UserRepositoryImpl implements UserRepositoryCustom {
+  private static final String ID_FIELD = "_id";
+  private static final String EMAIL_FIELD = "email";
+  private static final Pattern REGEX_SPECIAL_CHARS = Pattern.compile("[\\^$.|?*+()\\[\\]{}\\\\]");
+  private static final String VERSION_FIELD = "version";
+  private static final String DELETED_AT_FIELD = "deletedAt";
+  private static final String UPDATED_AT_FIELD = "updatedAt";
+  private static final String ROLE_FIELD = "role";
+  private static final String ENABLED_FIELD = "enabled";
+  private static final String COUNT_FIELD = "count";
+  private static final String PURGE_CLAIM_FIELD = "purgeClaim";
+  private static final String PURGE_CLAIMED_AT_FIELD = "purgeClaimedAt";
+  private static final String SIGNUP_DAY_FORMAT = "%Y-%m-%d";
+  private static final String[] VIEW_FIELDS = { "firstName", "lastName", EMAIL_FIELD, "dateOfBirth", VERSION_FIELD };
+
+  private final MongoTemplate mongoTemplate;
+
+  @Override
+  public boolean existsByEmail(String email) {
+    Query query = Query.query(Criteria.where(EMAIL_FIELD).is(email)).limit(1);
+    query.fields().include(EMAIL_FIELD).exclude(ID_FIELD);
+    String collection = mongoTemplate.getCollectionName(UserPrincipal.class);
+    return mongoTemplate.findOne(query, Document.class, collection) != null;
+  }
+
+  @Override
+  public Optional<UserPrincipal> updateFields(ObjectId userId, long expectedVersion, Map<String, Object> fields) {
+    return findAndSet(versioned(Criteria.where(ID_FIELD).is(userId), expectedVersion), fields);
+  }
+
+  @Override
+  public Optional<UserPrincipal> updateFields(ObjectId userId, String email, long expectedVersion,
+      Map<String, Object> fields) {
+    return findAndSet(versioned(Criteria.where(ID_FIELD).is(userId).and(EMAIL_FIELD).is(email), expectedVersion), fields);
+  }
+
+  @Override
+  public Optional<UserPrincipal> enableByEmail(String email) {
+    return findAndSet(Criteria.where(EMAIL_FIELD).is(email).and(ENABLED_FIELD).ne(true), Map.of(ENABLED_FIELD, true));
+  }
+
+  @Override
+  public List<UserPrincipal> findViewPage(UserPageRequest request, UserCursor after, int limit) {
+    List<Criteria> conditions = new ArrayList<>();
+    conditions.add(Criteria.where(DELETED_AT_FIELD).is(null));
+    if (request.getRole() != null)
+      conditions.add(Criteria.where(ROLE_FIELD).is(request.getRole()));
+    if (request.getEnabled() != null)
+      conditions.add(Criteria.where(ENABLED_FIELD).is(request.getEnabled()));
+    if (request.getLocked() != null)
+      conditions.add(Criteria.where("locked").is(request.getLocked()));
+    if (request.getNamePrefix() != null && !request.getNamePrefix().isEmpty())
+      conditions.add(Criteria.where("lastName").regex("^" + escapeRegex(request.getNamePrefix())));
+    if (after != null)
+      conditions.add(keysetAfter(request.getSort(), request.getDirection(), after));
+
+    Query query = new Query(new Criteria().andOperator(conditions.toArray(new Criteria[0])));
+    query.fields().include(VIEW_FIELDS);
+    query.with(request.getSort() == UserSortField.ID
+        ? Sort.by(request.getDirection(), ID_FIELD)
+        : Sort.by(request.getDirection(), request.getSort().getField(), ID_FIELD));
+    query.limit(limit);
+
+    return mongoTemplate.find(query, UserPrincipal.class);
+  }
+
+  @Override
+  public List<UserPrincipal> searchViews(UserSearchRequest request, UserCursor after, int limit, Duration maxTime) {
+    String keyPath = request.getField().getKeyPath();
+    String prefix = UserSearchField.normalize(request.getQuery());
+    Criteria criteria = Criteria.where(keyPath).regex("^" + escapeRegex(prefix != null ? prefix : ""))
+        .and(DELETED_AT_FIELD).is(null);
+    if (after != null) {
+      criteria = new Criteria().andOperator(criteria, new Criteria().orOperator(
+          Criteria.where(keyPath).gt(after.getValue()),
+          Criteria.where(keyPath).is(after.getValue()).and(ID_FIELD).gt(after.getId())));
+    }
+
+    Query query = new Query(criteria);
+    query.fields().include(VIEW_FIELDS);
+    query.with(Sort.by(Sort.Direction.ASC, keyPath, ID_FIELD));
+    query.limit(limit);
+    query.maxTime(maxTime);
+
+    return mongoTemplate.find(query, UserPrincipal.class);
+  }
+
+  @Override
+  public long backfillSearchKeys(int batchSize) {
+    long updated = 0;
+    ObjectId lastId = null;
+    while (true) {
+      Query query = new Query(lastId == null
+          ? Criteria.where(UserSearchField.KEYS_FIELD).exists(false)
+          : Criteria.where(UserSearchField.KEYS_FIELD).exists(false).and(ID_FIELD).gt(lastId));
+      query.fields().include(VIEW_FIELDS);
+      query.with(Sort.by(Sort.Direction.ASC, ID_FIELD));
+      query.limit(batchSize);
+
+      List<UserPrincipal> batch = mongoTemplate.find(query, UserPrincipal.class);
+      if (batch.isEmpty())
+        return updated;
+
+      BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserPrincipal.class);
+      for (UserPrincipal principal : batch) {
+        Update update = new Update();
+        for (UserSearchField field : UserSearchField.values())
+          update.set(field.getKeyPath(), field.keyOf(principal));
+        bulk.updateOne(Query.query(Criteria.where(ID_FIELD).is(principal.getId())), update);
+      }
+      updated += bulk.execute().getModifiedCount();
+      lastId = batch.get(batch.size() - 1).getId();
+    }
+  }
+
+  @Override
+  public long backfillUpdateTimes() {
+    Query query = Query.query(Criteria.where(UPDATED_AT_FIELD).is(null));
+    Update update = new Update().set(UPDATED_AT_FIELD, LocalDateTime.now());
+    // Not the typed overload: it would add an increment of the version
+    return mongoTemplate.updateMulti(query, update, mongoTemplate.getCollectionName(UserPrincipal.class))
+        .getModifiedCount();
+  }
+
+  @Override
+  public Map<ObjectId, UserBulkStatus> applyBulk(Collection<ObjectId> userIds, UserBulkAction action,
+      UserRole role) {
+    Query existing = Query.query(Criteria.where(ID_FIELD).in(userIds).and(DELETED_AT_FIELD).is(null));
+    existing.fields().include(ID_FIELD);
+    String collection = mongoTemplate.getCollectionName(UserPrincipal.class);
+    Set<ObjectId> found = findIds(existing, collection);
+
+    Map<ObjectId, UserBulkStatus> statuses = new LinkedHashMap<>();
+    List<ObjectId> written = new ArrayList<>();
+    LocalDateTime appliedAt = LocalDateTime.now();
+    Update update = bulkUpdate(action, role, appliedAt);
+    BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserPrincipal.class);
+    for (ObjectId userId : userIds) {
+      if (!found.contains(userId)) {
+        statuses.put(userId, UserBulkStatus.NOT_FOUND);
+        continue;
+      }
+      Query byId = Query.query(Criteria.where(ID_FIELD).is(userId).and(DELETED_AT_FIELD).is(null));
+      bulk.updateOne(byId, update);
+      statuses.put(userId, UserBulkStatus.APPLIED);
+      written.add(userId);
+    }
+    if (written.isEmpty())
+      return statuses;
+
+    int matched;
+    int failed = 0;
+    try {
+      matched = bulk.execute().getMatchedCount();
+    } catch (BulkOperationException e) {
+      for (BulkWriteError error : e.getErrors())
+        statuses.put(written.get(error.getIndex()), UserBulkStatus.FAILED);
+      failed = e.getErrors().size();
+      matched = e.getResult().getMatchedCount();
+    }
+    if (matched < written.size() - failed)
+      markUnmatched(statuses, appliedAt, collection);
+    return statuses;
+  }
+
+  @Override
+  public Optional<UserPrincipal> softDelete(ObjectId userId) {
+    Query query = Query.query(Criteria.where(ID_FIELD).is(userId).and(DELETED_AT_FIELD).is(null));
+    query.fields().include(ROLE_FIELD, ENABLED_FIELD);
+    LocalDateTime now = LocalDateTime.now();
+    Update update = new Update().inc(VERSION_FIELD, 1).set(DELETED_AT_FIELD, now).set(UPDATED_AT_FIELD, now);
+    return Optional.ofNullable(mongoTemplate.findAndModify(query, update, UserPrincipal.class));
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Candidates are read first and then claimed with a single update that
+   * matches only those still claimable, so a user picked by two replicas at
+   * once is claimed by only one of them. The claimed users are read back by
+   * the claim.
+   * </p>
+   */
+  @Override
+  public List<UserPrincipal> claimDeleted(String claim, int limit, Duration lease) {
+    LocalDateTime now = LocalDateTime.now();
+    String collection = mongoTemplate.getCollectionName(UserPrincipal.class);
+    Query candidates = Query.query(claimableDeleted(now.minus(lease)));
+    candidates.fields().include(ID_FIELD);
+    candidates.with(Sort.by(Sort.Direction.ASC, DELETED_AT_FIELD));
+    candidates.limit(limit);
+    Set<ObjectId> candidateIds = findIds(candidates, collection);
+    if (candidateIds.isEmpty())
+      return List.of();
+
+    // Through the collection name, so that the claim does not increment the version
+    Query claimable = Query.query(new Criteria().andOperator(
+        Criteria.where(ID_FIELD).in(candidateIds), claimableDeleted(now.minus(lease))));
+    mongoTemplate.updateMulti(claimable,
+        new Update().set(PURGE_CLAIM_FIELD, claim).set(PURGE_CLAIMED_AT_FIELD, now), collection);
+
+    Query claimed = Query.query(Criteria.where(PURGE_CLAIM_FIELD).is(claim));
+    claimed.fields().include(EMAIL_FIELD, DELETED_AT_FIELD, VERSION_FIELD);
+    claimed.with(Sort.by(Sort.Direction.ASC, DELETED_AT_FIELD));
+    return mongoTemplate.find(claimed, UserPrincipal.class);
+  }
+
+  @Override
+  public long purgeClaimed(String claim) {
+    Query query = Query.query(Criteria.where(PURGE_CLAIM_FIELD).is(claim).and(DELETED_AT_FIELD).ne(null));
+    return mongoTemplate.remove(query, UserPrincipal.class).getDeletedCount();
+  }
+
+  @Override
+  public UserStats countActive() {
+    Aggregation aggregation = Aggregation.newAggregation(
+        Aggregation.match(Criteria.where(DELETED_AT_FIELD).is(null)),
+        Aggregation.group(ROLE_FIELD, ENABLED_FIELD).count().as(COUNT_FIELD));
+    List<Document> groups = mongoTemplate
+        .aggregate(aggregation, UserPrincipal.class, Document.class)
+        .getMappedResults();
+
+    UserStats stats = new UserStats();
+    for (Document group : groups) {
+      Document key = group.get(ID_FIELD, Document.class);
+      long count = group.get(COUNT_FIELD, Number.class).longValue();
+      stats.setTotal(stats.getTotal() + count);
+      if (Boolean.TRUE.equals(key.getBoolean(ENABLED_FIELD)))
+        stats.setEnabled(stats.getEnabled() + count);
+      else
+        stats.setPending(stats.getPending() + count);
+      String role = key.getString(ROLE_FIELD);
+      if (role != null)
+        stats.getRoles().merge(role, count, Long::sum);
+    }
+    return stats;
+  }
+
+  @Override
+  public Map<LocalDate, Long> countSignupsSince(LocalDate from) {
+    long fromSeconds = from.atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+    ObjectId fromId = new ObjectId(String.format("%08x%016x", fromSeconds, 0));
+    Document day = new Document("$dateToString", new Document("format", SIGNUP_DAY_FORMAT)
+        .append("date", new Document("$toDate", "$" + ID_FIELD)));
+    Aggregation aggregation = Aggregation.newAggregation(
+        Aggregation.match(Criteria.where(ID_FIELD).gte(fromId)),
+        context -> new Document("$group", new Document(ID_FIELD, day)
+            .append(COUNT_FIELD, new Document("$sum", 1))));
+    List<Document> days = mongoTemplate
+        .aggregate(aggregation, UserPrincipal.class, Document.class)
+        .getMappedResults();
+
+    Map<LocalDate, Long> counts = new LinkedHashMap<>();
+    for (Document signups : days)
+      counts.put(LocalDate.parse(signups.getString(ID_FIELD)), signups.get(COUNT_FIELD, Number.class).longValue());
+    return counts;
+  }
+
+  /**
+   * Reports as {@link UserBulkStatus#NOT_FOUND} the users a bulk write did not
+   * match because they were deleted between the lookup and the write.
+   * <p>
+   * The bulk result only counts matches, so the applied users are recognised
+   * by the update time the write set; a user changed again since still has a
+   * later one.
+   * </p>
+   *
+   * @param statuses   the outcome of every user, updated in place
+   * @param appliedAt  the update time set by the bulk write
+   * @param collection the name of the users collection
+   */
+  private void markUnmatched(Map<ObjectId, UserBulkStatus> statuses, LocalDateTime appliedAt,
+      String collection) {
+    List<ObjectId> applied = new ArrayList<>();
+    statuses.forEach((userId, status) -> {
+      if (status == UserBulkStatus.APPLIED)
+        applied.add(userId);
+    });
+    Query updated = Query.query(Criteria.where(ID_FIELD).in(applied).and(UPDATED_AT_FIELD).gte(appliedAt));
+    updated.fields().include(ID_FIELD);
+    Set<ObjectId> matched = findIds(updated, collection);
+    for (ObjectId userId : applied) {
+      if (!matched.contains(userId))
+        statuses.put(userId, UserBulkStatus.NOT_FOUND);
+    }
+  }
+
+  /**
+   * Finds the IDs of the documents matching the query.
+   *
+   * @param query      the query, projected to the ID
+   * @param collection the name of the users collection
+   * @return the IDs of the matching documents
+   */
+  private Set<ObjectId> findIds(Query query, String collection) {
+    Set<ObjectId> ids = new HashSet<>();
+    mongoTemplate.find(query, Document.class, collection)
+        .forEach(document -> ids.add(document.getObjectId(ID_FIELD)));
+    return ids;
+  }
+
+  /**
+   * Matches users marked as deleted that no purge has claimed, or whose claim
+   * has expired because the replica holding it stopped.
+   *
+   * @param expiredBefore the time before which a claim is expired
+   * @return the criteria of claimable deleted users
+   */
+  private Criteria claimableDeleted(LocalDateTime expiredBefore) {
+    return Criteria.where(DELETED_AT_FIELD).ne(null).orOperator(
+        Criteria.where(PURGE_CLAIMED_AT_FIELD).is(null),
+        Criteria.where(PURGE_CLAIMED_AT_FIELD).lt(expiredBefore));
+  }
+
+  /**
+   * Builds the update applied to every user by a bulk action. Deletion only
+   * marks the user, like a single soft delete. The version is incremented and
+   * the update time is set so that cached ETags of the affected users become
+   * stale and the changes appear in the changed-since feed.
+   *
+   * @param action    the action to apply
+   * @param role      the role to assign, used only by
+   *                  {@link UserBulkAction#SET_ROLE}
+   * @param appliedAt the update time to set
+   * @return the {@link Update} of the action
+   */
+  private Update bulkUpdate(UserBulkAction action, UserRole role, LocalDateTime appliedAt) {
+    Update update = new Update().inc(VERSION_FIELD, 1).set(UPDATED_AT_FIELD, appliedAt);
+    switch (action) {
+      case LOCK:
+        return update.set("locked", true);
+      case UNLOCK:
+        return update.set("locked", false);
+      case ENABLE:
+        return update.set(ENABLED_FIELD, true);
+      case SET_ROLE:
+        return update.set(ROLE_FIELD, role);
+      case DELETE:
+        return update.set(DELETED_AT_FIELD, appliedAt);
+      default:
+        throw new IllegalArgumentException("Unsupported bulk action: " + action);
+    }
+  }
+
+  /**
+   * Builds the keyset condition selecting documents ordered after the cursor.
+   * <p>
+   * MongoDB sorts documents whose sort field is {@code null} or missing before
+   * every string, but a {@code $gt} or {@code $lt} on a string never matches
+   * them, so they are handled explicitly: they follow a {@code null} cursor
+   * only by ID, precede every string in ascending order and follow every
+   * string in descending order.
+   * </p>
+   *
+   * @param sort      the field the listing is sorted by
+   * @param direction the sort direction
+   * @param after     the position after which the page starts
+   * @return the keyset {@link Criteria}
+   */
+  private Criteria keysetAfter(UserSortField sort, Sort.Direction direction, UserCursor after) {
+    boolean ascending = direction.isAscending();
+    Criteria idAfter = ascending
+        ? Criteria.where(ID_FIELD).gt(after.getId())
+        : Criteria.where(ID_FIELD).lt(after.getId());
+    if (sort == UserSortField.ID)
+      return idAfter;
+
+    String field = sort.getField();
+    Criteria sameValueIdAfter = ascending
+        ? Criteria.where(field).is(after.getValue()).and(ID_FIELD).gt(after.getId())
+        : Criteria.where(field).is(after.getValue()).and(ID_FIELD).lt(after.getId());
+    if (after.getValue() == null) {
+      return ascending
+          ? new Criteria().orOperator(sameValueIdAfter, Criteria.where(field).ne(null))
+          : sameValueIdAfter;
+    }
+
+    return ascending
+        ? new Criteria().orOperator(Criteria.where(field).gt(after.getValue()), sameValueIdAfter)
+        : new Criteria().orOperator(Criteria.where(field).lt(after.getValue()), sameValueIdAfter,
+            Criteria.where(field).is(null));
+  }
+
+  /**
+   * Escapes regular expression metacharacters so that the given text is matched
+   * literally and an anchored prefix can still use an index.
+   *
+   * @param text the text to escape
+   * @return the escaped text
+   */
+  private String escapeRegex(String text) {
+    return REGEX_SPECIAL_CHARS.matcher(text).replaceAll("\\\\$0");
+  }
+
+  /**
+   * Restricts the criteria to documents with the expected version. Documents
+   * written before versioning was introduced have no version field and are
+   * treated as version {@code 0}.
+   *
+   * @param criteria        the criteria to restrict
+   * @param expectedVersion the version the stored document must have
+   * @return the restricted criteria
+   */
+  private Criteria versioned(Criteria criteria, long expectedVersion) {
+    return expectedVersion == 0
+        ? criteria.and(VERSION_FIELD).in(0L, null)
+        : criteria.and(VERSION_FIELD).is(expectedVersion);
+  }
+
+  /**
+   * Runs a {@code findAndModify} that sets the given fields and their search
+   * keys on the active document matching the criteria, increments its version,
+   * sets its update time and returns the new document projected to the view
+   * fields.
+   *
+   * @param criteria the criteria selecting the document to update
+   * @param fields   the document fields to set
+   * @return the updated, projected {@link UserPrincipal} if a document matched
+   */
+  private Optional<UserPrincipal> findAndSet(Criteria criteria, Map<String, Object> fields) {
+    Query query = new Query(criteria.and(DELETED_AT_FIELD).is(null));
+    query.fields().include(VIEW_FIELDS);
+
+    Update update = new Update().inc(VERSION_FIELD, 1).set(UPDATED_AT_FIELD, LocalDateTime.now());
+    fields.forEach(update::set);
+    for (UserSearchField field : UserSearchField.values()) {
+      if (fields.containsKey(field.getField()))
+        update.set(field.getKeyPath(), UserSearchField.normalize((String) fields.get(field.getField())));
+    }
+
+    return Optional.ofNullable(mongoTemplate.findAndModify(
+        query, update, FindAndModifyOptions.options().returnNew(true), UserPrincipal.class));
+  }
+}
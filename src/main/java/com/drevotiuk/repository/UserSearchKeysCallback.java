@@ -0,0 +1,27 @@
+package com.drevotiuk.repository;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.mapping.event.BeforeSaveCallback;
+import org.springframework.stereotype.Component;
+
+import com.drevotiuk.model.UserPrincipal;
+import com.drevotiuk.model.UserSearchField;
+
+/**
+ * Mongo entity callback that writes the case-folded search keys of a
+ * {@link UserPrincipal} into its document whenever the whole user is saved.
+ * <p>
+ * Partial updates keep the keys current in {@link UserRepositoryImpl}.
+ * </p>
+ */
+@Component
+public class UserSearchKeysCallback implements BeforeSaveCallback<UserPrincipal> {
+  @Override
+  public UserPrincipal onBeforeSave(UserPrincipal entity, Document document, String collection) {
+    Document keys = new Document();
+    for (UserSearchField field : UserSearchField.values())
+      keys.put(field.getField(), field.keyOf(entity));
+    document.put(UserSearchField.KEYS_FIELD, keys);
+    return entity;
+  }
+}
@@ -0,0 +1,19 @@
+package com.drevotiuk.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import com.drevotiuk.model.UserStats;
+
+/**
+ * Repository interface for managing the {@link UserStats} counters document in
+ * MongoDB.
+ * <p>
+ * This interface extends {@link MongoRepository} to read and replace the
+ * counters, with atomic increments and the daily signup counters declared in
+ * {@link UserStatsRepositoryCustom}.
+ * </p>
+ */
+@Repository
+public interface UserStatsRepository extends MongoRepository<UserStats, String>, UserStatsRepositoryCustom {
+}
@@ -0,0 +1,50 @@
+package com.drevotiuk.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import com.drevotiuk.model.UserDailySignups;
+import com.drevotiuk.model.UserStats;
+
+/**
+ * Custom repository fragment for atomic updates of the {@link UserStats}
+ * counters and the {@link UserDailySignups} documents.
+ * <p>
+ * Implemented by {@link UserStatsRepositoryImpl} on top of
+ * {@link org.springframework.data.mongodb.core.MongoTemplate}. All updates are
+ * upserts, so counters are created on first use.
+ * </p>
+ */
+public interface UserStatsRepositoryCustom {
+  /**
+   * Atomically adds the given deltas to the counters document.
+   *
+   * @param deltas the amounts to add, keyed by counter field path
+   */
+  void increment(Map<String, Long> deltas);
+
+  /**
+   * Atomically increments the signup counter of the given day.
+   *
+   * @param day the day of the signup
+   */
+  void incrementSignups(LocalDate day);
+
+  /**
+   * Raises the signup counters of the given days to at least the given counts.
+   * Counters are never lowered, so signups of users deleted since are kept.
+   *
+   * @param counts the minimum signup count per day
+   */
+  void raiseSignups(Map<LocalDate, Long> counts);
+
+  /**
+   * Finds the signup counters of the days from the given one onwards, oldest
+   * first.
+   *
+   * @param from the first day to include
+   * @return the signup counters of the days that had signups
+   */
+  List<UserDailySignups> findSignupsSince(LocalDate from);
+}
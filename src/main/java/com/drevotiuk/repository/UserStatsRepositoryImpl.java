@@ -0,0 +1,63 @@
+package com.drevotiuk.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.drevotiuk.model.UserDailySignups;
+import com.drevotiuk.model.UserStats;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * {@link MongoTemplate}-based implementation of
+ * {@link UserStatsRepositoryCustom}.
+ * <p>
+ * Spring Data picks this class up by its {@code Impl} suffix and merges it into
+ * {@link UserStatsRepository}.
+ * </p>
+ */
+@RequiredArgsConstructor
+public class UserStatsRepositoryImpl implements UserStatsRepositoryCustom {
+  private static final String ID_FIELD = "_id";
+  private static final String COUNT_FIELD = "count";
+
+  private final MongoTemplate mongoTemplate;
+
+  @Override
+  public void increment(Map<String, Long> deltas) {
+    Update update = new Update();
+    deltas.forEach(update::inc);
+    mongoTemplate.upsert(Query.query(Criteria.where(ID_FIELD).is(UserStats.GLOBAL_ID)), update, UserStats.class);
+  }
+
+  @Override
+  public void incrementSignups(LocalDate day) {
+    mongoTemplate.upsert(Query.query(Criteria.where(ID_FIELD).is(day.toString())),
+        new Update().inc(COUNT_FIELD, 1), UserDailySignups.class);
+  }
+
+  @Override
+  public void raiseSignups(Map<LocalDate, Long> counts) {
+    if (counts.isEmpty())
+      return;
+    BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserDailySignups.class);
+    counts.forEach((day, count) -> bulk.upsert(
+        Query.query(Criteria.where(ID_FIELD).is(day.toString())), new Update().max(COUNT_FIELD, count)));
+    bulk.execute();
+  }
+
+  @Override
+  public List<UserDailySignups> findSignupsSince(LocalDate from) {
+    Query query = Query.query(Criteria.where(ID_FIELD).gte(from.toString()));
+    query.with(Sort.by(Sort.Direction.ASC, ID_FIELD));
+    return mongoTemplate.find(query, UserDailySignups.class);
+  }
+}
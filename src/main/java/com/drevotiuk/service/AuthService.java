@@ -1,10 +1,15 @@
 package com.drevotiuk.service;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.bson.types.ObjectId;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -13,12 +18,15 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import com.drevotiuk.config.ExecutorConfig;
 import com.drevotiuk.model.EmailVerificationDetails;
 import com.drevotiuk.model.LoginRequest;
 import com.drevotiuk.model.RegisterRequest;
+import com.drevotiuk.model.UserEventType;
 import com.drevotiuk.model.UserHeaders;
 import com.drevotiuk.model.UserPrincipal;
 import com.drevotiuk.model.UserRole;
+import com.drevotiuk.model.UserView;
 import com.drevotiuk.model.exception.UserExistsException;
 import com.drevotiuk.model.exception.UserNotFoundException;
 import com.drevotiuk.repository.UserRepository;
@@ -54,51 +62,79 @@ public class AuthService {
   private final BCryptPasswordEncoder passwordEncoder;
   private final AuthenticationManager authenticationManager;
   private final RabbitTemplate rabbitTemplate;
+  private final UserStatsService userStatsService;
+  private final UserEventPublisher eventPublisher;
+  @Qualifier(ExecutorConfig.PASSWORD_HASHING_EXECUTOR)
+  private final Executor passwordHashingExecutor;
+  @Qualifier(ExecutorConfig.AUTH_IO_EXECUTOR)
+  private final Executor ioExecutor;
 
   /**
    * Registers a new user with the given registration request.
+   * <p>
+   * The work runs off the calling thread: the existence check, the save and
+   * the publishes run on the I/O executor, and the password is hashed on the
+   * CPU-sized password hashing executor in between.
+   * </p>
    * 
    * @param request the registration request containing user details.
-   * @return a confirmation message indicating that a verification link has been
-   *         sent.
-   * @throws UserExistsException if a user with the given email already exists.
+   * @return a future completed with a confirmation message indicating that a
+   *         verification link has been sent, or completed exceptionally with a
+   *         {@link UserExistsException} if a user with the given email already
+   *         exists.
+   * @throws RejectedExecutionException if the I/O executor is saturated.
    */
-  public String register(RegisterRequest request) {
+  public CompletableFuture<String> register(RegisterRequest request) {
     String email = request.getEmail();
     log.info("Registering user with email {}", email);
 
-    if (userRepository.existsByEmail(email))
-      handleUserExists(email);
-
-    UserPrincipal principal = createPrincipal(request);
-    userRepository.save(principal);
-    handleVerificationEmail(principal);
-
-    return "Verification link was sent to email " + email;
+    return CompletableFuture
+        .runAsync(() -> {
+          if (userRepository.existsByEmail(email))
+            handleUserExists(email);
+        }, ioExecutor)
+        .thenApplyAsync(ignored -> createPrincipal(request), passwordHashingExecutor)
+        .thenApplyAsync(principal -> {
+          userRepository.save(principal);
+          userStatsService.userRegistered(principal.getRole());
+          eventPublisher.publish(UserEventType.CREATED, principal.getId(), new UserView(principal));
+          handleVerificationEmail(principal);
+          return "Verification link was sent to email " + email;
+        }, ioExecutor);
   }
 
   /**
    * Logs in a user with the given login request and generates a JWT token.
+   * <p>
+   * Authentication runs on the password hashing executor, as it is dominated
+   * by the password hash comparison rather than the user lookup before it.
+   * </p>
    * 
    * @param request the login request containing user credentials.
-   * @return a JWT token for the authenticated user.
-   * @throws AuthenticationException if authentication fails.
+   * @return a future completed with a JWT token for the authenticated user, or
+   *         completed exceptionally with an {@link AuthenticationException} if
+   *         authentication fails.
+   * @throws RejectedExecutionException if the password hashing executor is
+   *                                    saturated.
    */
-  public String login(LoginRequest request) {
+  public CompletableFuture<String> login(LoginRequest request) {
     String email = request.getEmail();
     log.info("Logging in user with email {}", email);
-    authenticateUser(request);
-    return jwtService.generateToken(email);
+    return CompletableFuture.supplyAsync(() -> {
+      authenticateUser(request);
+      return jwtService.generateToken(email);
+    }, passwordHashingExecutor);
   }
 
   /**
    * Retrieves user headers for the currently authenticated user.
+   * The user loaded by the JWT filter is reused, so that authorizing a request
+   * costs no database lookup beyond the one made during authentication.
    * 
    * @return a {@link UserHeaders} object containing the user's ID and role.
    */
   public UserHeaders authorize() {
-    String email = getAuthenticatedEmail();
-    UserPrincipal principal = getUserByEmail(email);
+    UserPrincipal principal = getAuthenticatedPrincipal();
 
     Map<String, String> headers = new HashMap<>();
     headers.put(userIdHeader, principal.getId().toString());
@@ -129,6 +165,7 @@ public class AuthService {
     principal.setId(ObjectId.get());
     principal.setPassword(passwordEncoder.encode(principal.getPassword()));
     principal.setRole(UserRole.USER);
+    principal.setUpdatedAt(LocalDateTime.now());
     return principal;
   }
 
@@ -159,7 +196,7 @@ public class AuthService {
    * @param details the email verification details to be sent.
    */
   private void sendVerificationEmail(EmailVerificationDetails details) {
-    log.info("Sending email verification message: {}", details);
+    log.info("Sending email verification message to {}", details.getEmail());
     rabbitTemplate.convertAndSend(exchange, routingKey, details);
   }
 
@@ -196,4 +233,20 @@ public class AuthService {
   private String getAuthenticatedEmail() {
     return SecurityContextHolder.getContext().getAuthentication().getName();
   }
+
+  /**
+   * Retrieves the currently authenticated user, taken from the security
+   * context when it holds a {@link UserPrincipal} and looked up by email
+   * otherwise.
+   *
+   * @return the {@link UserPrincipal} of the authenticated user.
+   * @throws UserNotFoundException if the user has to be looked up and is not
+   *                               found.
+   */
+  private UserPrincipal getAuthenticatedPrincipal() {
+    Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+    if (principal instanceof UserPrincipal)
+      return (UserPrincipal) principal;
+    return getUserByEmail(getAuthenticatedEmail());
+  }
 }
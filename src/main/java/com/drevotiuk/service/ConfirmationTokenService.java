@@ -1,6 +1,7 @@
 package com.drevotiuk.service;
 
 import java.time.LocalDateTime;
+import java.util.Optional;
 import java.util.UUID;
 
 import org.bson.types.ObjectId;
@@ -8,7 +9,9 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.drevotiuk.model.ConfirmationToken;
+import com.drevotiuk.model.UserEventType;
 import com.drevotiuk.model.UserPrincipal;
+import com.drevotiuk.model.UserView;
 import com.drevotiuk.model.exception.ConfirmationTokenException;
 import com.drevotiuk.model.exception.UserNotFoundException;
 import com.drevotiuk.repository.ConfirmationTokenRepository;
@@ -25,11 +28,21 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 @Slf4j
 public class ConfirmationTokenService {
+  private static final ConfirmationTokenException INVALID_TOKEN =
+      new ConfirmationTokenException("Invalid verification link");
+  private static final ConfirmationTokenException ALREADY_VERIFIED =
+      new ConfirmationTokenException("Email is already verified");
+  private static final ConfirmationTokenException EXPIRED_TOKEN =
+      new ConfirmationTokenException("Verification link is expired");
+
   @Value("${security.confirmation-token.expiration}")
   private long tokenExpirationMinutes;
 
   private final ConfirmationTokenRepository repository;
   private final UserRepository userRepository;
+  private final UserViewCache userViewCache;
+  private final UserStatsService userStatsService;
+  private final UserEventPublisher eventPublisher;
 
   /**
    * Creates a new confirmation token for the given user principal.
@@ -41,7 +54,7 @@ public class ConfirmationTokenService {
     String token = UUID.randomUUID().toString();
     ConfirmationToken confirmationToken = build(email, token);
     save(confirmationToken);
-    log.info("Created confirmation token: {}", token);
+    log.info("Created confirmation token with ID {}", confirmationToken.getId());
     return token;
   }
 
@@ -55,12 +68,11 @@ public class ConfirmationTokenService {
    *                                    already activated.
    */
   public String confirm(String token) {
-    log.info("Token confirmation: {}", token);
     ConfirmationToken confirmationToken = find(token);
     validate(confirmationToken);
     activateAndSave(confirmationToken);
     enableUser(confirmationToken.getUserEmail());
-    log.info("Email verified successfully for token: {}", token);
+    log.info("Email verified successfully for token with ID {}", confirmationToken.getId());
     return "Email verified successfully";
   }
 
@@ -73,8 +85,8 @@ public class ConfirmationTokenService {
    */
   private ConfirmationToken find(String token) {
     return repository.findByToken(token).orElseThrow(() -> {
-      log.warn("Token was not found: {}", token);
-      return new ConfirmationTokenException("Invalid verification link");
+      log.warn("Confirmation token was not found");
+      return INVALID_TOKEN;
     });
   }
 
@@ -105,12 +117,12 @@ public class ConfirmationTokenService {
    */
   private void validate(ConfirmationToken token) {
     if (token.isActivated()) {
-      log.warn("Email is already verified for token: {}", token.getToken());
-      throw new ConfirmationTokenException("Email is already verified");
+      log.warn("Email is already verified for token with ID {}", token.getId());
+      throw ALREADY_VERIFIED;
     }
     if (token.getExpiredAt().isBefore(LocalDateTime.now())) {
-      log.warn("Token is expired: {}", token.getToken());
-      throw new ConfirmationTokenException("Verification link is expired");
+      log.warn("Token with ID {} is expired", token.getId());
+      throw EXPIRED_TOKEN;
     }
   }
 
@@ -121,7 +133,6 @@ public class ConfirmationTokenService {
    */
   private void activateAndSave(ConfirmationToken token) {
     token.setActivated(true);
-    log.info("Token {} activated", token.getToken());
     save(token);
   }
 
@@ -131,22 +142,32 @@ public class ConfirmationTokenService {
    * @param token the confirmation token to save.
    */
   private void save(ConfirmationToken token) {
-    log.info("Saving token: {}", token.getToken());
+    log.debug("Saving token with ID {}", token.getId());
     repository.save(token);
   }
 
   /**
-   * Enables the user with the specified email.
+   * Enables the user with the specified email. The cache, the statistics and
+   * the change event are only updated if this call flipped the flag, so a user
+   * enabled concurrently or already enabled is not counted twice.
    * 
    * @param email the email of the user to enable.
+   * @throws UserNotFoundException if no user with the given email exists.
    */
   private void enableUser(String email) {
-    UserPrincipal principal = userRepository.findByEmail(email).orElseThrow(() -> {
-      log.warn("User not found with email {}", email);
-      return new UserNotFoundException("User not found with email " + email);
-    });
+    Optional<UserPrincipal> enabled = userRepository.enableByEmail(email);
+    if (enabled.isEmpty()) {
+      if (!userRepository.existsByEmail(email)) {
+        log.warn("User not found with email {}", email);
+        throw new UserNotFoundException("User not found with email " + email);
+      }
+      log.info("User is already enabled, nothing to update");
+      return;
+    }
 
-    principal.setEnabled(true);
-    userRepository.save(principal);
+    UserPrincipal principal = enabled.get();
+    userViewCache.evict(principal.getId());
+    userStatsService.userEnabled();
+    eventPublisher.publish(UserEventType.ENABLED, principal.getId(), new UserView(principal));
   }
 }
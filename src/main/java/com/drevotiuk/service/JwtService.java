@@ -1,10 +1,11 @@
 package com.drevotiuk.service;
 
+import java.time.Duration;
 import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.crypto.SecretKey;
 
@@ -15,7 +16,8 @@ import org.springframework.stereotype.Service;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 /**
  * Service class for handling JSON Web Token (JWT) operations, including token
@@ -24,13 +26,24 @@ import lombok.RequiredArgsConstructor;
  * validate tokens based on the username and expiration.
  */
 @Service
-@RequiredArgsConstructor
 public class JwtService {
   @Value("${security.jwt.expiration}")
   private long tokenExpiration;
+  @Value("${security.jwt.key-ttl:10m}")
+  private Duration keyTtl;
 
   private final KmsUtils kmsUtils;
   private final KeyManagementService keyService;
+  private final AtomicReference<CachedKey> key = new AtomicReference<>();
+  private final Timer generateTimer;
+
+  public JwtService(KmsUtils kmsUtils, KeyManagementService keyService, MeterRegistry registry) {
+    this.kmsUtils = kmsUtils;
+    this.keyService = keyService;
+    this.generateTimer = Timer.builder("auth.jwt.generate")
+        .description("Time spent generating JWTs")
+        .register(registry);
+  }
 
   /**
    * Generates a JWT token for the given username.
@@ -39,63 +52,30 @@ public class JwtService {
    * @return the generated JWT token as a {@link String}.
    */
   public String generateToken(String username) {
-    Map<String, Object> claims = new HashMap<>();
-    return Jwts.builder()
-        .claims(claims)
-        .subject(username)
-        .issuedAt(new Date(System.currentTimeMillis()))
-        .expiration(new Date(System.currentTimeMillis() + tokenExpiration))
-        .signWith(getKey())
-        .compact();
-  }
-
-  /**
-   * Validates the given JWT token based on the username and expiration.
-   *
-   * @param token       the JWT token to validate.
-   * @param userDetails the {@link UserDetails} object containing the username to
-   *                    compare.
-   * @return {@code true} if the token is valid and not expired; {@code false}
-   *         otherwise.
-   */
-  public boolean validateToken(String token, UserDetails userDetails) {
-    final String username = extractUsername(token);
-    verifyTokenExpiration(token);
-    return username.equals(userDetails.getUsername());
+    return generateTimer.record(() -> {
+      Map<String, Object> claims = new HashMap<>();
+      return Jwts.builder()
+          .claims(claims)
+          .subject(username)
+          .issuedAt(new Date(System.currentTimeMillis()))
+          .expiration(new Date(System.currentTimeMillis() + tokenExpiration))
+          .signWith(getKey())
+          .compact();
+    });
   }
 
   /**
-   * Extracts the username from the given JWT token.
+   * Parses the given JWT token and verifies its signature and expiration.
+   * <p>
+   * The returned claims are meant to be passed to
+   * {@link #validateToken(Claims, UserDetails)}, so that a token is parsed only
+   * once per request.
+   * </p>
    *
-   * @param token the JWT token from which to extract the username.
-   * @return the username contained in the token as a {@link String}.
-   */
-  public String extractUsername(String token) {
-    return extractClaim(token, Claims::getSubject);
-  }
-
-  /**
-   * Extracts a specific claim from the given JWT token using the provided
-   * claim resolver function.
-   * 
-   * @param <T>           the type of the claim to extract.
-   * @param token         the JWT token from which to extract the claim.
-   * @param claimResolver a function that extracts the desired claim from the
-   *                      {@link Claims} object.
-   * @return the extracted claim value.
-   */
-  private <T> T extractClaim(String token, Function<Claims, T> claimResolver) {
-    final Claims claims = extractAllClaims(token);
-    return claimResolver.apply(claims);
-  }
-
-  /**
-   * Extracts all claims from the given JWT token.
-   * 
-   * @param token the JWT token from which to extract all claims.
+   * @param token the JWT token to parse.
    * @return the {@link Claims} object containing all claims from the token.
    */
-  private Claims extractAllClaims(String token) {
+  public Claims parseToken(String token) {
     return Jwts.parser()
         .verifyWith(getKey())
         .build()
@@ -104,33 +84,78 @@ public class JwtService {
   }
 
   /**
-   * Checks if the given JWT token is expired.
-   * 
-   * @param token the JWT token to check.
-   * @return {@code true} if the token is expired; {@code false} otherwise.
+   * Validates the claims of a parsed JWT token based on the username and
+   * expiration.
+   *
+   * @param claims      the claims returned by {@link #parseToken(String)}.
+   * @param userDetails the {@link UserDetails} object containing the username to
+   *                    compare.
+   * @return {@code true} if the token is valid and not expired; {@code false}
+   *         otherwise.
    */
-  private boolean verifyTokenExpiration(String token) {
-    return extractExpiration(token).before(new Date());
+  public boolean validateToken(Claims claims, UserDetails userDetails) {
+    return !isTokenExpired(claims) && claims.getSubject().equals(userDetails.getUsername());
   }
 
   /**
-   * Extracts the expiration date of the given JWT token.
+   * Checks if the JWT token with the given claims is expired.
    * 
-   * @param token the JWT token from which to extract the expiration date.
-   * @return the expiration date of the token.
+   * @param claims the claims of the JWT token to check.
+   * @return {@code true} if the token is expired; {@code false} otherwise.
    */
-  private Date extractExpiration(String token) {
-    return extractClaim(token, Claims::getExpiration);
+  private boolean isTokenExpired(Claims claims) {
+    return claims.getExpiration().before(new Date());
   }
 
   /**
    * Retrieves the secret key used for signing and verifying JWT tokens.
+   * <p>
+   * The key is read from the database and decrypted with KMS on first use and
+   * then kept in memory for {@code security.jwt.key-ttl}, so that verifying a
+   * token costs no I/O while a key changed in the database, e.g. by a replica
+   * that won the race to create it, is picked up without a restart. A single
+   * caller reloads an expired key while the others wait for it.
+   * </p>
    * 
    * @return the {@link SecretKey} used for JWT operations.
    */
   private SecretKey getKey() {
-    byte[] encodedKeyBytes = kmsUtils.decrypt(keyService.getEncryptedSecretKey());
-    byte[] keyBytes = Base64.getDecoder().decode(encodedKeyBytes);
-    return Keys.hmacShaKeyFor(keyBytes);
+    CachedKey cached = key.get();
+    if (cached != null && cached.isFresh(keyTtl))
+      return cached.key;
+
+    synchronized (key) {
+      cached = key.get();
+      if (cached != null && cached.isFresh(keyTtl))
+        return cached.key;
+      byte[] encodedKeyBytes = kmsUtils.decrypt(keyService.getEncryptedSecretKey());
+      byte[] keyBytes = Base64.getDecoder().decode(encodedKeyBytes);
+      SecretKey loaded = Keys.hmacShaKeyFor(keyBytes);
+      key.set(new CachedKey(loaded, System.nanoTime()));
+      return loaded;
+    }
+  }
+
+  /**
+   * A secret key together with the time it was loaded.
+   */
+  private static final class CachedKey {
+    private final SecretKey key;
+    private final long loadedAt;
+
+    private CachedKey(SecretKey key, long loadedAt) {
+      this.key = key;
+      this.loadedAt = loadedAt;
+    }
+
+    /**
+     * Checks if the key was loaded less than the given time ago.
+     *
+     * @param ttl how long a loaded key is used.
+     * @return {@code true} if the key is still fresh.
+     */
+    private boolean isFresh(Duration ttl) {
+      return System.nanoTime() - loadedAt < ttl.toNanos();
+    }
   }
 }
@@ -6,6 +6,7 @@ import java.util.Base64;
 import javax.crypto.KeyGenerator;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
 
 import com.drevotiuk.model.JwtSecretKey;
@@ -65,15 +66,22 @@ public class KeyManagementService {
   }
 
   /**
-   * Generates secret key as plain text and stores it in the database.
+   * Generates secret key as plain text and stores it in the database. If
+   * another replica stored a key first, that key is returned instead, so that
+   * every replica signs with the same key.
    * 
-   * @return the encrypted generated secret key.
+   * @return the encrypted secret key stored in the database.
    */
   private byte[] generateAndStoreKey() {
     log.info("Generating and encrypting new secret key");
     byte[] encryptedSecretKey = kmsUtils.encrypt(generateSecretKey());
-    storeKeyToDatabase(encryptedSecretKey);
-    return encryptedSecretKey;
+    try {
+      storeKeyToDatabase(encryptedSecretKey);
+      return encryptedSecretKey;
+    } catch (DuplicateKeyException e) {
+      log.info("Secret key was created concurrently, using the stored one");
+      return retrieveKeyFromDatabase();
+    }
   }
 
   /**
@@ -94,13 +102,15 @@ public class KeyManagementService {
   }
 
   /**
-   * Stores the provided encrypted secret key in the database.
+   * Stores the provided encrypted secret key in the database, failing if a key
+   * with the same ID already exists.
    * 
    * @param secretKey the encrypted secret key to be stored.
+   * @throws DuplicateKeyException if the key was stored concurrently.
    */
   private void storeKeyToDatabase(byte[] secretKey) {
     JwtSecretKey key = new JwtSecretKey(keyId, secretKey);
     log.info("Saving encrypted secret key to database");
-    secretKeyRepository.save(key);
+    secretKeyRepository.insert(key);
   }
 }
@@ -7,7 +7,8 @@ import org.springframework.stereotype.Service;
 
 import com.google.protobuf.ByteString;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import yandex.cloud.api.kms.v1.SymmetricCryptoServiceGrpc.SymmetricCryptoServiceBlockingStub;
 import yandex.cloud.api.kms.v1.SymmetricCryptoServiceOuterClass.SymmetricDecryptRequest;
 import yandex.cloud.api.kms.v1.SymmetricCryptoServiceOuterClass.SymmetricEncryptRequest;
@@ -19,7 +20,6 @@ import yandex.cloud.api.kms.v1.SymmetricCryptoServiceOuterClass.SymmetricEncrypt
  * and AAD.
  */
 @Service
-@RequiredArgsConstructor
 public class KmsUtils {
   @Value("${SYMMETRIC_KEY_ID}")
   private String keyId;
@@ -27,6 +27,14 @@ public class KmsUtils {
   private String aad;
 
   private final SymmetricCryptoServiceBlockingStub symmetricCryptoService;
+  private final Timer encryptTimer;
+  private final Timer decryptTimer;
+
+  public KmsUtils(SymmetricCryptoServiceBlockingStub symmetricCryptoService, MeterRegistry registry) {
+    this.symmetricCryptoService = symmetricCryptoService;
+    this.encryptTimer = timer(registry, "encrypt");
+    this.decryptTimer = timer(registry, "decrypt");
+  }
 
   /**
    * Encrypts the given plaintext using the symmetric key and AAD.
@@ -35,11 +43,11 @@ public class KmsUtils {
    * @return the encrypted ciphertext.
    */
   public byte[] encrypt(byte[] plaintext) {
-    return symmetricCryptoService.encrypt(SymmetricEncryptRequest.newBuilder()
+    return encryptTimer.record(() -> symmetricCryptoService.encrypt(SymmetricEncryptRequest.newBuilder()
         .setKeyId(keyId)
         .setPlaintext(ByteString.copyFrom(plaintext))
         .setAadContext(ByteString.copyFrom(aad, StandardCharsets.UTF_8))
-        .build()).getCiphertext().toByteArray();
+        .build()).getCiphertext().toByteArray());
   }
 
   /**
@@ -49,10 +57,24 @@ public class KmsUtils {
    * @return the decrypted plaintext.
    */
   public byte[] decrypt(byte[] ciphertext) {
-    return symmetricCryptoService.decrypt(SymmetricDecryptRequest.newBuilder()
+    return decryptTimer.record(() -> symmetricCryptoService.decrypt(SymmetricDecryptRequest.newBuilder()
         .setKeyId(keyId)
         .setCiphertext(ByteString.copyFrom(ciphertext))
         .setAadContext(ByteString.copyFrom(aad, StandardCharsets.UTF_8))
-        .build()).getPlaintext().toByteArray();
+        .build()).getPlaintext().toByteArray());
+  }
+
+  /**
+   * Registers the timer of a KMS operation.
+   *
+   * @param registry  the registry the timer is registered in.
+   * @param operation the name of the operation.
+   * @return the {@link Timer}.
+   */
+  private static Timer timer(MeterRegistry registry, String operation) {
+    return Timer.builder("kms.requests")
+        .tag("operation", operation)
+        .description("Time spent in Yandex KMS requests")
+        .register(registry);
   }
 }
@@ -0,0 +1,85 @@
+package com.drevotiuk.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.drevotiuk.model.UserPrincipal;
+import com.drevotiuk.repository.ConfirmationTokenRepository;
+import com.drevotiuk.repository.UserRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service class for purging users marked as deleted.
+ * Periodically removes the confirmation tokens of deleted users, announces
+ * each deletion to other services and then removes the user documents, all in
+ * batches. Every replica runs the purge, so each batch is claimed first and
+ * purged only by the replica that claimed it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserCleanupService {
+  @Value("${app.cleanup.deleted-users.batch-size}")
+  private int batchSize;
+  @Value("${app.cleanup.deleted-users.claim-lease}")
+  private Duration claimLease;
+
+  private final UserRepository userRepository;
+  private final ConfirmationTokenRepository tokenRepository;
+  private final UserEventPublisher eventPublisher;
+
+  /**
+   * Purges users marked as deleted, one batch at a time, until none are left.
+   * <p>
+   * Dependent data is removed and the event is published before the user
+   * document, so an interrupted run is simply repeated by the next one once
+   * its claim expires after {@code app.cleanup.deleted-users.claim-lease}.
+   * Events may therefore be delivered more than once, but only after such an
+   * interruption.
+   * </p>
+   *
+   * @return the number of purged users.
+   */
+  @Scheduled(fixedDelayString = "${app.cleanup.deleted-users.interval}")
+  public long purgeDeletedUsers() {
+    long purged = 0;
+    List<UserPrincipal> batch;
+    do {
+      String claim = UUID.randomUUID().toString();
+      batch = userRepository.claimDeleted(claim, batchSize, claimLease);
+      if (!batch.isEmpty())
+        purged += purgeBatch(claim, batch);
+    } while (batch.size() == batchSize);
+
+    if (purged > 0)
+      log.info("Purged {} deleted users", purged);
+    return purged;
+  }
+
+  /**
+   * Purges a single claimed batch of deleted users.
+   *
+   * @param claim the claim holding the batch.
+   * @param batch the deleted users, with their ID, email, deletion time and
+   *              version.
+   * @return the number of removed user documents.
+   */
+  private long purgeBatch(String claim, List<UserPrincipal> batch) {
+    List<String> emails = batch.stream()
+        .map(UserPrincipal::getEmail)
+        .collect(Collectors.toList());
+    long tokens = tokenRepository.deleteByUserEmailIn(emails);
+    log.info("Deleted {} confirmation tokens of {} deleted users", tokens, batch.size());
+
+    batch.forEach(principal -> eventPublisher.publishDeleted(principal.getId(), principal.getVersion()));
+    return userRepository.purgeClaimed(claim);
+  }
+}
@@ -0,0 +1,74 @@
+package com.drevotiuk.service;
+
+import java.time.LocalDateTime;
+
+import org.bson.types.ObjectId;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.drevotiuk.model.UserEvent;
+import com.drevotiuk.model.UserEventType;
+import com.drevotiuk.model.UserView;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service class for publishing user change events to the user events topic
+ * exchange.
+ * Provides methods for announcing created, updated, enabled and deleted users
+ * with the versioned {@link UserView} of the user.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserEventPublisher {
+  @Value("${rabbitmq.exchange.user-events}")
+  private String exchange;
+
+  private final RabbitTemplate rabbitTemplate;
+
+  /**
+   * Publishes a change of the given user.
+   * <p>
+   * The change is already stored when this is called, so a failure to publish
+   * is logged instead of failing the request; consumers recover missed changes
+   * by looking the user up.
+   * </p>
+   *
+   * @param type   the kind of change.
+   * @param userId the ID of the changed user.
+   * @param user   the user after the change.
+   */
+  public void publish(UserEventType type, ObjectId userId, UserView user) {
+    try {
+      send(new UserEvent(type, userId.toString(), user.getVersion(), user, LocalDateTime.now()));
+    } catch (AmqpException e) {
+      log.warn("Failed to publish {} event for user with ID {}: {}", type, userId, e.getMessage());
+    }
+  }
+
+  /**
+   * Publishes the deletion of the given user.
+   * Failures are propagated, so that the caller can retry.
+   *
+   * @param userId  the ID of the deleted user.
+   * @param version the version of the user when it was deleted.
+   * @throws AmqpException if the event could not be published.
+   */
+  public void publishDeleted(ObjectId userId, Long version) {
+    send(new UserEvent(UserEventType.DELETED, userId.toString(), version, null, LocalDateTime.now()));
+  }
+
+  /**
+   * Sends the event with the routing key of its kind.
+   *
+   * @param event the event to send.
+   */
+  private void send(UserEvent event) {
+    log.info("Publishing {} event for user with ID {}", event.getType(), event.getUserId());
+    rabbitTemplate.convertAndSend(exchange, event.getType().getRoutingKey(), event);
+  }
+}
@@ -1,20 +1,46 @@
 package com.drevotiuk.service;
 
+import com.drevotiuk.model.exception.PreconditionFailedException;
 import com.drevotiuk.model.exception.UserNotFoundException;
+import com.drevotiuk.model.UserBulkAction;
+import com.drevotiuk.model.UserBulkRequest;
+import com.drevotiuk.model.UserBulkResult;
+import com.drevotiuk.model.UserBulkStatus;
+import com.drevotiuk.model.UserCursor;
+import com.drevotiuk.model.UserEventType;
+import com.drevotiuk.model.UserPage;
+import com.drevotiuk.model.UserPageRequest;
 import com.drevotiuk.model.UserPrincipal;
+import com.drevotiuk.model.UserSearchRequest;
 import com.drevotiuk.model.UserView;
+import com.drevotiuk.repository.MigrationRepository;
 import com.drevotiuk.repository.UserRepository;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
 /**
  * Service class for managing user information.
  * Provides methods for retrieving, updating, and deleting user data.
@@ -23,19 +49,196 @@ import org.springframework.stereotype.Service;
 @RequiredArgsConstructor
 @Slf4j
 public class UserManagementService {
+  private static final int NDJSON_SEPARATOR = '\n';
+  private static final String SEARCH_KEYS_MIGRATION = "user-search-keys";
+  private static final String UPDATE_TIMES_MIGRATION = "user-update-times";
+  private static final PreconditionFailedException CONCURRENT_MODIFICATION =
+      new PreconditionFailedException("User was modified concurrently, reload and retry");
+
+  @Value("${app.management.page.default-size}")
+  private int defaultPageSize;
+  @Value("${app.management.page.max-size}")
+  private int maxPageSize;
+  @Value("${app.management.search.max-time}")
+  private Duration searchMaxTime;
+  @Value("${app.management.search.backfill-batch-size}")
+  private int searchBackfillBatchSize;
+  @Value("${app.migrations.lease}")
+  private Duration migrationLease;
+  @Value("${app.management.bulk.batch-size}")
+  private int bulkBatchSize;
+
   private final UserRepository repository;
+  private final MigrationRepository migrations;
+  private final UserViewCache cache;
+  private final UserStatsService stats;
+  private final UserEventPublisher eventPublisher;
+  private final ObjectMapper objectMapper;
 
   /**
-   * Fetches all users and returns them as a list of UserView objects.
+   * Fetches a single page of users matching the request filters.
+   * <p>
+   * Pages are resumed with a keyset cursor over the sort field and the user ID,
+   * so memory per request stays bounded by the page size regardless of the
+   * collection size.
+   * </p>
    *
-   * @return List of {@link UserView} representing all users.
+   * @param request the filters, sort, cursor and page size of the listing.
+   * @return a {@link UserPage} with the users and the cursor of the next page.
    */
-  public List<UserView> findAll() {
-    List<UserView> users = repository.findAll().stream()
+  public UserPage findPage(UserPageRequest request) {
+    int limit = resolvePageSize(request.getLimit());
+    UserCursor after = request.getCursor() != null ? UserCursor.decode(request.getCursor()) : null;
+
+    List<UserPrincipal> found = repository.findViewPage(request, after, limit + 1);
+    boolean hasNext = found.size() > limit;
+    List<UserPrincipal> page = hasNext ? found.subList(0, limit) : found;
+    String nextCursor = hasNext
+        ? UserCursor.after(page.get(page.size() - 1), request.getSort()).encode()
+        : null;
+
+    List<UserView> users = page.stream()
         .map(UserView::new)
         .collect(Collectors.toList());
-    log.info("Fetched {} users", users.size());
-    return users;
+    log.info("Fetched page of {} users", users.size());
+    return new UserPage(users, nextCursor);
+  }
+
+  /**
+   * Searches users whose selected field starts with the query, ignoring case.
+   * <p>
+   * The prefix is matched against an indexed, case-folded copy of the field and
+   * pages are resumed with a keyset cursor over that key and the user ID. The
+   * query is aborted by the database once the configured time budget is spent.
+   * </p>
+   *
+   * @param request the query, field, cursor and page size of the search.
+   * @return a {@link UserPage} with the matching users and the cursor of the
+   *         next page.
+   */
+  public UserPage search(UserSearchRequest request) {
+    int limit = resolvePageSize(request.getLimit());
+    UserCursor after = request.getCursor() != null ? UserCursor.decode(request.getCursor()) : null;
+
+    List<UserPrincipal> found = repository.searchViews(request, after, limit + 1, searchMaxTime);
+    boolean hasNext = found.size() > limit;
+    List<UserPrincipal> page = hasNext ? found.subList(0, limit) : found;
+    String nextCursor = null;
+    if (hasNext) {
+      UserPrincipal last = page.get(page.size() - 1);
+      nextCursor = new UserCursor(request.getField().keyOf(last), last.getId()).encode();
+    }
+
+    List<UserView> users = page.stream()
+        .map(UserView::new)
+        .collect(Collectors.toList());
+    log.info("Found {} users by {} prefix", users.size(), request.getField());
+    return new UserPage(users, nextCursor);
+  }
+
+  /**
+   * Writes the case-folded search keys of users created before search was
+   * introduced once the application is ready.
+   * <p>
+   * Finding users without keys scans the whole collection, so the backfill is
+   * a one-off migration: a single replica claims it and marks it completed,
+   * after which every start skips it with a single ID lookup. A claim that is
+   * never completed, because the replica died, expires after
+   * {@code app.migrations.lease}.
+   * </p>
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void backfillSearchKeys() {
+    if (!migrations.claim(SEARCH_KEYS_MIGRATION, migrationLease))
+      return;
+    long updated = repository.backfillSearchKeys(searchBackfillBatchSize);
+    migrations.complete(SEARCH_KEYS_MIGRATION);
+    log.info("Backfilled search keys for {} users", updated);
+  }
+
+  /**
+   * Sets the update time of users written before the changed-since feed was
+   * introduced once the application is ready, so that the feed delivers them.
+   * Like {@link #backfillSearchKeys()}, it runs once as a claimed migration.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void backfillUpdateTimes() {
+    if (!migrations.claim(UPDATE_TIMES_MIGRATION, migrationLease))
+      return;
+    long updated = repository.backfillUpdateTimes();
+    migrations.complete(UPDATE_TIMES_MIGRATION);
+    log.info("Backfilled update times for {} users", updated);
+  }
+
+  /**
+   * Applies a moderation action to many users at once.
+   * <p>
+   * Valid IDs are deduplicated and written in unordered bulk batches, so one
+   * rejected write does not stop the rest and a whole batch costs a single
+   * round trip. The cached views of all affected users are evicted with one
+   * invalidation per batch. Actions that change counted state read the
+   * counted state of each batch before writing it and apply the resulting
+   * deltas to the user statistics, leaving drift from concurrent changes to
+   * the scheduled reconciliation.
+   * </p>
+   *
+   * @param request the user IDs, the action and its role.
+   * @return the outcome for every requested ID, in request order.
+   */
+  public List<UserBulkResult> bulk(UserBulkRequest request) {
+    // Statuses are reported under the requested strings, which may differ from
+    // the normalized hex of the ID in case, so every ID keeps the strings that
+    // named it
+    Map<String, UserBulkStatus> statuses = new HashMap<>();
+    Map<ObjectId, List<String>> requestedIds = new LinkedHashMap<>();
+    for (String userId : request.getUserIds()) {
+      if (ObjectId.isValid(userId))
+        requestedIds.computeIfAbsent(new ObjectId(userId), id -> new ArrayList<>()).add(userId);
+      else
+        statuses.put(userId, UserBulkStatus.INVALID_ID);
+    }
+
+    List<ObjectId> ids = new ArrayList<>(requestedIds.keySet());
+    for (int from = 0; from < ids.size(); from += bulkBatchSize) {
+      List<ObjectId> batch = ids.subList(from, Math.min(from + bulkBatchSize, ids.size()));
+      applyBulkBatch(batch, request).forEach((userId, status) -> requestedIds.get(userId)
+          .forEach(requestedId -> statuses.put(requestedId, status)));
+    }
+
+    log.info("Applied {} to {} users", request.getAction(), ids.size());
+    return request.getUserIds().stream()
+        .distinct()
+        .map(userId -> new UserBulkResult(userId, statuses.get(userId)))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Writes all users to the given stream as newline-delimited JSON, one
+   * {@link UserView} per line.
+   * <p>
+   * Users are read from a database cursor and written one by one, so memory
+   * stays constant regardless of the collection size and a slow reader slows
+   * down the cursor instead of buffering rows.
+   * </p>
+   *
+   * @param out the stream to write the export to.
+   * @return the number of exported users.
+   * @throws IOException if writing to the stream fails.
+   */
+  public long export(OutputStream out) throws IOException {
+    ObjectWriter writer = objectMapper.writerFor(UserView.class);
+    long count = 0;
+    try (Stream<UserPrincipal> users = repository.streamAllViews()) {
+      Iterator<UserPrincipal> iterator = users.iterator();
+      while (iterator.hasNext()) {
+        out.write(writer.writeValueAsBytes(new UserView(iterator.next())));
+        out.write(NDJSON_SEPARATOR);
+        count++;
+      }
+    }
+    out.flush();
+    log.info("Exported {} users", count);
+    return count;
   }
 
   /**
@@ -51,61 +254,207 @@ public class UserManagementService {
 
   /**
    * Updates a user identified by their ID with new values.
+   * <p>
+   * Only the changed fields are sent to the database as a single {@code $set}
+   * guarded by the expected version, so the rest of the document is left
+   * untouched and concurrent edits are rejected.
+   * </p>
    *
    * @param userId           the ID of the user to update.
    * @param updatedPrincipal the updated user data.
+   * @param expectedVersion  the version the client based its changes on.
    * @return {@link UserView} representing the updated user.
+   * @throws PreconditionFailedException if the user was modified concurrently.
    */
-  public UserView update(ObjectId userId, UserPrincipal updatedPrincipal) {
+  public UserView update(ObjectId userId, UserPrincipal updatedPrincipal, long expectedVersion) {
     log.info("Updating user with ID {}", userId);
-    UserPrincipal initialPrincipal = findById(userId);
-    updateUserFields(initialPrincipal, updatedPrincipal);
-    repository.save(initialPrincipal);
-    return new UserView(initialPrincipal);
+    Map<String, Object> fields = collectUpdatedFields(userId, updatedPrincipal);
+    if (fields.isEmpty())
+      return verifyVersion(userId, find(userId), expectedVersion);
+
+    UserView updatedUser = repository.updateFields(userId, expectedVersion, fields)
+        .map(UserView::new)
+        .orElseThrow(() -> handleFailedUpdate(userId, expectedVersion));
+    cache.evict(userId);
+    eventPublisher.publish(UserEventType.UPDATED, userId, updatedUser);
+    return updatedUser;
   }
 
   /**
    * Deletes a user by their ID.
+   * <p>
+   * The user is only marked as deleted, which hides it from every read at
+   * once. Its confirmation tokens and the document itself are purged later by
+   * {@link UserCleanupService}, which also announces the deletion.
+   * </p>
    *
    * @param userId the ID of the user to delete.
    */
   public void delete(ObjectId userId) {
     log.info("Deleting user with ID {}", userId);
-    repository.deleteById(userId);
+    repository.softDelete(userId).ifPresentOrElse(stats::userDeleted,
+        () -> log.info("User with ID {} is already deleted or does not exist", userId));
+    cache.evict(userId);
   }
 
   /**
-   * Finds a user by their ID.
+   * Applies the bulk action to a single batch of users, evicts the cached
+   * views of those it was applied to and updates the user statistics.
+   *
+   * @param batch   the IDs of the users in the batch.
+   * @param request the action and its role.
+   * @return the outcome for every user in the batch.
+   */
+  private Map<ObjectId, UserBulkStatus> applyBulkBatch(List<ObjectId> batch, UserBulkRequest request) {
+    boolean counted = request.getAction() != UserBulkAction.LOCK && request.getAction() != UserBulkAction.UNLOCK;
+    List<UserPrincipal> previous = counted ? repository.findCountedStatesByIdIn(batch) : List.of();
+    Map<ObjectId, UserBulkStatus> statuses = repository.applyBulk(batch, request.getAction(), request.getRole());
+    List<ObjectId> applied = statuses.entrySet().stream()
+        .filter(entry -> entry.getValue() == UserBulkStatus.APPLIED)
+        .map(Map.Entry::getKey)
+        .collect(Collectors.toList());
+    cache.evictAll(applied);
+    if (applied.isEmpty())
+      return statuses;
+
+    if (counted)
+      countBulkChanges(previous.stream()
+          .filter(user -> statuses.get(user.getId()) == UserBulkStatus.APPLIED)
+          .collect(Collectors.toList()), request);
+    if (request.getAction() != UserBulkAction.DELETE)
+      publishBulkChanges(applied, request.getAction());
+    return statuses;
+  }
+
+  /**
+   * Applies the changes of a bulk action to the user statistics, like the
+   * single-user operations do.
+   *
+   * @param previous the counted state of the users the action was applied to,
+   *                 before it was applied.
+   * @param request  the action and its role.
+   */
+  private void countBulkChanges(List<UserPrincipal> previous, UserBulkRequest request) {
+    switch (request.getAction()) {
+      case ENABLE:
+        stats.usersEnabled(previous);
+        break;
+      case SET_ROLE:
+        stats.rolesChanged(previous, request.getRole());
+        break;
+      case DELETE:
+        stats.usersDeleted(previous);
+        break;
+      default:
+        break;
+    }
+  }
+
+  /**
+   * Publishes a change event for every user a bulk action was applied to,
+   * reading their updated views with a single query.
+   *
+   * @param applied the IDs of the changed users.
+   * @param action  the applied action.
+   */
+  private void publishBulkChanges(List<ObjectId> applied, UserBulkAction action) {
+    UserEventType type = action == UserBulkAction.ENABLE ? UserEventType.ENABLED : UserEventType.UPDATED;
+    for (UserPrincipal principal : repository.findViewsByIdIn(applied))
+      eventPublisher.publish(type, principal.getId(), new UserView(principal));
+  }
+
+  /**
+   * Finds a user by their ID, reading only the fields needed for a
+   * {@link UserView}.
    *
    * @param userId the ID of the user to find.
-   * @return {@link UserPrincipal} representing the user.
+   * @return partially populated {@link UserPrincipal} representing the user.
    */
   private UserPrincipal findById(ObjectId userId) {
-    return repository.findById(userId).orElseThrow(() -> {
-      log.warn("User with ID {} not found", userId);
-      return new UserNotFoundException("User not found with ID: " + userId);
-    });
+    return repository.findViewById(userId).orElseThrow(() -> handleUserNotFound(userId));
+  }
+
+  /**
+   * Logs and creates the exception for a user that was not found.
+   *
+   * @param userId the ID of the user that was not found.
+   * @return a {@link UserNotFoundException} for the given ID.
+   */
+  private UserNotFoundException handleUserNotFound(ObjectId userId) {
+    log.warn("User with ID {} not found", userId);
+    return new UserNotFoundException("User not found with ID: " + userId);
+  }
+
+  /**
+   * Resolves the effective page size of a listing request.
+   *
+   * @param requested the page size requested by the client, may be {@code null}.
+   * @return the requested size capped by the configured maximum, or the default
+   *         size if none was requested.
+   */
+  private int resolvePageSize(Integer requested) {
+    if (requested == null || requested < 1)
+      return defaultPageSize;
+    return Math.min(requested, maxPageSize);
+  }
+
+  /**
+   * Resolves the reason a conditional update matched no document.
+   *
+   * @param userId          the ID of the user that was being updated.
+   * @param expectedVersion the version the client based its changes on.
+   * @return a {@link UserNotFoundException} if the user does not exist,
+   *         otherwise a {@link PreconditionFailedException}.
+   */
+  private RuntimeException handleFailedUpdate(ObjectId userId, long expectedVersion) {
+    if (repository.findViewById(userId).isEmpty())
+      return handleUserNotFound(userId);
+    log.warn("Version {} is stale for user with ID {}", expectedVersion, userId);
+    return CONCURRENT_MODIFICATION;
+  }
+
+  /**
+   * Verifies that the user still has the version the client based its changes
+   * on. Used for updates that change no field and so never reach the write
+   * guarded by the version.
+   *
+   * @param userId          the ID of the user.
+   * @param user            the current view of the user.
+   * @param expectedVersion the version the client based its changes on.
+   * @return the given view if the version matches.
+   * @throws PreconditionFailedException if the version is stale.
+   */
+  private UserView verifyVersion(ObjectId userId, UserView user, long expectedVersion) {
+    if (user.getVersion() != expectedVersion) {
+      log.warn("Version {} is stale for user with ID {}", expectedVersion, userId);
+      throw CONCURRENT_MODIFICATION;
+    }
+    return user;
   }
 
   /**
-   * Updates the fields of an existing user with the values from the updated user.
+   * Collects the non-empty fields of the updated user into a map of document
+   * fields to set.
    *
-   * @param initial the initial user to be updated.
+   * @param userId  the ID of the user to be updated.
    * @param updated the updated user containing new values.
+   * @return the document fields to set, keyed by field name.
    */
-  private void updateUserFields(UserPrincipal initial, UserPrincipal updated) {
+  private Map<String, Object> collectUpdatedFields(ObjectId userId, UserPrincipal updated) {
+    Map<String, Object> fields = new LinkedHashMap<>();
     Optional.ofNullable(updated.getFirstName())
         .filter(firstName -> !firstName.isEmpty())
         .ifPresent(firstName -> {
-          log.info("Updated first name for user with ID {}: {}", initial.getId(), firstName);
-          initial.setFirstName(firstName);
+          log.info("Updated first name for user with ID {}", userId);
+          fields.put("firstName", firstName);
         });
 
     Optional.ofNullable(updated.getLastName())
         .filter(lastName -> !lastName.isEmpty())
         .ifPresent(lastName -> {
-          log.info("Updated last name for user with ID {}: {}", initial.getId(), lastName);
-          initial.setLastName(lastName);
+          log.info("Updated last name for user with ID {}", userId);
+          fields.put("lastName", lastName);
         });
+    return fields;
   }
 }
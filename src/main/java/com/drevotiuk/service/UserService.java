@@ -1,15 +1,26 @@
 package com.drevotiuk.service;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.bson.types.ObjectId;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import com.drevotiuk.model.UserEventType;
 import com.drevotiuk.model.UserView;
 import com.drevotiuk.model.UserPrincipal;
 import com.drevotiuk.model.exception.ForbiddenException;
+import com.drevotiuk.model.exception.PreconditionFailedException;
 import com.drevotiuk.model.exception.UserNotFoundException;
 import com.drevotiuk.repository.UserRepository;
 
@@ -19,50 +30,122 @@ import lombok.extern.slf4j.Slf4j;
 /**
  * Service class for managing user-related operations.
  * Provides methods for retrieving, updating, and handling user information.
+ * <p>
+ * Also answers user requests from other services over RabbitMQ: single user
+ * IDs on the user queue and lists of IDs on the separate batch queue, so each
+ * listener reads its payload by the type of its parameter and callers do not
+ * need to send a type header. The same lookups, and a feed of changed users,
+ * back the internal gRPC API.
+ * </p>
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class UserService {
+  private static final ForbiddenException ACCESS_FORBIDDEN = new ForbiddenException("Access forbidden");
+  private static final PreconditionFailedException CONCURRENT_MODIFICATION =
+      new PreconditionFailedException("User was modified concurrently, reload and retry");
+
   private final UserRepository repository;
+  private final UserViewCache cache;
+  private final UserEventPublisher eventPublisher;
 
   /**
-   * Retrieves a user by their ID.
+   * Retrieves a user by their ID, reading through the {@link UserViewCache}.
    *
    * @param userId the ID of the user to retrieve.
    * @return a {@link UserView} representing the user's details.
    */
   public UserView find(ObjectId userId) {
     log.info("Fetching user with ID {}", userId);
-    UserPrincipal user = findPrincipalById(userId);
+    UserView user = cache.get(userId, this::findViewById);
     validateAccess(user);
-    return new UserView(user);
+    return user;
   }
 
   /**
    * Updates a user's details.
+   * <p>
+   * Only the changed fields are sent to the database as a single {@code $set}
+   * that matches the user ID, the authenticated email and the expected version,
+   * so the stored password hash is never rewritten and concurrent edits are
+   * rejected instead of silently overwritten.
+   * </p>
    *
-   * @param userId  the ID of the user to update.
-   * @param updated the updated user information.
+   * @param userId          the ID of the user to update.
+   * @param updated         the updated user information.
+   * @param expectedVersion the version the client based its changes on.
    * @return a {@link UserView} representing the updated user's details.
+   * @throws PreconditionFailedException if the user was modified concurrently.
    */
-  public UserView update(ObjectId userId, UserView updated) {
+  public UserView update(ObjectId userId, UserView updated, long expectedVersion) {
     log.info("Updating user with ID {}", userId);
-    UserPrincipal initialPrincipal = findPrincipalById(userId);
-    validateAccess(initialPrincipal);
-    updateFields(initialPrincipal, updated);
-    repository.save(initialPrincipal);
-    return new UserView(initialPrincipal);
+    Map<String, Object> fields = collectUpdatedFields(userId, updated);
+    if (fields.isEmpty())
+      return verifyVersion(userId, find(userId), expectedVersion);
+
+    UserView updatedUser = repository.updateFields(userId, getAuthenticatedEmail(), expectedVersion, fields)
+        .map(UserView::new)
+        .orElseThrow(() -> handleFailedUpdate(userId, expectedVersion));
+    cache.evict(userId);
+    eventPublisher.publish(UserEventType.UPDATED, userId, updatedUser);
+    return updatedUser;
   }
 
   /**
-   * Handles a user request message from RabbitMQ and returns user information.
+   * Looks up a user by their ID on behalf of another service, reading through
+   * the {@link UserViewCache}. Unlike {@link #find(ObjectId)}, the caller does
+   * not have to be the user.
+   *
+   * @param userId the ID of the user to look up.
+   * @return a {@link UserView} representing the user's details.
+   * @throws UserNotFoundException if no user with the given ID is found.
+   */
+  public UserView lookup(ObjectId userId) {
+    return cache.get(userId, this::findViewById);
+  }
+
+  /**
+   * Looks up many users by their IDs on behalf of another service, reading
+   * through the {@link UserViewCache} and loading all cache misses with a
+   * single query.
+   *
+   * @param userIds the IDs of the users to look up.
+   * @return the {@link UserView} of every user found, keyed by user ID.
+   */
+  public Map<ObjectId, UserView> lookupAll(Collection<ObjectId> userIds) {
+    return cache.getAll(userIds, this::findViewsByIds);
+  }
+
+  /**
+   * Opens a stream of every user changed at or after the given time, oldest
+   * change first. Deleted users are included with their deletion time set
+   * until the background cleanup purges them; after that, their deletion is
+   * only announced by the {@code user.deleted} event.
+   * <p>
+   * Users are read from a database cursor in batches as the stream is
+   * consumed, so memory stays constant regardless of the number of changes.
+   * The returned {@link Stream} holds the open cursor and must be closed.
+   * </p>
+   *
+   * @param since the earliest change time to include.
+   * @return a stream of the changed users, populated with their view fields,
+   *         update time and deletion time.
+   */
+  public Stream<UserPrincipal> streamChangesSince(LocalDateTime since) {
+    log.info("Streaming users changed since {}", since);
+    return repository.streamChangesSince(since);
+  }
+
+  /**
+   * Handles a user request message from RabbitMQ and returns user information,
+   * reading through the {@link UserViewCache}.
    *
    * @param userId the ID of the user to fetch.
    * @return a {@link UserView} containing the user's details if found;
    *         {@code null} otherwise.
    */
-  @RabbitListener(queues = { "${rabbitmq.queue.user}" })
+  @RabbitListener(queues = { "${rabbitmq.queue.user}" }, containerFactory = "userRequestContainerFactory")
   public UserView handleUserRequest(String userId) {
     log.info("Received user request message; userID: {}", userId);
     if (!ObjectId.isValid(userId)) {
@@ -71,59 +154,155 @@ public class UserService {
     }
 
     try {
-      return new UserView(findPrincipalById(new ObjectId(userId)));
+      return lookup(new ObjectId(userId));
     } catch (UserNotFoundException e) {
       return null;
     }
   }
 
   /**
-   * Finds a user by their ID.
+   * Handles a batched user request message from RabbitMQ and returns the
+   * information of every requested user, reading through the
+   * {@link UserViewCache} and loading all cache misses with a single query.
+   *
+   * @param userIds the IDs of the users to fetch.
+   * @return a map of every requested ID to the user's {@link UserView}, or to
+   *         {@code null} if the ID is invalid or no such user exists, in
+   *         request order.
+   */
+  @RabbitListener(queues = { "${rabbitmq.queue.user-batch}" }, containerFactory = "userRequestContainerFactory")
+  public Map<String, UserView> handleUsersRequest(List<String> userIds) {
+    log.info("Received batched user request message; {} user IDs", userIds.size());
+    Set<ObjectId> validIds = userIds.stream()
+        .filter(ObjectId::isValid)
+        .map(ObjectId::new)
+        .collect(Collectors.toCollection(LinkedHashSet::new));
+    Map<ObjectId, UserView> found = lookupAll(validIds);
+
+    Map<String, UserView> users = new LinkedHashMap<>();
+    for (String userId : userIds)
+      users.put(userId, ObjectId.isValid(userId) ? found.get(new ObjectId(userId)) : null);
+    return users;
+  }
+
+  /**
+   * Finds the users with the given IDs in a single query, reading only the
+   * fields needed for a {@link UserView}.
+   *
+   * @param userIds the IDs of the users to find.
+   * @return the {@link UserView} of every user found, keyed by user ID.
+   */
+  private Map<ObjectId, UserView> findViewsByIds(List<ObjectId> userIds) {
+    Map<ObjectId, UserView> views = new LinkedHashMap<>();
+    for (UserPrincipal principal : repository.findViewsByIdIn(userIds))
+      views.put(principal.getId(), new UserView(principal));
+    return views;
+  }
+
+  /**
+   * Finds a user by their ID, reading only the fields needed for a
+   * {@link UserView}.
    *
    * @param userId the ID of the user to find.
-   * @return the {@link UserPrincipal} corresponding to the provided ID.
+   * @return the {@link UserView} corresponding to the provided ID.
    * @throws UserNotFoundException if no user with the given ID is found.
    */
-  private UserPrincipal findPrincipalById(ObjectId userId) {
-    return repository.findById(userId).orElseThrow(() -> {
+  private UserView findViewById(ObjectId userId) {
+    return repository.findViewById(userId).map(UserView::new).orElseThrow(() -> {
       log.warn("User not found with ID: {}", userId);
-      return new UserNotFoundException("User not found with ID: {}" + userId);
+      return new UserNotFoundException("User not found with ID: " + userId);
     });
   }
 
   /**
    * Validates user by their ID.
    *
-   * @param user the accessed {@link UserPrincipal}.
+   * @param user the accessed {@link UserView}.
    * @thrown ForbiddenException if not valid.
    */
-  private void validateAccess(UserPrincipal user) {
-    String askingEmail = SecurityContextHolder.getContext().getAuthentication().getName();
+  private void validateAccess(UserView user) {
+    String askingEmail = getAuthenticatedEmail();
     if (!askingEmail.equals(user.getEmail())) {
       log.warn("Access forbidden for user with email: {}", askingEmail);
-      throw new ForbiddenException("Access forbidden");
+      throw ACCESS_FORBIDDEN;
     }
   }
 
   /**
-   * Updates the fields of a user with the provided information.
+   * Resolves the reason a conditional update matched no document.
+   *
+   * @param userId          the ID of the user that was being updated.
+   * @param expectedVersion the version the client based its changes on.
+   * @return a {@link UserNotFoundException} if the user does not exist, a
+   *         {@link ForbiddenException} if it belongs to someone else, otherwise
+   *         a {@link PreconditionFailedException}.
+   */
+  private RuntimeException handleFailedUpdate(ObjectId userId, long expectedVersion) {
+    Optional<UserPrincipal> user = repository.findViewById(userId);
+    if (user.isEmpty()) {
+      log.warn("User not found with ID: {}", userId);
+      return new UserNotFoundException("User not found with ID: " + userId);
+    }
+    String askingEmail = getAuthenticatedEmail();
+    if (!askingEmail.equals(user.get().getEmail())) {
+      log.warn("Access forbidden for user with email: {}", askingEmail);
+      return ACCESS_FORBIDDEN;
+    }
+    log.warn("Version {} is stale for user with ID {}", expectedVersion, userId);
+    return CONCURRENT_MODIFICATION;
+  }
+
+  /**
+   * Verifies that the user still has the version the client based its changes
+   * on. Used for updates that change no field and so never reach the write
+   * guarded by the version.
+   *
+   * @param userId          the ID of the user.
+   * @param user            the current view of the user.
+   * @param expectedVersion the version the client based its changes on.
+   * @return the given view if the version matches.
+   * @throws PreconditionFailedException if the version is stale.
+   */
+  private UserView verifyVersion(ObjectId userId, UserView user, long expectedVersion) {
+    if (user.getVersion() != expectedVersion) {
+      log.warn("Version {} is stale for user with ID {}", expectedVersion, userId);
+      throw CONCURRENT_MODIFICATION;
+    }
+    return user;
+  }
+
+  /**
+   * Retrieves the email of the currently authenticated user.
+   *
+   * @return the email of the authenticated user.
+   */
+  private String getAuthenticatedEmail() {
+    return SecurityContextHolder.getContext().getAuthentication().getName();
+  }
+
+  /**
+   * Collects the non-empty fields of the provided information into a map of
+   * document fields to set.
    *
-   * @param initial the original user principal to be updated.
+   * @param userId  the ID of the user to be updated.
    * @param updated the new user information to apply.
+   * @return the document fields to set, keyed by field name.
    */
-  private void updateFields(UserPrincipal initial, UserView updated) {
+  private Map<String, Object> collectUpdatedFields(ObjectId userId, UserView updated) {
+    Map<String, Object> fields = new LinkedHashMap<>();
     Optional.ofNullable(updated.getFirstName())
         .filter(firstName -> !firstName.isEmpty())
         .ifPresent(firstName -> {
-          log.info("Updated first name for user with ID {}: {}", initial.getId(), firstName);
-          initial.setFirstName(firstName);
+          log.info("Updated first name for user with ID {}", userId);
+          fields.put("firstName", firstName);
         });
 
     Optional.ofNullable(updated.getLastName())
         .filter(lastName -> !lastName.isEmpty())
         .ifPresent(lastName -> {
-          log.info("Updated last name for user with ID {}: {}", initial.getId(), lastName);
-          initial.setLastName(lastName);
+          log.info("Updated last name for user with ID {}", userId);
+          fields.put("lastName", lastName);
         });
+    return fields;
   }
 }
@@ -0,0 +1,218 @@
+package com.drevotiuk.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.drevotiuk.model.UserDailySignups;
+import com.drevotiuk.model.UserPrincipal;
+import com.drevotiuk.model.UserRole;
+import com.drevotiuk.model.UserStats;
+import com.drevotiuk.model.UserStatsReport;
+import com.drevotiuk.repository.JobLockRepository;
+import com.drevotiuk.repository.UserRepository;
+import com.drevotiuk.repository.UserStatsRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service class for the pre-aggregated user statistics.
+ * Provides methods for updating the counters on user lifecycle changes, for
+ * reading them in constant time and for reconciling them with the users
+ * collection.
+ * <p>
+ * Counter updates never fail the operation that triggered them; a missed
+ * update is logged and corrected by the next reconciliation.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserStatsService {
+  private static final String TOTAL = "total";
+  private static final String ENABLED = "enabled";
+  private static final String PENDING = "pending";
+  private static final String ROLES = "roles.";
+  private static final String RECONCILE_JOB = "user-stats-reconcile";
+
+  @Value("${app.stats.max-days}")
+  private int maxDays;
+  @Value("${app.stats.reconcile-days}")
+  private int reconcileDays;
+  @Value("${app.stats.reconcile-lock}")
+  private Duration reconcileLock;
+
+  private final UserStatsRepository repository;
+  private final UserRepository userRepository;
+  private final JobLockRepository jobLocks;
+
+  /**
+   * Counts a newly registered user, who is pending email verification.
+   *
+   * @param role the role of the new user.
+   */
+  public void userRegistered(UserRole role) {
+    increment(Map.of(TOTAL, 1L, PENDING, 1L, ROLES + role.name(), 1L));
+    try {
+      repository.incrementSignups(today());
+    } catch (RuntimeException e) {
+      log.warn("Failed to count signup: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Moves a user from pending verification to enabled.
+   */
+  public void userEnabled() {
+    increment(Map.of(ENABLED, 1L, PENDING, -1L));
+  }
+
+  /**
+   * Moves the users that were pending verification to enabled.
+   *
+   * @param previous the role and enabled flag of the users before they were
+   *                 enabled.
+   */
+  public void usersEnabled(Collection<UserPrincipal> previous) {
+    long enabled = previous.stream().filter(user -> !user.isEnabled()).count();
+    if (enabled > 0)
+      increment(Map.of(ENABLED, enabled, PENDING, -enabled));
+  }
+
+  /**
+   * Moves the users whose role changed to the counter of their new role.
+   *
+   * @param previous the role and enabled flag of the users before the change.
+   * @param role     the role the users were given.
+   */
+  public void rolesChanged(Collection<UserPrincipal> previous, UserRole role) {
+    Map<String, Long> deltas = new LinkedHashMap<>();
+    for (UserPrincipal user : previous) {
+      if (user.getRole() == role)
+        continue;
+      if (user.getRole() != null)
+        deltas.merge(ROLES + user.getRole().name(), -1L, Long::sum);
+      deltas.merge(ROLES + role.name(), 1L, Long::sum);
+    }
+    if (!deltas.isEmpty())
+      increment(deltas);
+  }
+
+  /**
+   * Stops counting a deleted user.
+   *
+   * @param deleted the role and enabled flag of the user before deletion.
+   */
+  public void userDeleted(UserPrincipal deleted) {
+    usersDeleted(List.of(deleted));
+  }
+
+  /**
+   * Stops counting the deleted users with a single update.
+   *
+   * @param deleted the role and enabled flag of the users before deletion.
+   */
+  public void usersDeleted(Collection<UserPrincipal> deleted) {
+    if (deleted.isEmpty())
+      return;
+    Map<String, Long> deltas = new LinkedHashMap<>();
+    for (UserPrincipal user : deleted) {
+      deltas.merge(TOTAL, -1L, Long::sum);
+      deltas.merge(user.isEnabled() ? ENABLED : PENDING, -1L, Long::sum);
+      if (user.getRole() != null)
+        deltas.merge(ROLES + user.getRole().name(), -1L, Long::sum);
+    }
+    increment(deltas);
+  }
+
+  /**
+   * Returns the current counters and the signups per day of the given period
+   * without scanning the users collection.
+   *
+   * @param days the number of days, including today, to report signups for;
+   *             capped by the configured maximum.
+   * @return the {@link UserStatsReport}.
+   */
+  public UserStatsReport find(int days) {
+    UserStats stats = repository.findById(UserStats.GLOBAL_ID).orElseGet(UserStats::new);
+    LocalDate from = today().minusDays(Math.max(1, Math.min(days, maxDays)) - 1L);
+    Map<String, Long> signupsPerDay = new LinkedHashMap<>();
+    for (UserDailySignups signups : repository.findSignupsSince(from))
+      signupsPerDay.put(signups.getDay(), signups.getCount());
+    return new UserStatsReport(stats.getTotal(), stats.getEnabled(), stats.getPending(), stats.getRoles(),
+        signupsPerDay);
+  }
+
+  /**
+   * Computes the counters once the application is ready if they were never
+   * stored, e.g. on the first start after statistics were introduced.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void initialize() {
+    if (!repository.existsById(UserStats.GLOBAL_ID))
+      reconcile();
+  }
+
+  /**
+   * Reconciles the counters periodically on a single replica. Every replica
+   * schedules the job, but only the one that acquires its lock runs it; the
+   * lock is held for {@code app.stats.reconcile-lock}, which must be shorter
+   * than the interval.
+   */
+  @Scheduled(fixedDelayString = "${app.stats.reconcile-interval}", initialDelayString = "${app.stats.reconcile-interval}")
+  public void reconcilePeriodically() {
+    if (jobLocks.acquire(RECONCILE_JOB, reconcileLock))
+      reconcile();
+  }
+
+  /**
+   * Recomputes the counters from the users collection and replaces the stored
+   * ones, and restores signup counters of recent days that missed increments.
+   * <p>
+   * Scans the users collection, so it is only run in the background;
+   * increments that race with a reconciliation are corrected by the next one.
+   * </p>
+   */
+  public void reconcile() {
+    UserStats stats = userRepository.countActive();
+    stats.setReconciledAt(LocalDateTime.now());
+    repository.save(stats);
+    repository.raiseSignups(userRepository.countSignupsSince(today().minusDays(reconcileDays - 1L)));
+    log.info("Reconciled user stats: {} users, {} enabled, {} pending",
+        stats.getTotal(), stats.getEnabled(), stats.getPending());
+  }
+
+  /**
+   * Applies the given deltas to the counters, logging instead of failing.
+   *
+   * @param deltas the amounts to add, keyed by counter field path.
+   */
+  private void increment(Map<String, Long> deltas) {
+    try {
+      repository.increment(deltas);
+    } catch (RuntimeException e) {
+      log.warn("Failed to update user stats {}: {}", deltas, e.getMessage());
+    }
+  }
+
+  /**
+   * Returns the current day in UTC, the time zone of the signup counters.
+   *
+   * @return today's date in UTC.
+   */
+  private LocalDate today() {
+    return LocalDate.now(ZoneOffset.UTC);
+  }
+}
@@ -0,0 +1,282 @@
+package com.drevotiuk.service;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.bson.types.ObjectId;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.drevotiuk.model.UserView;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service class for the local read-through cache of {@link UserView} objects.
+ * Provides methods for reading views through the cache and for evicting them
+ * on this replica and, via a RabbitMQ fanout exchange, on every other replica.
+ * <p>
+ * Concurrent misses for the same user are coalesced into a single load whose
+ * result, or failure, is shared by all callers. Only loads in progress are
+ * tracked, so the in-flight map is bounded by the number of concurrent
+ * callers. Bulk loads are not coalesced, but track per-stripe invalidation
+ * generations so that they never cache a view an eviction overtook.
+ * </p>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class UserViewCache {
+  private static final String ID_SEPARATOR = ",";
+  private static final int GENERATION_STRIPES = 1024;
+
+  @Value("${rabbitmq.exchange.user-cache}")
+  private String exchange;
+
+  private final Cache<ObjectId, UserView> cache;
+  private final RabbitTemplate rabbitTemplate;
+  private final ConcurrentMap<ObjectId, CompletableFuture<UserView>> inFlight = new ConcurrentHashMap<>();
+  private final LongAdder coalesced = new LongAdder();
+  private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+  /**
+   * Returns the cached view of the given user, loading and caching it on a miss.
+   * Callers that miss while a load of the same user is in progress wait for
+   * that load instead of starting their own. Exceptions thrown by the loader
+   * are propagated to every waiting caller and nothing is cached. A load that
+   * was overtaken by an eviction returns its result without caching it.
+   *
+   * @param userId the ID of the user.
+   * @param loader the function loading the view from the database.
+   * @return the {@link UserView} of the user.
+   */
+  public UserView get(ObjectId userId, Function<ObjectId, UserView> loader) {
+    UserView cached = cache.getIfPresent(userId);
+    if (cached != null)
+      return cached;
+
+    CompletableFuture<UserView> load = new CompletableFuture<>();
+    CompletableFuture<UserView> pending = inFlight.putIfAbsent(userId, load);
+    if (pending != null) {
+      coalesced.increment();
+      return await(pending);
+    }
+
+    try {
+      UserView view = loader.apply(userId);
+      inFlight.computeIfPresent(userId, (id, current) -> {
+        if (current == load)
+          cache.put(id, view);
+        return current;
+      });
+      load.complete(view);
+      return view;
+    } catch (RuntimeException e) {
+      load.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(userId, load);
+    }
+  }
+
+  /**
+   * Returns the cached views of the given users, loading all missing ones with
+   * a single call to the loader. Users the loader does not return are absent
+   * from the result and are not cached.
+   * <p>
+   * A loaded view is cached only if no invalidation of the user arrived since
+   * before the load started, tracked by per-stripe generations, so an eviction
+   * overtaking a bulk load cannot be undone by it. A view that is stored just
+   * as an invalidation arrives is removed again.
+   * </p>
+   *
+   * @param userIds the IDs of the users.
+   * @param loader  the function loading the missing views from the database.
+   * @return the {@link UserView} of every user found, keyed by user ID.
+   */
+  public Map<ObjectId, UserView> getAll(Collection<ObjectId> userIds,
+      Function<List<ObjectId>, Map<ObjectId, UserView>> loader) {
+    Map<ObjectId, UserView> present = cache.getAllPresent(userIds);
+    List<ObjectId> missingIds = userIds.stream()
+        .filter(userId -> !present.containsKey(userId))
+        .distinct()
+        .collect(Collectors.toList());
+    Map<ObjectId, UserView> loaded = missingIds.isEmpty() ? Map.of() : load(missingIds, loader);
+
+    Map<ObjectId, UserView> views = new LinkedHashMap<>();
+    for (ObjectId userId : userIds) {
+      UserView view = present.containsKey(userId) ? present.get(userId) : loaded.get(userId);
+      if (view != null)
+        views.put(userId, view);
+    }
+    return views;
+  }
+
+  /**
+   * Evicts the view of the given user on this replica and publishes an
+   * invalidation so that other replicas evict it as well.
+   * <p>
+   * The change is already stored when this is called, so a failure to publish
+   * is logged instead of failing the request; other replicas then serve the
+   * stale view until it expires.
+   * </p>
+   *
+   * @param userId the ID of the user whose view changed.
+   */
+  public void evict(ObjectId userId) {
+    invalidate(userId);
+    publishInvalidation(userId.toString());
+  }
+
+  /**
+   * Evicts the views of the given users on this replica and publishes a single
+   * invalidation carrying all of their IDs, so that a bulk change costs one
+   * message instead of one per user. As with {@link #evict(ObjectId)}, a
+   * failure to publish is only logged.
+   *
+   * @param userIds the IDs of the users whose views changed.
+   */
+  public void evictAll(Collection<ObjectId> userIds) {
+    if (userIds.isEmpty())
+      return;
+    userIds.forEach(this::invalidate);
+    publishInvalidation(userIds.stream()
+        .map(ObjectId::toString)
+        .collect(Collectors.joining(ID_SEPARATOR)));
+  }
+
+  /**
+   * Handles a user cache invalidation message from RabbitMQ.
+   *
+   * @param userIds the comma-separated IDs of the users whose views should be
+   *                evicted.
+   */
+  @RabbitListener(queues = { "#{userCacheInvalidationQueue.name}" })
+  public void handleInvalidation(String userIds) {
+    for (String userId : userIds.split(ID_SEPARATOR)) {
+      if (!ObjectId.isValid(userId)) {
+        log.warn("Invalid user ID in cache invalidation: {}", userId);
+        continue;
+      }
+      invalidate(new ObjectId(userId));
+    }
+  }
+
+  /**
+   * Returns the number of lookups that were served by a load already in
+   * progress instead of querying the database themselves.
+   *
+   * @return the number of coalesced lookups since startup.
+   */
+  public long coalescedCount() {
+    return coalesced.sum();
+  }
+
+  /**
+   * Loads the views of the given users and caches those whose generation did
+   * not change during the load.
+   *
+   * @param userIds the IDs of the users missing from the cache.
+   * @param loader  the function loading the views from the database.
+   * @return the loaded views, keyed by user ID.
+   */
+  private Map<ObjectId, UserView> load(List<ObjectId> userIds,
+      Function<List<ObjectId>, Map<ObjectId, UserView>> loader) {
+    long[] loadedGenerations = new long[userIds.size()];
+    for (int i = 0; i < userIds.size(); i++)
+      loadedGenerations[i] = generations.get(stripeOf(userIds.get(i)));
+
+    Map<ObjectId, UserView> loaded = loader.apply(userIds);
+    for (int i = 0; i < userIds.size(); i++) {
+      ObjectId userId = userIds.get(i);
+      UserView view = loaded.get(userId);
+      if (view == null || generations.get(stripeOf(userId)) != loadedGenerations[i])
+        continue;
+      cache.put(userId, view);
+      if (generations.get(stripeOf(userId)) != loadedGenerations[i])
+        cache.asMap().remove(userId, view);
+    }
+    return loaded;
+  }
+
+  /**
+   * Evicts the view of the given user on this replica and detaches any load of
+   * it in progress, so that the load cannot cache a view read before the
+   * change. The generation is advanced before the eviction, so that a bulk load
+   * storing its view concurrently sees it and removes the view again.
+   *
+   * @param userId the ID of the user whose view changed.
+   */
+  private void invalidate(ObjectId userId) {
+    generations.incrementAndGet(stripeOf(userId));
+    inFlight.remove(userId);
+    cache.invalidate(userId);
+  }
+
+  /**
+   * Returns the generation stripe of the given user. Users sharing a stripe
+   * only cause each other's bulk loads to skip caching.
+   *
+   * @param userId the ID of the user.
+   * @return the index of the stripe.
+   */
+  private int stripeOf(ObjectId userId) {
+    return Math.floorMod(userId.hashCode(), GENERATION_STRIPES);
+  }
+
+  /**
+   * Publishes an invalidation to the other replicas, logging a failure instead
+   * of propagating it.
+   *
+   * @param userIds the comma-separated IDs of the users whose views changed.
+   */
+  private void publishInvalidation(String userIds) {
+    try {
+      rabbitTemplate.convertAndSend(exchange, "", userIds);
+    } catch (AmqpException e) {
+      log.warn("Failed to publish cache invalidation for user IDs {}: {}", userIds, e.getMessage());
+    }
+  }
+
+  /**
+   * Waits for a load started by another caller and returns its result.
+   *
+   * @param pending the load in progress.
+   * @return the loaded {@link UserView}.
+   * @throws RuntimeException the exception the load failed with.
+   */
+  private UserView await(CompletableFuture<UserView> pending) {
+    try {
+      return pending.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException)
+        throw (RuntimeException) e.getCause();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the hit, miss and eviction statistics of the cache.
+   *
+   * @return a {@link CacheStats} snapshot.
+   */
+  public CacheStats stats() {
+    return cache.stats();
+  }
+}
@@ -0,0 +1,48 @@
+package com.drevotiuk.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+public class MongoCommandMonitorTest {
+  @Test
+  void shouldFindCollectionOfCommand() {
+    // given
+    BsonDocument find = BsonDocument.parse("{ 'find': 'users', 'filter': { 'email': 'a@mail.com' } }");
+    BsonDocument getMore = BsonDocument.parse("{ 'getMore': NumberLong(42), 'collection': 'users' }");
+    BsonDocument ping = BsonDocument.parse("{ 'ping': 1 }");
+
+    // when
+    // then
+    assertThat(MongoCommandMonitor.collectionOf("find", find)).isEqualTo("users");
+    assertThat(MongoCommandMonitor.collectionOf("getMore", getMore)).isEqualTo("users");
+    assertThat(MongoCommandMonitor.collectionOf("ping", ping)).isEqualTo("none");
+  }
+
+  @Test
+  void shouldDescribePlanAsChainOfStages() {
+    // given
+    Document plan = Document.parse("{ 'stage': 'FETCH', 'filter': { 'deletedAt': { '$eq': null } }, "
+        + "'inputStage': { 'stage': 'IXSCAN', 'indexName': 'email', 'keyPattern': { 'email': 1 } } }");
+
+    // when
+    String description = MongoCommandMonitor.describePlan(plan);
+
+    // then
+    assertThat(description).isEqualTo("FETCH <- IXSCAN(email)");
+  }
+
+  @Test
+  void shouldDescribeSlotBasedPlan() {
+    // given
+    Document plan = Document.parse("{ 'queryPlan': { 'stage': 'COLLSCAN' }, 'slotBasedPlan': {} }");
+
+    // when
+    String description = MongoCommandMonitor.describePlan(plan);
+
+    // then
+    assertThat(description).isEqualTo("COLLSCAN");
+  }
+}
@@ -0,0 +1,81 @@
+package com.drevotiuk.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.core.spi.FilterReply;
+
+public class SamplingTurboFilterTest {
+  private static final int RATE = 10;
+  private static final int EVENTS = 100_000;
+
+  private final LoggerContext context = new LoggerContext();
+  private final Logger sampled = context.getLogger("com.drevotiuk.service.UserService");
+  private SamplingTurboFilter underTest;
+
+  @BeforeEach
+  void setUp() {
+    underTest = new SamplingTurboFilter();
+    underTest.addLogger(sampled.getName());
+    underTest.setRate(RATE);
+  }
+
+  @Test
+  void shouldAlwaysPassWarningsAndErrors() {
+    // when
+    int warnings = countPassed(sampled, Level.WARN);
+    int errors = countPassed(sampled, Level.ERROR);
+
+    // then
+    assertThat(warnings).isEqualTo(EVENTS);
+    assertThat(errors).isEqualTo(EVENTS);
+  }
+
+  @Test
+  void shouldSampleInfoAtConfiguredRate() {
+    // when
+    int passed = countPassed(sampled, Level.INFO);
+
+    // then
+    // Expected 10 000 with a standard deviation of about 95
+    assertThat(passed).isBetween(EVENTS / RATE - 1_000, EVENTS / RATE + 1_000);
+  }
+
+  @Test
+  void shouldNotSampleOtherLoggers() {
+    // given
+    Logger other = context.getLogger("com.drevotiuk.service.JwtService");
+
+    // when
+    int passed = countPassed(other, Level.INFO);
+
+    // then
+    assertThat(passed).isEqualTo(EVENTS);
+  }
+
+  @Test
+  void shouldPassEveryEvent_whenRateIsOne() {
+    // given
+    underTest.setRate(1);
+
+    // when
+    int passed = countPassed(sampled, Level.INFO);
+
+    // then
+    assertThat(passed).isEqualTo(EVENTS);
+  }
+
+  private int countPassed(Logger logger, Level level) {
+    int passed = 0;
+    for (int i = 0; i < EVENTS; i++) {
+      if (underTest.decide(null, logger, level, "message", null, null) == FilterReply.NEUTRAL)
+        passed++;
+    }
+    return passed;
+  }
+}
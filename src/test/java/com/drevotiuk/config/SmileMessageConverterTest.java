@@ -0,0 +1,85 @@
+package com.drevotiuk.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDate;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import com.drevotiuk.model.EmailVerificationDetails;
+import com.drevotiuk.model.UserPrincipal;
+import com.drevotiuk.model.UserView;
+
+public class SmileMessageConverterTest {
+  private final SmileMessageConverter underTest = new SmileMessageConverter();
+
+  @Test
+  void shouldRoundTripUserViewInSmallerPayloadThanJson() {
+    // given
+    UserView view = new UserView(userPrincipal());
+
+    // when
+    Message smile = underTest.toMessage(view, new MessageProperties());
+    Message json = new Jackson2JsonMessageConverter().toMessage(view, new MessageProperties());
+
+    // then
+    assertThat(smile.getMessageProperties().getContentType()).isEqualTo(SmileMessageConverter.CONTENT_TYPE);
+    assertThat(underTest.fromMessage(smile)).isEqualTo(view);
+    assertThat(smile.getBody().length).isLessThan(json.getBody().length);
+  }
+
+  @Test
+  void shouldRoundTripEmailVerificationDetails() {
+    // given
+    EmailVerificationDetails details = new EmailVerificationDetails(
+        "johndoe@mail.com", "John", "http://mysite.com/myservice/users/confirm?token=verif-token");
+
+    // when
+    Message smile = underTest.toMessage(details, new MessageProperties());
+
+    // then
+    assertThat(underTest.fromMessage(smile)).isEqualTo(details);
+  }
+
+  @Test
+  void shouldReadBothFormatsAndWriteConfiguredOne() {
+    // given
+    UserView view = new UserView(userPrincipal());
+    MessageConverter converter = AppConfig.negotiatingMessageConverter(SmileMessageConverter.CONTENT_TYPE);
+    Message json = new Jackson2JsonMessageConverter().toMessage(view, new MessageProperties());
+
+    // when
+    Message written = converter.toMessage(view, new MessageProperties());
+
+    // then
+    assertThat(converter.fromMessage(json)).isEqualTo(view);
+    assertThat(converter.fromMessage(written)).isEqualTo(view);
+    assertThat(written.getMessageProperties().getContentType()).isEqualTo(SmileMessageConverter.CONTENT_TYPE);
+  }
+
+  @Test
+  void shouldThrow_whenContentTypeIsNotSupported() {
+    // when
+    // then
+    assertThatThrownBy(() -> AppConfig.negotiatingMessageConverter("application/xml"))
+        .isInstanceOf(IllegalArgumentException.class)
+        .hasMessageContaining("application/xml");
+  }
+
+  private UserPrincipal userPrincipal() {
+    UserPrincipal principal = new UserPrincipal();
+    principal.setId(ObjectId.get());
+    principal.setFirstName("John");
+    principal.setLastName("Doe");
+    principal.setEmail("johndoe@mail.com");
+    principal.setDateOfBirth(LocalDate.of(1990, 5, 17));
+    principal.setVersion(3L);
+    return principal;
+  }
+}
@@ -0,0 +1,45 @@
+package com.drevotiuk.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class VirtualThreadsTest {
+  @Test
+  void shouldRunTasksOnNamedVirtualThreads() throws Exception {
+    assumeTrue(VirtualThreads.isSupported());
+    // given
+    CompletableFuture<Thread> thread = new CompletableFuture<>();
+
+    // when
+    VirtualThreads.executor("test-").execute(() -> thread.complete(Thread.currentThread()));
+
+    // then
+    Thread ran = thread.get(5, TimeUnit.SECONDS);
+    assertThat(VirtualThreads.isVirtual(ran)).isTrue();
+    assertThat(ran.getName()).startsWith("test-");
+  }
+
+  @Test
+  void shouldFailFast_whenVirtualThreadsAreNotSupported() {
+    assumeFalse(VirtualThreads.isSupported());
+    // when
+    // then
+    assertThatThrownBy(() -> VirtualThreads.factory("test-"))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("Java 21");
+  }
+
+  @Test
+  void shouldNotReportPlatformThreadAsVirtual() {
+    // when
+    // then
+    assertThat(VirtualThreads.isVirtual(Thread.currentThread())).isFalse();
+  }
+}
@@ -0,0 +1,45 @@
+package com.drevotiuk.controller;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class AcceptEncodingTest {
+  @Test
+  void shouldAcceptListedCoding() {
+    // when
+    // then
+    assertThat(AcceptEncoding.accepts("deflate, GZIP;q=0.5", "gzip")).isTrue();
+  }
+
+  @Test
+  void shouldNotAcceptCoding_whenQualityIsZero() {
+    // when
+    // then
+    assertThat(AcceptEncoding.accepts("gzip;q=0, identity", "gzip")).isFalse();
+    assertThat(AcceptEncoding.accepts("gzip; q=0.000", "gzip")).isFalse();
+  }
+
+  @Test
+  void shouldNotMatchCodingBySubstring() {
+    // when
+    // then
+    assertThat(AcceptEncoding.accepts("x-gzip", "gzip")).isFalse();
+  }
+
+  @Test
+  void shouldPreferListedCodingOverWildcard() {
+    // when
+    // then
+    assertThat(AcceptEncoding.accepts("*", "gzip")).isTrue();
+    assertThat(AcceptEncoding.accepts("*;q=0", "gzip")).isFalse();
+    assertThat(AcceptEncoding.accepts("*, gzip;q=0", "gzip")).isFalse();
+  }
+
+  @Test
+  void shouldNotAcceptCoding_whenHeaderIsMissing() {
+    // when
+    // then
+    assertThat(AcceptEncoding.accepts(null, "gzip")).isFalse();
+  }
+}
@@ -0,0 +1,45 @@
+package com.drevotiuk.controller;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.drevotiuk.model.exception.PreconditionFailedException;
+import com.drevotiuk.model.exception.PreconditionRequiredException;
+
+public class ETagsTest {
+  @Test
+  void shouldParseStrongETag() {
+    // when
+    long version = ETags.parseIfMatch(" \"3\" ");
+
+    // then
+    assertThat(version).isEqualTo(3L);
+  }
+
+  @Test
+  void shouldFailPrecondition_whenETagIsWeak() {
+    // when
+    // then
+    assertThatThrownBy(() -> ETags.parseIfMatch("W/\"3\""))
+        .isInstanceOf(PreconditionFailedException.class);
+  }
+
+  @Test
+  void shouldFailPrecondition_whenETagIsNotVersion() {
+    // when
+    // then
+    assertThatThrownBy(() -> ETags.parseIfMatch("\"abc\""))
+        .isInstanceOf(PreconditionFailedException.class);
+  }
+
+  @Test
+  void shouldRequirePrecondition_whenHeaderIsMissingOrWildcard() {
+    // when
+    // then
+    assertThatThrownBy(() -> ETags.parseIfMatch(null))
+        .isInstanceOf(PreconditionRequiredException.class);
+    assertThatThrownBy(() -> ETags.parseIfMatch("*"))
+        .isInstanceOf(PreconditionRequiredException.class);
+  }
+}
@@ -9,7 +9,6 @@ import java.time.LocalDate;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
-import javax.servlet.http.HttpServletResponse;
 
 import org.bson.types.ObjectId;
 import org.junit.jupiter.api.BeforeEach;
@@ -19,20 +18,25 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
-import org.springframework.web.servlet.HandlerExceptionResolver;
 
 import com.drevotiuk.model.UserPrincipal;
 import com.drevotiuk.model.UserRole;
 import com.drevotiuk.service.JwtService;
 import com.drevotiuk.service.UserPrincipalService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @ExtendWith(MockitoExtension.class)
 public class JwtFilterTest {
@@ -41,27 +45,28 @@ public class JwtFilterTest {
   @Mock
   private UserPrincipalService userPrincipalService;
   @Mock
-  private HandlerExceptionResolver handlerExceptionResolver;
-  @Mock
   private FilterChain filterChain;
   @Mock
   private HttpServletRequest httpServletRequest;
-  @Mock
-  private HttpServletResponse httpServletResponse;
+  private MockHttpServletResponse httpServletResponse;
+  private SimpleMeterRegistry meterRegistry;
   @Mock
   private SecurityContext securityContext;
   private JwtFilter underTest;
 
   @BeforeEach
   void setUp() {
-    underTest = new JwtFilter(jwtService, userPrincipalService, handlerExceptionResolver);
+    httpServletResponse = new MockHttpServletResponse();
+    meterRegistry = new SimpleMeterRegistry();
+    underTest = new JwtFilter(jwtService, userPrincipalService, new ObjectMapper(), meterRegistry);
   }
 
   @Test
   void shouldFilterRequestAndAuthenticateWithJwt() throws IOException, ServletException {
     // given
     given(httpServletRequest.getHeader(HttpHeaders.AUTHORIZATION)).willReturn("Bearer test-jwt");
-    given(jwtService.extractUsername("test-jwt")).willReturn("johndoe@mail.com");
+    Claims claims = Jwts.claims().subject("johndoe@mail.com").build();
+    given(jwtService.parseToken("test-jwt")).willReturn(claims);
     SecurityContextHolder.setContext(securityContext);
     // Authentication mockAuthentication = mock(Authentication.class);
     given(securityContext.getAuthentication()).willReturn(null);
@@ -75,19 +80,18 @@ public class JwtFilterTest {
         "qwerty123",
         UserRole.USER,
         false,
-        true);
+        true,
+        0L,
+        null,
+        null);
     given(userPrincipalService.loadUserByUsername(user.getEmail())).willReturn(user);
-    given(jwtService.validateToken("test-jwt", user)).willReturn(true);
+    given(jwtService.validateToken(claims, user)).willReturn(true);
 
     // when
     underTest.doFilterInternal(httpServletRequest, httpServletResponse, filterChain);
 
     // then
-    verify(handlerExceptionResolver, never()).resolveException(
-        eq(httpServletRequest),
-        eq(httpServletResponse),
-        eq(null),
-        any(Exception.class));
+    assertThat(httpServletResponse.getStatus()).isEqualTo(200);
 
     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
         user, null, user.getAuthorities());
@@ -99,13 +103,19 @@ public class JwtFilterTest {
 
     UsernamePasswordAuthenticationToken capturedAuthToken = authTokenArgumentCaptor.getValue();
     assertThat(capturedAuthToken).isEqualTo(authToken);
+    verify(userPrincipalService, times(1)).loadUserByUsername(user.getEmail());
+    verify(jwtService, times(1)).parseToken("test-jwt");
+    assertThat(meterRegistry.get("auth.jwt.filter").tag("stage", "parse").timer().count()).isEqualTo(1);
+    assertThat(meterRegistry.get("auth.jwt.filter").tag("stage", "load_user").timer().count()).isEqualTo(1);
+    assertThat(meterRegistry.get("auth.jwt.filter").tag("stage", "verify").timer().count()).isEqualTo(1);
   }
 
   @Test
   void shouldNotAuthenticate_whenJwtInvalid() throws IOException, ServletException {
     // given
     given(httpServletRequest.getHeader(HttpHeaders.AUTHORIZATION)).willReturn("Bearer test-jwt");
-    given(jwtService.extractUsername("test-jwt")).willReturn("johndoe@mail.com");
+    Claims claims = Jwts.claims().subject("johndoe@mail.com").build();
+    given(jwtService.parseToken("test-jwt")).willReturn(claims);
     SecurityContextHolder.setContext(securityContext);
     given(securityContext.getAuthentication()).willReturn(null);
 
@@ -118,28 +128,48 @@ public class JwtFilterTest {
         "qwerty123",
         UserRole.USER,
         false,
-        true);
+        true,
+        0L,
+        null,
+        null);
     given(userPrincipalService.loadUserByUsername(user.getEmail())).willReturn(user);
-    given(jwtService.validateToken("test-jwt", user)).willThrow(JwtException.class); // JWT is invalid
+    given(jwtService.validateToken(claims, user)).willThrow(JwtException.class); // JWT is invalid
 
     // when
     underTest.doFilterInternal(httpServletRequest, httpServletResponse, filterChain);
 
     // then
-    verify(handlerExceptionResolver).resolveException(
-        eq(httpServletRequest),
-        eq(httpServletResponse),
-        eq(null),
-        any(JwtException.class));
+    assertThat(httpServletResponse.getStatus()).isEqualTo(401);
+    assertThat(httpServletResponse.getContentType()).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+    assertThat(httpServletResponse.getContentAsString()).contains("\"status\":\"401 UNAUTHORIZED\"");
+    verify(filterChain, never()).doFilter(any(), any());
 
     verify(securityContext, never()).setAuthentication(any());
   }
 
+  @Test
+  void shouldNotLoadUser_whenJwtCannotBeParsed() throws IOException, ServletException {
+    // given
+    given(httpServletRequest.getHeader(HttpHeaders.AUTHORIZATION)).willReturn("Bearer test-jwt");
+    given(jwtService.parseToken("test-jwt")).willThrow(new JwtException("JWT expired"));
+
+    // when
+    underTest.doFilterInternal(httpServletRequest, httpServletResponse, filterChain);
+
+    // then
+    assertThat(httpServletResponse.getStatus()).isEqualTo(401);
+    assertThat(meterRegistry.get("auth.jwt.failures").tag("reason", "invalid_token").counter().count()).isEqualTo(1);
+    verify(userPrincipalService, never()).loadUserByUsername(anyString());
+    verify(jwtService, never()).validateToken(any(), any());
+    verify(filterChain, never()).doFilter(any(), any());
+  }
+
   @Test
   void shouldNotAuthenticate_whenUserNotFoundInDatabase() throws IOException, ServletException {
     // given
     given(httpServletRequest.getHeader(HttpHeaders.AUTHORIZATION)).willReturn("Bearer test-jwt");
-    given(jwtService.extractUsername("test-jwt")).willReturn("johndoe@mail.com");
+    Claims claims = Jwts.claims().subject("johndoe@mail.com").build();
+    given(jwtService.parseToken("test-jwt")).willReturn(claims);
     SecurityContextHolder.setContext(securityContext);
     given(securityContext.getAuthentication()).willReturn(null);
 
@@ -150,13 +180,12 @@ public class JwtFilterTest {
     underTest.doFilterInternal(httpServletRequest, httpServletResponse, filterChain);
 
     // then
-    verify(handlerExceptionResolver).resolveException(
-        eq(httpServletRequest),
-        eq(httpServletResponse),
-        eq(null),
-        any(UsernameNotFoundException.class));
+    assertThat(httpServletResponse.getStatus()).isEqualTo(404);
+    assertThat(meterRegistry.get("auth.jwt.failures").tag("reason", "unknown_user").counter().count()).isEqualTo(1);
+    assertThat(httpServletResponse.getContentAsString())
+        .contains("\"error\":\"TEST username not found\"", "\"status\":\"404 NOT_FOUND\"");
 
-    verify(jwtService, never()).validateToken(eq("test-jwt"), any());
+    verify(jwtService, never()).validateToken(eq(claims), any());
     verify(securityContext, never()).setAuthentication(any());
   }
 
@@ -164,7 +193,8 @@ public class JwtFilterTest {
   void shouldNotAuthenticate_whenAlreadyAuthenticated() throws IOException, ServletException {
     // given
     given(httpServletRequest.getHeader(HttpHeaders.AUTHORIZATION)).willReturn("Bearer test-jwt");
-    given(jwtService.extractUsername("test-jwt")).willReturn("johndoe@mail.com");
+    Claims claims = Jwts.claims().subject("johndoe@mail.com").build();
+    given(jwtService.parseToken("test-jwt")).willReturn(claims);
     SecurityContextHolder.setContext(securityContext);
     Authentication mockAuthentication = mock(Authentication.class);
     given(securityContext.getAuthentication()).willReturn(mockAuthentication);
@@ -174,13 +204,9 @@ public class JwtFilterTest {
 
     // then
     verify(userPrincipalService, never()).loadUserByUsername("johndoe@mail.com");
-    verify(jwtService, never()).validateToken(eq("test-jwt"), any());
+    verify(jwtService, never()).validateToken(eq(claims), any());
     verify(securityContext, never()).setAuthentication(any());
-    verify(handlerExceptionResolver, never()).resolveException(
-        eq(httpServletRequest),
-        eq(httpServletResponse),
-        eq(null),
-        any(Exception.class));
+    assertThat(httpServletResponse.getStatus()).isEqualTo(200);
   }
 
   @Test
@@ -193,13 +219,9 @@ public class JwtFilterTest {
 
     // then
     verify(userPrincipalService, never()).loadUserByUsername(anyString());
-    verify(jwtService, never()).extractUsername("invalid auth header");
-    verify(jwtService, never()).validateToken(anyString(), any());
+    verify(jwtService, never()).parseToken(anyString());
+    verify(jwtService, never()).validateToken(any(), any());
     verify(securityContext, never()).setAuthentication(any());
-    verify(handlerExceptionResolver, never()).resolveException(
-        eq(httpServletRequest),
-        eq(httpServletResponse),
-        eq(null),
-        any(Exception.class));
+    assertThat(httpServletResponse.getStatus()).isEqualTo(200);
   }
 }
@@ -0,0 +1,56 @@
+package com.drevotiuk.filter;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost of a rate limit check, i.e. the bucket lookup and the
+ * token acquisition done by {@link RateLimitFilter} for every public request.
+ * <p>
+ * Not run by the test suite. After {@code mvn test-compile}, run it with
+ * {@code java -cp target/test-classes:<test classpath> org.openjdk.jmh.Main RateLimitBenchmark}.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class RateLimitBenchmark {
+  @Param({ "1", "10000" })
+  private int clients;
+
+  private RateLimitFilter.RouteLimit route;
+  private String[] addresses;
+
+  @Setup
+  public void setUp() {
+    route = new RateLimitFilter.RouteLimit("/users/login", Integer.MAX_VALUE, Duration.ofNanos(1),
+        100_000, Duration.ofMinutes(10));
+    addresses = new String[clients];
+    for (int i = 0; i < clients; i++)
+      addresses[i] = "10." + (i >> 16 & 0xff) + "." + (i >> 8 & 0xff) + "." + (i & 0xff);
+  }
+
+  @Benchmark
+  public long tryAcquire() {
+    String client = addresses[ThreadLocalRandom.current().nextInt(clients)];
+    return route.tryAcquire(client, System.nanoTime());
+  }
+}
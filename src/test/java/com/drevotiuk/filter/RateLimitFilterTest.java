@@ -0,0 +1,117 @@
+package com.drevotiuk.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@ExtendWith(MockitoExtension.class)
+public class RateLimitFilterTest {
+  @Mock
+  private FilterChain filterChain;
+  private RateLimitFilter underTest;
+
+  @BeforeEach
+  void setUp() {
+    underTest = new RateLimitFilter(new ObjectMapper(), 1000, Duration.ofMinutes(10),
+        2, Duration.ofMinutes(1),
+        1, Duration.ofSeconds(30),
+        1, Duration.ofSeconds(30));
+  }
+
+  @Test
+  void shouldRejectWithRetryAfter_whenClientExceedsRouteLimit() throws IOException, ServletException {
+    // given
+    underTest.doFilter(request("/api/v1/users/register", "10.0.0.1"), new MockHttpServletResponse(), filterChain);
+    underTest.doFilter(request("/api/v1/users/register", "10.0.0.1"), new MockHttpServletResponse(), filterChain);
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    // when
+    underTest.doFilter(request("/api/v1/users/register", "10.0.0.1"), response, filterChain);
+
+    // then
+    verify(filterChain, times(2)).doFilter(any(), any());
+    assertThat(response.getStatus()).isEqualTo(429);
+    assertThat(response.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("60");
+    assertThat(response.getContentAsString()).contains("\"status\":\"429 TOO_MANY_REQUESTS\"");
+  }
+
+  @Test
+  void shouldLimitClientsAndRoutesIndependently() throws IOException, ServletException {
+    // given
+    underTest.doFilter(request("/api/v1/users/login", "10.0.0.1"), new MockHttpServletResponse(), filterChain);
+
+    // when
+    MockHttpServletResponse otherClient = new MockHttpServletResponse();
+    underTest.doFilter(request("/api/v1/users/login", "10.0.0.2"), otherClient, filterChain);
+    MockHttpServletResponse otherRoute = new MockHttpServletResponse();
+    underTest.doFilter(request("/api/v1/users/confirm", "10.0.0.1"), otherRoute, filterChain);
+
+    // then
+    verify(filterChain, times(3)).doFilter(any(), any());
+    assertThat(otherClient.getStatus()).isEqualTo(200);
+    assertThat(otherRoute.getStatus()).isEqualTo(200);
+  }
+
+  @Test
+  void shouldNotLimitOtherRoutes() throws IOException, ServletException {
+    // when
+    for (int i = 0; i < 5; i++)
+      underTest.doFilter(request("/api/v1/users/me", "10.0.0.1"), new MockHttpServletResponse(), filterChain);
+
+    // then
+    verify(filterChain, times(5)).doFilter(any(), any());
+  }
+
+  @Test
+  void shouldRefillTokensOverTime() {
+    // given
+    long refillNanos = TimeUnit.SECONDS.toNanos(10);
+    TokenBucket bucket = new TokenBucket(2, refillNanos, 0);
+
+    // when
+    // then
+    assertThat(bucket.tryAcquire(0)).isZero();
+    assertThat(bucket.tryAcquire(0)).isZero();
+    assertThat(bucket.tryAcquire(0)).isEqualTo(refillNanos);
+    assertThat(bucket.tryAcquire(TimeUnit.SECONDS.toNanos(4))).isEqualTo(TimeUnit.SECONDS.toNanos(6));
+    assertThat(bucket.tryAcquire(refillNanos)).isZero();
+    assertThat(bucket.tryAcquire(refillNanos)).isEqualTo(refillNanos);
+  }
+
+  @Test
+  void shouldNotRefillBeyondCapacity() {
+    // given
+    long refillNanos = TimeUnit.SECONDS.toNanos(10);
+    TokenBucket bucket = new TokenBucket(2, refillNanos, 0);
+    long later = TimeUnit.HOURS.toNanos(1);
+
+    // when
+    // then
+    assertThat(bucket.tryAcquire(later)).isZero();
+    assertThat(bucket.tryAcquire(later)).isZero();
+    assertThat(bucket.tryAcquire(later)).isPositive();
+  }
+
+  private MockHttpServletRequest request(String uri, String remoteAddr) {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+    request.setRemoteAddr(remoteAddr);
+    return request;
+  }
+}
@@ -0,0 +1,241 @@
+package com.drevotiuk.grpc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.drevotiuk.grpc.proto.GetUserRequest;
+import com.drevotiuk.grpc.proto.GetUsersRequest;
+import com.drevotiuk.grpc.proto.GetUsersResponse;
+import com.drevotiuk.grpc.proto.StreamUsersRequest;
+import com.drevotiuk.grpc.proto.User;
+import com.drevotiuk.grpc.proto.UserChange;
+import com.drevotiuk.model.UserPrincipal;
+import com.drevotiuk.model.UserView;
+import com.drevotiuk.model.exception.UserNotFoundException;
+import com.drevotiuk.service.UserService;
+import com.google.protobuf.Timestamp;
+
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+
+@ExtendWith(MockitoExtension.class)
+public class UserLookupGrpcServiceTest {
+  @Mock
+  private UserService userService;
+  @Mock
+  private StreamObserver<User> userObserver;
+  @Mock
+  private StreamObserver<GetUsersResponse> usersObserver;
+  @Mock
+  private ServerCallStreamObserver<UserChange> changeObserver;
+  private UserLookupGrpcService underTest;
+
+  @BeforeEach
+  void setUp() {
+    underTest = new UserLookupGrpcService(userService);
+  }
+
+  @Test
+  void shouldGetUser() {
+    // given
+    UserPrincipal principal = viewPrincipal("Doe");
+    given(userService.lookup(principal.getId())).willReturn(new UserView(principal));
+
+    // when
+    underTest.getUser(GetUserRequest.newBuilder().setId(principal.getId().toHexString()).build(), userObserver);
+
+    // then
+    ArgumentCaptor<User> userCaptor = ArgumentCaptor.forClass(User.class);
+    verify(userObserver).onNext(userCaptor.capture());
+    verify(userObserver).onCompleted();
+    User user = userCaptor.getValue();
+    assertThat(user.getId()).isEqualTo(principal.getId().toHexString());
+    assertThat(user.getLastName()).isEqualTo("Doe");
+    assertThat(user.getEmail()).isEqualTo("doe@mail.com");
+    assertThat(user.getVersion()).isEqualTo(3L);
+  }
+
+  @Test
+  void shouldFailWithNotFound_whenUserDoesNotExist() {
+    // given
+    ObjectId userId = ObjectId.get();
+    given(userService.lookup(userId)).willThrow(new UserNotFoundException("User not found"));
+
+    // when
+    underTest.getUser(GetUserRequest.newBuilder().setId(userId.toHexString()).build(), userObserver);
+
+    // then
+    ArgumentCaptor<Throwable> errorCaptor = ArgumentCaptor.forClass(Throwable.class);
+    verify(userObserver).onError(errorCaptor.capture());
+    assertThat(Status.fromThrowable(errorCaptor.getValue()).getCode()).isEqualTo(Status.Code.NOT_FOUND);
+    verify(userObserver, never()).onNext(any());
+  }
+
+  @Test
+  void shouldFailWithInvalidArgument_whenUserIdIsInvalid() {
+    // when
+    underTest.getUser(GetUserRequest.newBuilder().setId("invalid").build(), userObserver);
+
+    // then
+    ArgumentCaptor<Throwable> errorCaptor = ArgumentCaptor.forClass(Throwable.class);
+    verify(userObserver).onError(errorCaptor.capture());
+    assertThat(Status.fromThrowable(errorCaptor.getValue()).getCode()).isEqualTo(Status.Code.INVALID_ARGUMENT);
+    verifyNoInteractions(userService);
+  }
+
+  @Test
+  void shouldGetFoundUsersOnly() {
+    // given
+    UserPrincipal found = viewPrincipal("Doe");
+    ObjectId missing = ObjectId.get();
+    given(userService.lookupAll(Set.of(found.getId(), missing)))
+        .willReturn(Map.of(found.getId(), new UserView(found)));
+    GetUsersRequest request = GetUsersRequest.newBuilder()
+        .addIds(found.getId().toHexString())
+        .addIds("invalid")
+        .addIds(missing.toHexString())
+        .build();
+
+    // when
+    underTest.getUsers(request, usersObserver);
+
+    // then
+    ArgumentCaptor<GetUsersResponse> responseCaptor = ArgumentCaptor.forClass(GetUsersResponse.class);
+    verify(usersObserver).onNext(responseCaptor.capture());
+    verify(usersObserver).onCompleted();
+    Map<String, User> users = responseCaptor.getValue().getUsersMap();
+    assertThat(users).containsOnlyKeys(found.getId().toHexString());
+    assertThat(users.get(found.getId().toHexString()).getLastName()).isEqualTo("Doe");
+  }
+
+  @Test
+  void shouldStreamChangedUsers() {
+    // given
+    LocalDateTime since = LocalDateTime.of(2024, 5, 1, 12, 0);
+    UserPrincipal first = viewPrincipal("Doe");
+    first.setUpdatedAt(since);
+    UserPrincipal second = viewPrincipal("Dowee");
+    second.setUpdatedAt(since.plusMinutes(5));
+    given(changeObserver.isReady()).willReturn(true);
+    given(userService.streamChangesSince(since)).willReturn(Stream.of(first, second));
+
+    // when
+    underTest.streamUsers(StreamUsersRequest.newBuilder().setChangedSince(toTimestamp(since)).build(),
+        changeObserver);
+
+    // then
+    ArgumentCaptor<UserChange> changeCaptor = ArgumentCaptor.forClass(UserChange.class);
+    verify(changeObserver, times(2)).onNext(changeCaptor.capture());
+    verify(changeObserver).onCompleted();
+    assertThat(changeCaptor.getAllValues())
+        .extracting(change -> change.getUser().getLastName())
+        .containsExactly("Doe", "Dowee");
+    assertThat(changeCaptor.getAllValues().get(1).getUpdatedAt()).isEqualTo(toTimestamp(since.plusMinutes(5)));
+  }
+
+  @Test
+  void shouldStreamDeletedUserAsTombstone() {
+    // given
+    LocalDateTime deletedAt = LocalDateTime.of(2024, 5, 1, 12, 0);
+    UserPrincipal deleted = viewPrincipal("Doe");
+    deleted.setVersion(4L);
+    deleted.setUpdatedAt(deletedAt);
+    deleted.setDeletedAt(deletedAt);
+    given(changeObserver.isReady()).willReturn(true);
+    given(userService.streamChangesSince(any())).willReturn(Stream.of(deleted));
+
+    // when
+    underTest.streamUsers(StreamUsersRequest.getDefaultInstance(), changeObserver);
+
+    // then
+    ArgumentCaptor<UserChange> changeCaptor = ArgumentCaptor.forClass(UserChange.class);
+    verify(changeObserver).onNext(changeCaptor.capture());
+    UserChange change = changeCaptor.getValue();
+    assertThat(change.getDeleted()).isTrue();
+    assertThat(change.getUser()).isEqualTo(User.newBuilder()
+        .setId(deleted.getId().toHexString())
+        .setVersion(4L)
+        .build());
+    assertThat(change.getUpdatedAt()).isEqualTo(toTimestamp(deletedAt));
+  }
+
+  @Test
+  void shouldResumeStreaming_whenClientBecomesReady() {
+    // given
+    UserPrincipal principal = viewPrincipal("Doe");
+    principal.setUpdatedAt(LocalDateTime.now());
+    given(changeObserver.isReady()).willReturn(false, true);
+    given(userService.streamChangesSince(any())).willReturn(Stream.of(principal));
+    underTest.streamUsers(StreamUsersRequest.getDefaultInstance(), changeObserver);
+    verify(changeObserver, never()).onNext(any());
+    ArgumentCaptor<Runnable> onReadyCaptor = ArgumentCaptor.forClass(Runnable.class);
+    verify(changeObserver).setOnReadyHandler(onReadyCaptor.capture());
+
+    // when
+    onReadyCaptor.getValue().run();
+
+    // then
+    verify(changeObserver).onNext(any());
+    verify(changeObserver).onCompleted();
+  }
+
+  @Test
+  void shouldCloseCursor_whenClientCancels() {
+    // given
+    UserPrincipal principal = viewPrincipal("Doe");
+    principal.setUpdatedAt(LocalDateTime.now());
+    AtomicBoolean cursorClosed = new AtomicBoolean();
+    given(changeObserver.isReady()).willReturn(false);
+    given(userService.streamChangesSince(any()))
+        .willReturn(Stream.of(principal).onClose(() -> cursorClosed.set(true)));
+    underTest.streamUsers(StreamUsersRequest.getDefaultInstance(), changeObserver);
+    ArgumentCaptor<Runnable> onCancelCaptor = ArgumentCaptor.forClass(Runnable.class);
+    ArgumentCaptor<Runnable> onReadyCaptor = ArgumentCaptor.forClass(Runnable.class);
+    verify(changeObserver).setOnCancelHandler(onCancelCaptor.capture());
+    verify(changeObserver).setOnReadyHandler(onReadyCaptor.capture());
+
+    // when
+    onCancelCaptor.getValue().run();
+    onReadyCaptor.getValue().run();
+
+    // then
+    assertThat(cursorClosed).isTrue();
+    verify(changeObserver, never()).onNext(any());
+    verify(changeObserver, never()).onCompleted();
+  }
+
+  private UserPrincipal viewPrincipal(String lastName) {
+    UserPrincipal principal = new UserPrincipal();
+    principal.setId(ObjectId.get());
+    principal.setFirstName("John");
+    principal.setLastName(lastName);
+    principal.setEmail(lastName.toLowerCase() + "@mail.com");
+    principal.setDateOfBirth(LocalDate.of(1990, 1, 31));
+    principal.setVersion(3L);
+    return principal;
+  }
+
+  private Timestamp toTimestamp(LocalDateTime dateTime) {
+    return Timestamp.newBuilder()
+        .setSeconds(dateTime.atZone(ZoneId.systemDefault()).toEpochSecond())
+        .setNanos(dateTime.getNano())
+        .build();
+  }
+}
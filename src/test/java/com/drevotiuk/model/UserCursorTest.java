@@ -0,0 +1,63 @@
+package com.drevotiuk.model;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import com.drevotiuk.model.exception.InvalidCursorException;
+
+public class UserCursorTest {
+  @Test
+  void shouldRoundTripMissingValue() {
+    // given
+    ObjectId id = ObjectId.get();
+
+    // when
+    UserCursor decoded = UserCursor.decode(new UserCursor(null, id).encode());
+
+    // then
+    assertThat(decoded.getValue()).isNull();
+    assertThat(decoded.getId()).isEqualTo(id);
+  }
+
+  @Test
+  void shouldRoundTripEmptyValue() {
+    // given
+    ObjectId id = ObjectId.get();
+
+    // when
+    UserCursor decoded = UserCursor.decode(new UserCursor("", id).encode());
+
+    // then
+    assertThat(decoded.getValue()).isEmpty();
+    assertThat(decoded.getId()).isEqualTo(id);
+  }
+
+  @Test
+  void shouldRoundTripValueStartingWithMarker() {
+    // given
+    ObjectId id = ObjectId.get();
+
+    // when
+    UserCursor decoded = UserCursor.decode(new UserCursor("-Doe", id).encode());
+
+    // then
+    assertThat(decoded.getValue()).isEqualTo("-Doe");
+  }
+
+  @Test
+  void shouldThrow_whenMarkerIsMissing() {
+    // given
+    String encoded = Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(ObjectId.get().toHexString().getBytes(StandardCharsets.UTF_8));
+
+    // when
+    // then
+    assertThatThrownBy(() -> UserCursor.decode(encoded))
+        .isInstanceOf(InvalidCursorException.class);
+  }
+}
@@ -0,0 +1,219 @@
+package com.drevotiuk.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.BDDMockito.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import com.drevotiuk.model.UserBulkAction;
+import com.drevotiuk.model.UserBulkStatus;
+import com.drevotiuk.model.UserCursor;
+import com.drevotiuk.model.UserPageRequest;
+import com.drevotiuk.model.UserPrincipal;
+import com.drevotiuk.model.UserSortField;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+
+@ExtendWith(MockitoExtension.class)
+public class UserRepositoryImplTest {
+  @Mock
+  private MongoTemplate mongoTemplate;
+  private UserRepositoryImpl underTest;
+
+  @BeforeEach
+  void setUp() {
+    underTest = new UserRepositoryImpl(mongoTemplate);
+  }
+
+  @Test
+  void shouldPageAfterMissingLastName_byIdThenByAnyLastName() {
+    // given
+    ObjectId afterId = ObjectId.get();
+    UserPageRequest request = new UserPageRequest();
+    request.setSort(UserSortField.LAST_NAME);
+    request.setDirection(Sort.Direction.ASC);
+    given(mongoTemplate.find(any(Query.class), eq(UserPrincipal.class))).willReturn(List.of());
+
+    // when
+    underTest.findViewPage(request, new UserCursor(null, afterId), 10);
+
+    // then
+    assertThat(keysetOf(capturedQuery())).isEqualTo(new Document("$or", List.of(
+        new Document("lastName", null).append("_id", new Document("$gt", afterId)),
+        new Document("lastName", new Document("$ne", null)))));
+  }
+
+  @Test
+  void shouldPageDescendingAfterLastName_includingMissingLastNames() {
+    // given
+    ObjectId afterId = ObjectId.get();
+    UserPageRequest request = new UserPageRequest();
+    request.setSort(UserSortField.LAST_NAME);
+    request.setDirection(Sort.Direction.DESC);
+    given(mongoTemplate.find(any(Query.class), eq(UserPrincipal.class))).willReturn(List.of());
+
+    // when
+    underTest.findViewPage(request, new UserCursor("Doe", afterId), 10);
+
+    // then
+    assertThat(keysetOf(capturedQuery())).isEqualTo(new Document("$or", List.of(
+        new Document("lastName", new Document("$lt", "Doe")),
+        new Document("lastName", "Doe").append("_id", new Document("$lt", afterId)),
+        new Document("lastName", null))));
+  }
+
+  @Test
+  void shouldPageAscendingAfterLastName_excludingMissingLastNames() {
+    // given
+    ObjectId afterId = ObjectId.get();
+    UserPageRequest request = new UserPageRequest();
+    request.setSort(UserSortField.LAST_NAME);
+    request.setDirection(Sort.Direction.ASC);
+    given(mongoTemplate.find(any(Query.class), eq(UserPrincipal.class))).willReturn(List.of());
+
+    // when
+    underTest.findViewPage(request, new UserCursor("Doe", afterId), 10);
+
+    // then
+    assertThat(keysetOf(capturedQuery())).isEqualTo(new Document("$or", List.of(
+        new Document("lastName", new Document("$gt", "Doe")),
+        new Document("lastName", "Doe").append("_id", new Document("$gt", afterId)))));
+  }
+
+  @Test
+  void shouldReportNotFound_whenUserWasDeletedBeforeBulkWrite() {
+    // given
+    ObjectId applied = ObjectId.get();
+    ObjectId deleted = ObjectId.get();
+    BulkOperations bulk = mock(BulkOperations.class);
+    BulkWriteResult result = mock(BulkWriteResult.class);
+    given(mongoTemplate.getCollectionName(UserPrincipal.class)).willReturn("users");
+    given(mongoTemplate.find(any(Query.class), eq(Document.class), eq("users")))
+        .willReturn(List.of(new Document("_id", applied), new Document("_id", deleted)))
+        .willReturn(List.of(new Document("_id", applied)));
+    given(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserPrincipal.class)).willReturn(bulk);
+    given(bulk.execute()).willReturn(result);
+    given(result.getMatchedCount()).willReturn(1);
+
+    // when
+    Map<ObjectId, UserBulkStatus> statuses = underTest.applyBulk(List.of(applied, deleted), UserBulkAction.LOCK, null);
+
+    // then
+    assertThat(statuses).containsExactly(
+        entry(applied, UserBulkStatus.APPLIED),
+        entry(deleted, UserBulkStatus.NOT_FOUND));
+  }
+
+  @Test
+  void shouldNotRecheck_whenBulkWriteMatchedEveryUser() {
+    // given
+    ObjectId userId = ObjectId.get();
+    BulkOperations bulk = mock(BulkOperations.class);
+    BulkWriteResult result = mock(BulkWriteResult.class);
+    given(mongoTemplate.getCollectionName(UserPrincipal.class)).willReturn("users");
+    given(mongoTemplate.find(any(Query.class), eq(Document.class), eq("users")))
+        .willReturn(List.of(new Document("_id", userId)));
+    given(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, UserPrincipal.class)).willReturn(bulk);
+    given(bulk.execute()).willReturn(result);
+    given(result.getMatchedCount()).willReturn(1);
+
+    // when
+    Map<ObjectId, UserBulkStatus> statuses = underTest.applyBulk(List.of(userId), UserBulkAction.ENABLE, null);
+
+    // then
+    assertThat(statuses).containsExactly(entry(userId, UserBulkStatus.APPLIED));
+    verify(mongoTemplate, times(1)).find(any(Query.class), eq(Document.class), eq("users"));
+  }
+
+  @Test
+  void shouldBackfillUpdateTimes_withoutIncrementingVersions() {
+    // given
+    UpdateResult result = mock(UpdateResult.class);
+    given(mongoTemplate.getCollectionName(UserPrincipal.class)).willReturn("users");
+    given(mongoTemplate.updateMulti(any(Query.class), any(UpdateDefinition.class), eq("users"))).willReturn(result);
+    given(result.getModifiedCount()).willReturn(2L);
+
+    // when
+    long updated = underTest.backfillUpdateTimes();
+
+    // then
+    assertThat(updated).isEqualTo(2);
+    ArgumentCaptor<UpdateDefinition> updateCaptor = ArgumentCaptor.forClass(UpdateDefinition.class);
+    verify(mongoTemplate).updateMulti(any(Query.class), updateCaptor.capture(), eq("users"));
+    Document update = updateCaptor.getValue().getUpdateObject();
+    assertThat(update.keySet()).containsExactly("$set");
+    assertThat(update.get("$set", Document.class).keySet()).containsExactly("updatedAt");
+    assertThat(updateCaptor.getValue().modifies("version")).isFalse();
+    verify(mongoTemplate, never()).updateMulti(any(Query.class), any(UpdateDefinition.class), eq(UserPrincipal.class));
+  }
+
+  @Test
+  void shouldClaimOnlyClaimableCandidates_withoutIncrementingVersions() {
+    // given
+    ObjectId userId = ObjectId.get();
+    UserPrincipal claimed = new UserPrincipal();
+    claimed.setId(userId);
+    given(mongoTemplate.getCollectionName(UserPrincipal.class)).willReturn("users");
+    given(mongoTemplate.find(any(Query.class), eq(Document.class), eq("users")))
+        .willReturn(List.of(new Document("_id", userId)));
+    given(mongoTemplate.find(any(Query.class), eq(UserPrincipal.class))).willReturn(List.of(claimed));
+
+    // when
+    List<UserPrincipal> batch = underTest.claimDeleted("claim-1", 2, Duration.ofMinutes(10));
+
+    // then
+    assertThat(batch).containsExactly(claimed);
+    ArgumentCaptor<Query> claimCaptor = ArgumentCaptor.forClass(Query.class);
+    ArgumentCaptor<UpdateDefinition> updateCaptor = ArgumentCaptor.forClass(UpdateDefinition.class);
+    verify(mongoTemplate).updateMulti(claimCaptor.capture(), updateCaptor.capture(), eq("users"));
+    assertThat(claimCaptor.getValue().getQueryObject().toString()).contains("purgeClaimedAt", userId.toHexString());
+    assertThat(updateCaptor.getValue().getUpdateObject().get("$set", Document.class))
+        .containsEntry("purgeClaim", "claim-1")
+        .doesNotContainKey("version");
+    assertThat(updateCaptor.getValue().getUpdateObject()).doesNotContainKey("$inc");
+    assertThat(capturedQuery().getQueryObject()).containsEntry("purgeClaim", "claim-1");
+  }
+
+  @Test
+  void shouldNotClaim_whenNoDeletedUserIsClaimable() {
+    // given
+    given(mongoTemplate.getCollectionName(UserPrincipal.class)).willReturn("users");
+    given(mongoTemplate.find(any(Query.class), eq(Document.class), eq("users"))).willReturn(List.of());
+
+    // when
+    List<UserPrincipal> batch = underTest.claimDeleted("claim-1", 2, Duration.ofMinutes(10));
+
+    // then
+    assertThat(batch).isEmpty();
+    verify(mongoTemplate, never()).updateMulti(any(Query.class), any(UpdateDefinition.class), anyString());
+  }
+
+  private Query capturedQuery() {
+    ArgumentCaptor<Query> queryCaptor = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate).find(queryCaptor.capture(), eq(UserPrincipal.class));
+    return queryCaptor.getValue();
+  }
+
+  @SuppressWarnings("unchecked")
+  private Document keysetOf(Query query) {
+    List<Document> conditions = (List<Document>) query.getQueryObject().get("$and");
+    return conditions.get(conditions.size() - 1);
+  }
+}
@@ -6,6 +6,8 @@ import static org.assertj.core.api.Assertions.*;
 import java.lang.reflect.Field;
 import java.time.LocalDate;
 import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.bson.types.ObjectId;
 import org.junit.jupiter.api.BeforeEach;
@@ -26,9 +28,11 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import com.drevotiuk.model.EmailVerificationDetails;
 import com.drevotiuk.model.LoginRequest;
 import com.drevotiuk.model.RegisterRequest;
+import com.drevotiuk.model.UserEventType;
 import com.drevotiuk.model.UserHeaders;
 import com.drevotiuk.model.UserPrincipal;
 import com.drevotiuk.model.UserRole;
+import com.drevotiuk.model.UserView;
 import com.drevotiuk.model.exception.UserExistsException;
 import com.drevotiuk.repository.UserRepository;
 
@@ -46,12 +50,16 @@ public class AuthServiceTest {
   private AuthenticationManager authenticationManager;
   @Mock
   private RabbitTemplate rabbitTemplate;
+  @Mock
+  private UserStatsService userStatsService;
+  @Mock
+  private UserEventPublisher userEventPublisher;
   private AuthService underTest;
 
   @BeforeEach
   void setUp() {
     underTest = new AuthService(userRepository, jwtService, confirmationTokenService, passwordEncoder,
-        authenticationManager, rabbitTemplate);
+        authenticationManager, rabbitTemplate, userStatsService, userEventPublisher, Runnable::run, Runnable::run);
   }
 
   @Test
@@ -78,7 +86,7 @@ public class AuthServiceTest {
     setDeclaredField(underTest, "routingKey", "test routing key");
 
     // when
-    String result = underTest.register(request);
+    String result = underTest.register(request).join();
 
     // then
     assertThat(result).isEqualTo("Verification link was sent to email johndoe@mail.com");
@@ -98,6 +106,8 @@ public class AuthServiceTest {
         "test exchange",
         "test routing key",
         details);
+    verify(userStatsService).userRegistered(UserRole.USER);
+    verify(userEventPublisher).publish(UserEventType.CREATED, expectedUser.getId(), new UserView(expectedUser));
   }
 
   @Test
@@ -114,8 +124,9 @@ public class AuthServiceTest {
 
     // when
     // then
-    assertThatThrownBy(() -> underTest.register(request))
-        .isInstanceOf(UserExistsException.class)
+    assertThatThrownBy(() -> underTest.register(request).join())
+        .isInstanceOf(CompletionException.class)
+        .hasCauseInstanceOf(UserExistsException.class)
         .hasMessageContaining("User already exists");
 
     verify(passwordEncoder, never()).encode(anyString());
@@ -126,13 +137,35 @@ public class AuthServiceTest {
         any(EmailVerificationDetails.class));
   }
 
+  @Test
+  void shouldRejectRegistration_whenExecutorIsSaturated() {
+    // given
+    underTest = new AuthService(userRepository, jwtService, confirmationTokenService, passwordEncoder,
+        authenticationManager, rabbitTemplate, userStatsService, userEventPublisher, Runnable::run,
+        task -> {
+          throw new RejectedExecutionException("queue full");
+        });
+    RegisterRequest request = new RegisterRequest(
+        "John",
+        "Doe",
+        LocalDate.now(),
+        "johndoe@mail.com",
+        "qwerty123");
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.register(request))
+        .isInstanceOf(RejectedExecutionException.class);
+    verifyNoInteractions(userRepository, passwordEncoder);
+  }
+
   @Test
   void shouldLoginUserBasedOnRequest() {
     // given
     LoginRequest request = new LoginRequest("johndoe@mail.com", "qwerty123");
 
     // when
-    underTest.login(request);
+    underTest.login(request).join();
 
     // then
     verify(authenticationManager).authenticate(
@@ -150,8 +183,9 @@ public class AuthServiceTest {
 
     // when
     // then
-    assertThatThrownBy(() -> underTest.login(request))
-        .isInstanceOf(BadCredentialsException.class);
+    assertThatThrownBy(() -> underTest.login(request).join())
+        .isInstanceOf(CompletionException.class)
+        .hasCauseInstanceOf(BadCredentialsException.class);
 
     verify(jwtService, never()).generateToken("johndoe@mail.com");
   }
@@ -174,7 +208,10 @@ public class AuthServiceTest {
         "qwerty123",
         UserRole.USER,
         false,
-        true);
+        true,
+        0L,
+        null,
+        null);
 
     given(userRepository.findByEmail("johndoe@mail.com")).willReturn(Optional.of(user));
     setDeclaredField(underTest, "userIdHeader", "Test UserID Header");
@@ -189,6 +226,31 @@ public class AuthServiceTest {
         .containsEntry("Test UserRole Header", user.getRole().name());
   }
 
+  @Test
+  void shouldAuthorizeWithAuthenticatedPrincipalWithoutLookup() throws NoSuchFieldException, IllegalAccessException {
+    // given
+    UserPrincipal user = new UserPrincipal();
+    user.setId(ObjectId.get());
+    user.setEmail("johndoe@mail.com");
+    user.setRole(UserRole.ADMIN);
+    SecurityContext securityContext = mock(SecurityContext.class);
+    Authentication authentication = mock(Authentication.class);
+    given(securityContext.getAuthentication()).willReturn(authentication);
+    SecurityContextHolder.setContext(securityContext);
+    given(authentication.getPrincipal()).willReturn(user);
+    setDeclaredField(underTest, "userIdHeader", "Test UserID Header");
+    setDeclaredField(underTest, "userRoleHeader", "Test UserRole Header");
+
+    // when
+    UserHeaders result = underTest.authorize();
+
+    // then
+    assertThat(result.getHeaders())
+        .containsEntry("Test UserID Header", user.getId().toString())
+        .containsEntry("Test UserRole Header", "ADMIN");
+    verifyNoInteractions(userRepository);
+  }
+
   private void setDeclaredField(Object target, String fieldName, Object value)
       throws NoSuchFieldException, IllegalAccessException {
     Field field = target.getClass().getDeclaredField(fieldName);
@@ -18,8 +18,11 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import com.drevotiuk.model.ConfirmationToken;
+import com.drevotiuk.model.UserEventType;
 import com.drevotiuk.model.UserPrincipal;
+import com.drevotiuk.model.UserView;
 import com.drevotiuk.model.exception.ConfirmationTokenException;
+import com.drevotiuk.model.exception.UserNotFoundException;
 import com.drevotiuk.repository.ConfirmationTokenRepository;
 import com.drevotiuk.repository.UserRepository;
 
@@ -29,11 +32,18 @@ public class ConfirmationTokenServiceTest {
   private ConfirmationTokenRepository confirmationTokenRepository;
   @Mock
   private UserRepository userRepository;
+  @Mock
+  private UserViewCache userViewCache;
+  @Mock
+  private UserStatsService userStatsService;
+  @Mock
+  private UserEventPublisher userEventPublisher;
   private ConfirmationTokenService underTest;
 
   @BeforeEach
   void setUp() throws NoSuchFieldException, IllegalAccessException {
-    underTest = new ConfirmationTokenService(confirmationTokenRepository, userRepository);
+    underTest = new ConfirmationTokenService(confirmationTokenRepository, userRepository, userViewCache,
+        userStatsService, userEventPublisher);
     setDeclaredField(underTest, "tokenExpirationMinutes", 99);
   }
 
@@ -67,7 +77,9 @@ public class ConfirmationTokenServiceTest {
         false,
         "testmail@mail.com");
     given(confirmationTokenRepository.findByToken(token)).willReturn(Optional.of(confirmationToken));
-    given(userRepository.findByEmail(confirmationToken.getUserEmail())).willReturn(Optional.of(new UserPrincipal()));
+    UserPrincipal enabledUser = new UserPrincipal();
+    enabledUser.setId(ObjectId.get());
+    given(userRepository.enableByEmail(confirmationToken.getUserEmail())).willReturn(Optional.of(enabledUser));
 
     // when
     String result = underTest.confirm(token);
@@ -82,12 +94,56 @@ public class ConfirmationTokenServiceTest {
     ConfirmationToken capturedToken = confirmationTokenArgumentCaptor.getValue();
     confirmationToken.setActivated(true);
     assertThat(capturedToken).isEqualTo(confirmationToken);
+    verify(userRepository, never()).save(any());
+    verify(userViewCache).evict(enabledUser.getId());
+    verify(userStatsService).userEnabled();
+    verify(userEventPublisher).publish(UserEventType.ENABLED, enabledUser.getId(), new UserView(enabledUser));
+  }
+
+  @Test
+  void shouldNotCountUserAgain_whenUserIsAlreadyEnabled() {
+    // given
+    String token = UUID.randomUUID().toString();
+    ConfirmationToken confirmationToken = new ConfirmationToken(
+        ObjectId.get(),
+        token,
+        LocalDateTime.now(),
+        LocalDateTime.now().plusMinutes(99),
+        false,
+        "testmail@mail.com");
+    given(confirmationTokenRepository.findByToken(token)).willReturn(Optional.of(confirmationToken));
+    given(userRepository.enableByEmail("testmail@mail.com")).willReturn(Optional.empty());
+    given(userRepository.existsByEmail("testmail@mail.com")).willReturn(true);
+
+    // when
+    String result = underTest.confirm(token);
 
-    ArgumentCaptor<UserPrincipal> userPrincipalArgumentCaptor = ArgumentCaptor.forClass(UserPrincipal.class);
-    verify(userRepository).save(userPrincipalArgumentCaptor.capture());
+    // then
+    assertThat(result).isEqualTo("Email verified successfully");
+    verify(userStatsService, never()).userEnabled();
+    verifyNoInteractions(userViewCache, userEventPublisher);
+  }
 
-    UserPrincipal capturedUser = userPrincipalArgumentCaptor.getValue();
-    assertThat(capturedUser.isEnabled()).isTrue();
+  @Test
+  void shouldThrow_whenUserOfConfirmationTokenDoesNotExist() {
+    // given
+    String token = UUID.randomUUID().toString();
+    ConfirmationToken confirmationToken = new ConfirmationToken(
+        ObjectId.get(),
+        token,
+        LocalDateTime.now(),
+        LocalDateTime.now().plusMinutes(99),
+        false,
+        "testmail@mail.com");
+    given(confirmationTokenRepository.findByToken(token)).willReturn(Optional.of(confirmationToken));
+    given(userRepository.enableByEmail("testmail@mail.com")).willReturn(Optional.empty());
+    given(userRepository.existsByEmail("testmail@mail.com")).willReturn(false);
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.confirm(token))
+        .isInstanceOf(UserNotFoundException.class);
+    verify(userStatsService, never()).userEnabled();
   }
 
   @Test
@@ -5,6 +5,7 @@ import static org.assertj.core.api.Assertions.*;
 
 import java.lang.reflect.Field;
 import java.sql.Date;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Base64;
 import java.util.HashMap;
@@ -22,6 +23,7 @@ import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @ExtendWith(MockitoExtension.class)
 public class JwtServiceTest {
@@ -32,8 +34,9 @@ public class JwtServiceTest {
   private JwtService underTest;
 
   @BeforeEach
-  void setUp() {
-    underTest = new JwtService(kmsUtils, keyManagementService);
+  void setUp() throws NoSuchFieldException, IllegalAccessException {
+    underTest = new JwtService(kmsUtils, keyManagementService, new SimpleMeterRegistry());
+    setDeclaredField(underTest, "keyTtl", Duration.ofMinutes(10));
   }
 
   @Test
@@ -60,7 +63,7 @@ public class JwtServiceTest {
   }
 
   @Test
-  void shouldExtractUsername() {
+  void shouldParseToken() {
     // given
     Map<String, Object> claims = new HashMap<>();
     String jwt = Jwts.builder()
@@ -75,14 +78,14 @@ public class JwtServiceTest {
         .willReturn(Base64.getEncoder().encode("some-really-strong-decrypted-key".getBytes()));
 
     // when
-    String username = underTest.extractUsername(jwt);
+    Claims parsed = underTest.parseToken(jwt);
 
     // then
-    assertThat(username).isEqualTo("test username");
+    assertThat(parsed.getSubject()).isEqualTo("test username");
   }
 
   @Test
-  void shouldThrow_whenSecretKeyIsInvalidInUsernameExtraction() {
+  void shouldThrow_whenSecretKeyIsInvalidInTokenParsing() {
     // given
     Map<String, Object> claims = new HashMap<>();
     String jwt = Jwts.builder()
@@ -98,7 +101,7 @@ public class JwtServiceTest {
 
     // when
     // then
-    assertThatThrownBy(() -> underTest.extractUsername(jwt))
+    assertThatThrownBy(() -> underTest.parseToken(jwt))
         .isInstanceOf(SignatureException.class)
         .hasMessageContaining("JWT signature");
   }
@@ -121,12 +124,77 @@ public class JwtServiceTest {
     given(mockUserDetails.getUsername()).willReturn("test username");
 
     // when
-    boolean validated = underTest.validateToken(jwt, mockUserDetails);
+    boolean validated = underTest.validateToken(underTest.parseToken(jwt), mockUserDetails);
 
     // then
     assertThat(validated).isTrue();
   }
 
+  @Test
+  void shouldDecryptSecretKeyOnlyOnce() {
+    // given
+    String jwt = Jwts.builder()
+        .subject("test username")
+        .expiration(new Date(System.currentTimeMillis() + 999999))
+        .signWith(Keys.hmacShaKeyFor("some-really-strong-decrypted-key".getBytes()))
+        .compact();
+    given(keyManagementService.getEncryptedSecretKey()).willReturn("some-encrypted-key".getBytes());
+    given(kmsUtils.decrypt("some-encrypted-key".getBytes()))
+        .willReturn(Base64.getEncoder().encode("some-really-strong-decrypted-key".getBytes()));
+    UserDetails mockUserDetails = mock(UserDetails.class);
+    given(mockUserDetails.getUsername()).willReturn("test username");
+
+    // when
+    underTest.validateToken(underTest.parseToken(jwt), mockUserDetails);
+    underTest.validateToken(underTest.parseToken(jwt), mockUserDetails);
+
+    // then
+    verify(keyManagementService, times(1)).getEncryptedSecretKey();
+    verify(kmsUtils, times(1)).decrypt(any());
+  }
+
+  @Test
+  void shouldReloadSecretKey_whenTtlExpired() throws NoSuchFieldException, IllegalAccessException {
+    // given
+    setDeclaredField(underTest, "keyTtl", Duration.ZERO);
+    String jwt = Jwts.builder()
+        .subject("test username")
+        .expiration(new Date(System.currentTimeMillis() + 999999))
+        .signWith(Keys.hmacShaKeyFor("some-really-strong-decrypted-key".getBytes()))
+        .compact();
+    given(keyManagementService.getEncryptedSecretKey()).willReturn("some-encrypted-key".getBytes());
+    given(kmsUtils.decrypt("some-encrypted-key".getBytes()))
+        .willReturn(Base64.getEncoder().encode("some-really-strong-decrypted-key".getBytes()));
+
+    // when
+    underTest.parseToken(jwt);
+    underTest.parseToken(jwt);
+
+    // then
+    verify(keyManagementService, times(2)).getEncryptedSecretKey();
+    verify(kmsUtils, times(2)).decrypt(any());
+  }
+
+  @Test
+  void shouldVerifyWithChangedSecretKey_afterTtlExpired() throws NoSuchFieldException, IllegalAccessException {
+    // given
+    setDeclaredField(underTest, "keyTtl", Duration.ZERO);
+    String jwt = Jwts.builder()
+        .subject("test username")
+        .expiration(new Date(System.currentTimeMillis() + 999999))
+        .signWith(Keys.hmacShaKeyFor("another-really-strong-decrypted-key".getBytes()))
+        .compact();
+    given(keyManagementService.getEncryptedSecretKey()).willReturn("some-encrypted-key".getBytes());
+    given(kmsUtils.decrypt("some-encrypted-key".getBytes()))
+        .willReturn(Base64.getEncoder().encode("some-really-strong-decrypted-key".getBytes()))
+        .willReturn(Base64.getEncoder().encode("another-really-strong-decrypted-key".getBytes()));
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.parseToken(jwt)).isInstanceOf(SignatureException.class);
+    assertThat(underTest.parseToken(jwt).getSubject()).isEqualTo("test username");
+  }
+
   @Test
   void shouldNotValidate_whenUsernameDoesNotMatch() {
     // given
@@ -145,7 +213,7 @@ public class JwtServiceTest {
     given(mockUserDetails.getUsername()).willReturn("some other usename");
 
     // when
-    boolean validated = underTest.validateToken(jwt, mockUserDetails);
+    boolean validated = underTest.validateToken(underTest.parseToken(jwt), mockUserDetails);
 
     // then
     assertThat(validated).isFalse();
@@ -165,11 +233,10 @@ public class JwtServiceTest {
     given(keyManagementService.getEncryptedSecretKey()).willReturn("some-encrypted-key".getBytes());
     given(kmsUtils.decrypt("some-encrypted-key".getBytes()))
         .willReturn(Base64.getEncoder().encode("some-really-strong-decrypted-key".getBytes()));
-    UserDetails mockUserDetails = mock(UserDetails.class);
 
     // when
     // then
-    assertThatThrownBy(() -> underTest.validateToken(jwt, mockUserDetails))
+    assertThatThrownBy(() -> underTest.parseToken(jwt))
         .isInstanceOf(ExpiredJwtException.class)
         .hasMessageContaining("JWT expired");
   }
@@ -188,15 +255,31 @@ public class JwtServiceTest {
     given(keyManagementService.getEncryptedSecretKey()).willReturn("some-encrypted-key".getBytes());
     given(kmsUtils.decrypt("some-encrypted-key".getBytes()))
         .willReturn(Base64.getEncoder().encode("INVALID very strong 256bit secret key".getBytes()));
-    UserDetails mockUserDetails = mock(UserDetails.class);
 
     // when
     // then
-    assertThatThrownBy(() -> underTest.validateToken(jwt, mockUserDetails))
+    assertThatThrownBy(() -> underTest.parseToken(jwt))
         .isInstanceOf(SignatureException.class)
         .hasMessageContaining("JWT signature");
   }
 
+  @Test
+  void shouldNotValidate_whenClaimsAreExpired() {
+    // given
+    Claims claims = Jwts.claims()
+        .subject("test username")
+        .expiration(new Date(System.currentTimeMillis() - 100))
+        .build();
+    UserDetails mockUserDetails = mock(UserDetails.class);
+
+    // when
+    boolean validated = underTest.validateToken(claims, mockUserDetails);
+
+    // then
+    assertThat(validated).isFalse();
+    verifyNoInteractions(keyManagementService, kmsUtils);
+  }
+
   private void setDeclaredField(Object target, String fieldName, Object value)
       throws NoSuchFieldException, IllegalAccessException {
     Field field = target.getClass().getDeclaredField(fieldName);
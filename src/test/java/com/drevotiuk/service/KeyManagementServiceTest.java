@@ -13,6 +13,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
 
 import com.drevotiuk.model.JwtSecretKey;
 import com.drevotiuk.model.exception.InvalidAlgorithmException;
@@ -44,7 +45,7 @@ public class KeyManagementServiceTest {
     // then
     assertThat(result).isEqualTo(jwtSecretKey.getEncryptedKey());
     verify(kmsUtils, never()).encrypt(any());
-    verify(secretKeyRepository, never()).save(any());
+    verify(secretKeyRepository, never()).insert(any(JwtSecretKey.class));
   }
 
   @Test
@@ -61,12 +62,30 @@ public class KeyManagementServiceTest {
     assertThat(result).isEqualTo("generated-encrypted-key".getBytes());
 
     ArgumentCaptor<JwtSecretKey> jwtSecretKeyArgumentCaptor = ArgumentCaptor.forClass(JwtSecretKey.class);
-    verify(secretKeyRepository).save(jwtSecretKeyArgumentCaptor.capture());
+    verify(secretKeyRepository).insert(jwtSecretKeyArgumentCaptor.capture());
 
     JwtSecretKey capturedKey = jwtSecretKeyArgumentCaptor.getValue();
     assertThat(capturedKey).isEqualTo(new JwtSecretKey("some-id", "generated-encrypted-key".getBytes()));
   }
 
+  @Test
+  void shouldGiveStoredSecretKey_whenKeyWasCreatedConcurrently() throws NoSuchFieldException, IllegalAccessException {
+    // given
+    JwtSecretKey stored = new JwtSecretKey("some-id", "stored-encrypted-key".getBytes());
+    given(secretKeyRepository.findById("some-id"))
+        .willReturn(Optional.empty())
+        .willReturn(Optional.of(stored));
+    setDeclaredField(underTest, "algorithm", "HmacSHA256");
+    given(kmsUtils.encrypt(any())).willReturn("generated-encrypted-key".getBytes());
+    given(secretKeyRepository.insert(any(JwtSecretKey.class))).willThrow(new DuplicateKeyException("E11000"));
+
+    // when
+    byte[] result = underTest.getEncryptedSecretKey();
+
+    // then
+    assertThat(result).isEqualTo("stored-encrypted-key".getBytes());
+  }
+
   @Test
   void shouldThrow_whenAlgorithmIsInvalid() throws NoSuchFieldException, IllegalAccessException {
     // given
@@ -79,7 +98,7 @@ public class KeyManagementServiceTest {
         .isInstanceOf(InvalidAlgorithmException.class)
         .hasMessageContaining("Algorithm not found");
 
-    verify(secretKeyRepository, never()).save(any());
+    verify(secretKeyRepository, never()).insert(any(JwtSecretKey.class));
   }
 
   private void setDeclaredField(Object target, String fieldName, Object value)
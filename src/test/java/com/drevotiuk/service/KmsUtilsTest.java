@@ -14,6 +14,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import com.google.protobuf.ByteString;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 import yandex.cloud.api.kms.v1.SymmetricCryptoServiceGrpc.SymmetricCryptoServiceBlockingStub;
 import yandex.cloud.api.kms.v1.SymmetricCryptoServiceOuterClass.SymmetricDecryptResponse;
 import yandex.cloud.api.kms.v1.SymmetricCryptoServiceOuterClass.SymmetricEncryptResponse;
@@ -26,7 +28,7 @@ public class KmsUtilsTest {
 
   @BeforeEach
   void setUp() throws NoSuchFieldException, IllegalAccessException {
-    underTest = new KmsUtils(symmetricCryptoServiceBlockingStub);
+    underTest = new KmsUtils(symmetricCryptoServiceBlockingStub, new SimpleMeterRegistry());
     setDeclaredField(underTest, "keyId", "some-random-generated-value");
     setDeclaredField(underTest, "aad", "some-stored-aad-context");
   }
@@ -0,0 +1,104 @@
+package com.drevotiuk.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.*;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.drevotiuk.model.UserPrincipal;
+import com.drevotiuk.repository.ConfirmationTokenRepository;
+import com.drevotiuk.repository.UserRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class UserCleanupServiceTest {
+  private static final Duration CLAIM_LEASE = Duration.ofMinutes(10);
+
+  @Mock
+  private UserRepository userRepository;
+  @Mock
+  private ConfirmationTokenRepository tokenRepository;
+  @Mock
+  private UserEventPublisher userEventPublisher;
+  private UserCleanupService underTest;
+
+  @BeforeEach
+  void setUp() throws NoSuchFieldException, IllegalAccessException {
+    underTest = new UserCleanupService(userRepository, tokenRepository, userEventPublisher);
+    setDeclaredField(underTest, "batchSize", 2);
+    setDeclaredField(underTest, "claimLease", CLAIM_LEASE);
+  }
+
+  @Test
+  void shouldPurgeClaimedUsersInBatches() {
+    // given
+    UserPrincipal first = deletedPrincipal("first@mail.com");
+    UserPrincipal second = deletedPrincipal("second@mail.com");
+    UserPrincipal third = deletedPrincipal("third@mail.com");
+    given(userRepository.claimDeleted(anyString(), eq(2), eq(CLAIM_LEASE)))
+        .willReturn(List.of(first, second))
+        .willReturn(List.of(third));
+    given(userRepository.purgeClaimed(anyString())).willReturn(2L).willReturn(1L);
+
+    // when
+    long purged = underTest.purgeDeletedUsers();
+
+    // then
+    assertThat(purged).isEqualTo(3);
+    ArgumentCaptor<String> claimCaptor = ArgumentCaptor.forClass(String.class);
+    verify(userRepository, times(2)).claimDeleted(claimCaptor.capture(), eq(2), eq(CLAIM_LEASE));
+    List<String> claims = claimCaptor.getAllValues();
+    assertThat(claims.get(0)).isNotEqualTo(claims.get(1));
+
+    InOrder inOrder = inOrder(tokenRepository, userEventPublisher, userRepository);
+    inOrder.verify(tokenRepository).deleteByUserEmailIn(List.of("first@mail.com", "second@mail.com"));
+    inOrder.verify(userEventPublisher).publishDeleted(first.getId(), 3L);
+    inOrder.verify(userEventPublisher).publishDeleted(second.getId(), 3L);
+    inOrder.verify(userRepository).purgeClaimed(claims.get(0));
+    inOrder.verify(tokenRepository).deleteByUserEmailIn(List.of("third@mail.com"));
+    inOrder.verify(userEventPublisher).publishDeleted(third.getId(), 3L);
+    inOrder.verify(userRepository).purgeClaimed(claims.get(1));
+  }
+
+  @Test
+  void shouldDoNothing_whenNoDeletedUserIsClaimed() {
+    // given
+    given(userRepository.claimDeleted(anyString(), eq(2), eq(CLAIM_LEASE))).willReturn(List.of());
+
+    // when
+    long purged = underTest.purgeDeletedUsers();
+
+    // then
+    assertThat(purged).isZero();
+    verifyNoInteractions(tokenRepository, userEventPublisher);
+    verify(userRepository, never()).purgeClaimed(any());
+  }
+
+  private UserPrincipal deletedPrincipal(String email) {
+    UserPrincipal principal = new UserPrincipal();
+    principal.setId(ObjectId.get());
+    principal.setEmail(email);
+    principal.setDeletedAt(LocalDateTime.now());
+    principal.setVersion(3L);
+    return principal;
+  }
+
+  private void setDeclaredField(Object target, String fieldName, Object value)
+      throws NoSuchFieldException, IllegalAccessException {
+    Field field = target.getClass().getDeclaredField(fieldName);
+    field.setAccessible(true);
+    field.set(target, value);
+    field.setAccessible(false);
+  }
+}
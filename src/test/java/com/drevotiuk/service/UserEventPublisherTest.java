@@ -0,0 +1,88 @@
+package com.drevotiuk.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.*;
+
+import java.lang.reflect.Field;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import com.drevotiuk.model.UserEvent;
+import com.drevotiuk.model.UserEventType;
+import com.drevotiuk.model.UserView;
+
+@ExtendWith(MockitoExtension.class)
+public class UserEventPublisherTest {
+  @Mock
+  private RabbitTemplate rabbitTemplate;
+  private UserEventPublisher underTest;
+
+  @BeforeEach
+  void setUp() throws NoSuchFieldException, IllegalAccessException {
+    underTest = new UserEventPublisher(rabbitTemplate);
+    setDeclaredField(underTest, "exchange", "test exchange");
+  }
+
+  @Test
+  void shouldPublishVersionedEventWithRoutingKeyOfType() {
+    // given
+    ObjectId userId = ObjectId.get();
+    UserView user = new UserView("John", "Doe");
+    user.setVersion(4L);
+
+    // when
+    underTest.publish(UserEventType.UPDATED, userId, user);
+
+    // then
+    ArgumentCaptor<UserEvent> eventCaptor = ArgumentCaptor.forClass(UserEvent.class);
+    verify(rabbitTemplate).convertAndSend(eq("test exchange"), eq("user.updated"), eventCaptor.capture());
+    UserEvent event = eventCaptor.getValue();
+    assertThat(event.getType()).isEqualTo(UserEventType.UPDATED);
+    assertThat(event.getUserId()).isEqualTo(userId.toString());
+    assertThat(event.getVersion()).isEqualTo(4L);
+    assertThat(event.getUser()).isEqualTo(user);
+    assertThat(event.getOccurredAt()).isNotNull();
+  }
+
+  @Test
+  void shouldNotThrow_whenPublishingChangeFails() {
+    // given
+    willThrow(new AmqpException("broker down"))
+        .given(rabbitTemplate).convertAndSend(anyString(), anyString(), any(Object.class));
+
+    // when
+    underTest.publish(UserEventType.CREATED, ObjectId.get(), new UserView("John", "Doe"));
+
+    // then
+    verify(rabbitTemplate).convertAndSend(eq("test exchange"), eq("user.created"), any(Object.class));
+  }
+
+  @Test
+  void shouldPropagateFailure_whenPublishingDeletionFails() {
+    // given
+    willThrow(new AmqpException("broker down"))
+        .given(rabbitTemplate).convertAndSend(anyString(), anyString(), any(Object.class));
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.publishDeleted(ObjectId.get(), 2L))
+        .isInstanceOf(AmqpException.class);
+  }
+
+  private void setDeclaredField(Object target, String fieldName, Object value)
+      throws NoSuchFieldException, IllegalAccessException {
+    Field field = target.getClass().getDeclaredField(fieldName);
+    field.setAccessible(true);
+    field.set(target, value);
+    field.setAccessible(false);
+  }
+}
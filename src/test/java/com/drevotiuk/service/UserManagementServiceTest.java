@@ -4,41 +4,297 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.BDDMockito.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import org.bson.types.ObjectId;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.drevotiuk.model.UserBulkAction;
+import com.drevotiuk.model.UserBulkRequest;
+import com.drevotiuk.model.UserBulkResult;
+import com.drevotiuk.model.UserBulkStatus;
+import com.drevotiuk.model.UserCursor;
+import com.drevotiuk.model.UserEventType;
+import com.drevotiuk.model.UserPage;
+import com.drevotiuk.model.UserPageRequest;
 import com.drevotiuk.model.UserPrincipal;
 import com.drevotiuk.model.UserRole;
+import com.drevotiuk.model.UserSearchRequest;
+import com.drevotiuk.model.UserSortField;
 import com.drevotiuk.model.UserView;
+import com.drevotiuk.model.exception.InvalidCursorException;
+import com.drevotiuk.model.exception.PreconditionFailedException;
 import com.drevotiuk.model.exception.UserNotFoundException;
+import com.drevotiuk.repository.MigrationRepository;
 import com.drevotiuk.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 @ExtendWith(MockitoExtension.class)
 public class UserManagementServiceTest {
   @Mock
   private UserRepository userRepository;
+  @Mock
+  private MigrationRepository migrationRepository;
+  @Mock
+  private UserViewCache userViewCache;
+  @Mock
+  private UserStatsService userStatsService;
+  @Mock
+  private UserEventPublisher userEventPublisher;
   private UserManagementService underTest;
 
   @BeforeEach
-  void setUp() {
-    underTest = new UserManagementService(userRepository);
+  void setUp() throws NoSuchFieldException, IllegalAccessException {
+    underTest = new UserManagementService(userRepository, migrationRepository, userViewCache, userStatsService,
+        userEventPublisher, new ObjectMapper());
+    setDeclaredField(underTest, "defaultPageSize", 2);
+    setDeclaredField(underTest, "maxPageSize", 3);
+    setDeclaredField(underTest, "searchMaxTime", Duration.ofMillis(300));
+    setDeclaredField(underTest, "bulkBatchSize", 2);
+    setDeclaredField(underTest, "searchBackfillBatchSize", 100);
+    setDeclaredField(underTest, "migrationLease", Duration.ofMinutes(30));
+  }
+
+  @Test
+  void shouldFindFirstPageWithNextCursor() {
+    // given
+    UserPrincipal first = viewPrincipal("Doe");
+    UserPrincipal second = viewPrincipal("Dowee");
+    UserPrincipal third = viewPrincipal("Dowgieh");
+    UserPageRequest request = new UserPageRequest();
+    request.setSort(UserSortField.LAST_NAME);
+    given(userRepository.findViewPage(request, null, 3)).willReturn(List.of(first, second, third));
+
+    // when
+    UserPage result = underTest.findPage(request);
+
+    // then
+    assertThat(result.getUsers()).containsExactly(new UserView(first), new UserView(second));
+    UserCursor next = UserCursor.decode(result.getNextCursor());
+    assertThat(next.getId()).isEqualTo(second.getId());
+    assertThat(next.getValue()).isEqualTo("Dowee");
+    verify(userRepository, never()).findAll();
+  }
+
+  @Test
+  void shouldFindLastPageWithoutNextCursor() {
+    // given
+    UserPrincipal last = viewPrincipal("Doe");
+    ObjectId afterId = ObjectId.get();
+    UserPageRequest request = new UserPageRequest();
+    request.setCursor(new UserCursor(null, afterId).encode());
+    request.setLimit(100);
+    given(userRepository.findViewPage(eq(request), any(UserCursor.class), eq(4))).willReturn(List.of(last));
+
+    // when
+    UserPage result = underTest.findPage(request);
+
+    // then
+    assertThat(result.getUsers()).containsExactly(new UserView(last));
+    assertThat(result.getNextCursor()).isNull();
+  }
+
+  @Test
+  void shouldThrow_whenCursorIsMalformed() {
+    // given
+    UserPageRequest request = new UserPageRequest();
+    request.setCursor("not a cursor");
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.findPage(request))
+        .isInstanceOf(InvalidCursorException.class);
+    verify(userRepository, never()).findViewPage(any(), any(), anyInt());
+  }
+
+  @Test
+  void shouldBackfillSearchKeysAndCompleteMigration_whenClaimed() {
+    // given
+    given(migrationRepository.claim("user-search-keys", Duration.ofMinutes(30))).willReturn(true);
+    given(userRepository.backfillSearchKeys(100)).willReturn(7L);
+
+    // when
+    underTest.backfillSearchKeys();
+
+    // then
+    verify(userRepository).backfillSearchKeys(100);
+    verify(migrationRepository).complete("user-search-keys");
+  }
+
+  @Test
+  void shouldSkipSearchKeysBackfill_whenMigrationIsNotClaimed() {
+    // given
+    given(migrationRepository.claim("user-search-keys", Duration.ofMinutes(30))).willReturn(false);
+
+    // when
+    underTest.backfillSearchKeys();
+
+    // then
+    verify(userRepository, never()).backfillSearchKeys(anyInt());
+    verify(migrationRepository, never()).complete(anyString());
+  }
+
+  @Test
+  void shouldBackfillUpdateTimesAndCompleteMigration_whenClaimed() {
+    // given
+    given(migrationRepository.claim("user-update-times", Duration.ofMinutes(30))).willReturn(true);
+    given(userRepository.backfillUpdateTimes()).willReturn(3L);
+
+    // when
+    underTest.backfillUpdateTimes();
+
+    // then
+    verify(migrationRepository).complete("user-update-times");
   }
 
   @Test
-  void shouldFindAllUsers() {
+  void shouldSearchUsersWithCaseFoldedCursor() {
+    // given
+    UserPrincipal first = viewPrincipal("Doe");
+    UserPrincipal second = viewPrincipal("Dowee");
+    UserPrincipal third = viewPrincipal("Dowgieh");
+    UserSearchRequest request = new UserSearchRequest();
+    request.setQuery("Do");
+    given(userRepository.searchViews(request, null, 3, Duration.ofMillis(300)))
+        .willReturn(List.of(first, second, third));
+
     // when
-    underTest.findAll();
+    UserPage result = underTest.search(request);
 
     // then
-    verify(userRepository).findAll();
+    assertThat(result.getUsers()).containsExactly(new UserView(first), new UserView(second));
+    UserCursor next = UserCursor.decode(result.getNextCursor());
+    assertThat(next.getId()).isEqualTo(second.getId());
+    assertThat(next.getValue()).isEqualTo("dowee");
+  }
+
+  @Test
+  void shouldApplyBulkActionInBatches() {
+    // given
+    ObjectId first = ObjectId.get();
+    ObjectId second = ObjectId.get();
+    ObjectId third = ObjectId.get();
+    UserBulkRequest request = new UserBulkRequest(
+        List.of(first.toHexString(), "invalid", second.toHexString(), third.toHexString(), first.toHexString()),
+        UserBulkAction.LOCK, null);
+    given(userRepository.applyBulk(List.of(first, second), UserBulkAction.LOCK, null))
+        .willReturn(Map.of(first, UserBulkStatus.APPLIED, second, UserBulkStatus.NOT_FOUND));
+    given(userRepository.applyBulk(List.of(third), UserBulkAction.LOCK, null))
+        .willReturn(Map.of(third, UserBulkStatus.FAILED));
+
+    // when
+    List<UserBulkResult> results = underTest.bulk(request);
+
+    // then
+    assertThat(results).containsExactly(
+        new UserBulkResult(first.toHexString(), UserBulkStatus.APPLIED),
+        new UserBulkResult("invalid", UserBulkStatus.INVALID_ID),
+        new UserBulkResult(second.toHexString(), UserBulkStatus.NOT_FOUND),
+        new UserBulkResult(third.toHexString(), UserBulkStatus.FAILED));
+    verify(userViewCache).evictAll(List.of(first));
+    verify(userViewCache).evictAll(List.of());
+    verifyNoInteractions(userStatsService);
+    verify(userRepository, never()).findCountedStatesByIdIn(any());
+    verify(userRepository).findViewsByIdIn(List.of(first));
+  }
+
+  @Test
+  void shouldReportBulkStatusUnderRequestedId_whenIdIsUpperCase() {
+    // given
+    ObjectId userId = ObjectId.get();
+    String upperCaseId = userId.toHexString().toUpperCase();
+    UserBulkRequest request = new UserBulkRequest(
+        List.of(upperCaseId, userId.toHexString()), UserBulkAction.LOCK, null);
+    given(userRepository.applyBulk(List.of(userId), UserBulkAction.LOCK, null))
+        .willReturn(Map.of(userId, UserBulkStatus.APPLIED));
+
+    // when
+    List<UserBulkResult> results = underTest.bulk(request);
+
+    // then
+    assertThat(results).containsExactly(
+        new UserBulkResult(upperCaseId, UserBulkStatus.APPLIED),
+        new UserBulkResult(userId.toHexString(), UserBulkStatus.APPLIED));
+  }
+
+  @Test
+  void shouldPublishEnabledEvents_whenBulkEnabled() {
+    // given
+    UserPrincipal first = viewPrincipal("Doe");
+    UserPrincipal second = viewPrincipal("Dowee");
+    UserBulkRequest request = new UserBulkRequest(
+        List.of(first.getId().toHexString(), second.getId().toHexString()), UserBulkAction.ENABLE, null);
+    UserPrincipal firstState = new UserPrincipal();
+    firstState.setId(first.getId());
+    given(userRepository.findCountedStatesByIdIn(List.of(first.getId(), second.getId())))
+        .willReturn(List.of(firstState));
+    given(userRepository.applyBulk(List.of(first.getId(), second.getId()), UserBulkAction.ENABLE, null))
+        .willReturn(Map.of(first.getId(), UserBulkStatus.APPLIED, second.getId(), UserBulkStatus.NOT_FOUND));
+    given(userRepository.findViewsByIdIn(List.of(first.getId()))).willReturn(List.of(first));
+
+    // when
+    underTest.bulk(request);
+
+    // then
+    verify(userEventPublisher).publish(UserEventType.ENABLED, first.getId(), new UserView(first));
+    verifyNoMoreInteractions(userEventPublisher);
+    verify(userStatsService).usersEnabled(List.of(firstState));
+    verify(userStatsService, never()).reconcile();
+  }
+
+  @Test
+  void shouldNotPublishEvents_whenBulkDeleted() {
+    // given
+    ObjectId userId = ObjectId.get();
+    UserBulkRequest request = new UserBulkRequest(List.of(userId.toHexString()), UserBulkAction.DELETE, null);
+    UserPrincipal state = new UserPrincipal();
+    state.setId(userId);
+    state.setRole(UserRole.USER);
+    given(userRepository.findCountedStatesByIdIn(List.of(userId))).willReturn(List.of(state));
+    given(userRepository.applyBulk(List.of(userId), UserBulkAction.DELETE, null))
+        .willReturn(Map.of(userId, UserBulkStatus.APPLIED));
+
+    // when
+    underTest.bulk(request);
+
+    // then
+    verify(userViewCache).evictAll(List.of(userId));
+    verify(userStatsService).usersDeleted(List.of(state));
+    verify(userRepository, never()).findViewsByIdIn(any());
+    verifyNoInteractions(userEventPublisher);
+  }
+
+  @Test
+  void shouldExportUsersAsNdjson() throws IOException {
+    // given
+    UserPrincipal first = viewPrincipal("Doe");
+    UserPrincipal second = viewPrincipal("Dowee");
+    given(userRepository.streamAllViews()).willReturn(Stream.of(first, second));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    // when
+    long count = underTest.export(out);
+
+    // then
+    assertThat(count).isEqualTo(2);
+    ObjectMapper mapper = new ObjectMapper();
+    String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+    assertThat(lines).hasSize(2);
+    assertThat(mapper.readValue(lines[0], UserView.class)).isEqualTo(new UserView(first));
+    assertThat(mapper.readValue(lines[1], UserView.class)).isEqualTo(new UserView(second));
   }
 
   @Test
@@ -53,8 +309,11 @@ public class UserManagementServiceTest {
         "qwerty123",
         UserRole.USER,
         false,
-        true);
-    given(userRepository.findById(user.getId())).willReturn(Optional.of(user));
+        true,
+        0L,
+        null,
+        null);
+    given(userRepository.findViewById(user.getId())).willReturn(Optional.of(user));
 
     // when
     UserView result = underTest.find(user.getId());
@@ -67,7 +326,7 @@ public class UserManagementServiceTest {
   void shouldThrow_whenUserNotFound() {
     // given
     ObjectId userId = ObjectId.get();
-    given(userRepository.findById(userId)).willReturn(Optional.empty());
+    given(userRepository.findViewById(userId)).willReturn(Optional.empty());
 
     // when
     // then
@@ -79,48 +338,98 @@ public class UserManagementServiceTest {
   @Test
   void shouldUpdateUserById() {
     // given
-    UserPrincipal initial = new UserPrincipal(
+    UserPrincipal updatedUser = new UserPrincipal(
         ObjectId.get(),
-        "John",
-        "Doe",
+        "Johansen",
+        "Dowgieh",
         LocalDate.now(),
         "johndoe@mail.com",
-        "qwerty123",
-        UserRole.USER,
+        null,
+        null,
+        false,
         false,
-        true);
-    given(userRepository.findById(initial.getId())).willReturn(Optional.of(initial));
+        0L,
+        null,
+        null);
+    given(userRepository.updateFields(
+        updatedUser.getId(), 0L, Map.of("firstName", "Johansen", "lastName", "Dowgieh")))
+        .willReturn(Optional.of(updatedUser));
 
     UserPrincipal toUpdate = new UserPrincipal();
     toUpdate.setFirstName("Johansen");
     toUpdate.setLastName("Dowgieh");
 
     // when
-    UserView result = underTest.update(initial.getId(), toUpdate);
+    UserView result = underTest.update(updatedUser.getId(), toUpdate, 0L);
 
     // then
     assertThat(result.getFirstName()).isEqualTo(toUpdate.getFirstName());
     assertThat(result.getLastName()).isEqualTo(toUpdate.getLastName());
+    verify(userRepository, never()).findViewById(any());
+    verify(userRepository, never()).save(any());
+    verify(userViewCache).evict(updatedUser.getId());
+    verify(userEventPublisher).publish(UserEventType.UPDATED, updatedUser.getId(), result);
+  }
 
-    ArgumentCaptor<UserPrincipal> userPrincipalArgumentCaptor = ArgumentCaptor.forClass(UserPrincipal.class);
-    verify(userRepository).save(userPrincipalArgumentCaptor.capture());
+  @Test
+  void shouldThrow_whenUpdateMatchedNoUser() {
+    // given
+    ObjectId userId = ObjectId.get();
+    given(userRepository.updateFields(eq(userId), eq(0L), anyMap())).willReturn(Optional.empty());
+    given(userRepository.findViewById(userId)).willReturn(Optional.empty());
 
-    UserPrincipal capturedUser = userPrincipalArgumentCaptor.getValue();
-    initial.setFirstName(toUpdate.getFirstName());
-    initial.setLastName(toUpdate.getLastName());
-    assertThat(capturedUser).isEqualTo(initial);
+    UserPrincipal toUpdate = new UserPrincipal();
+    toUpdate.setFirstName("Johansen");
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.update(userId, toUpdate, 0L))
+        .isInstanceOf(UserNotFoundException.class)
+        .hasMessageContaining("User not found");
+  }
+
+  @Test
+  void shouldThrow_whenVersionIsStale_whileUpdating() {
+    // given
+    ObjectId userId = ObjectId.get();
+    given(userRepository.updateFields(eq(userId), eq(3L), anyMap())).willReturn(Optional.empty());
+    given(userRepository.findViewById(userId)).willReturn(Optional.of(viewPrincipal("Doe")));
+
+    UserPrincipal toUpdate = new UserPrincipal();
+    toUpdate.setFirstName("Johansen");
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.update(userId, toUpdate, 3L))
+        .isInstanceOf(PreconditionFailedException.class)
+        .hasMessageContaining("modified concurrently");
+  }
+
+  @Test
+  void shouldThrow_whenVersionIsStale_whileUpdatingNoField() {
+    // given
+    UserPrincipal user = viewPrincipal("Doe");
+    user.setVersion(2L);
+    given(userRepository.findViewById(user.getId())).willReturn(Optional.of(user));
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.update(user.getId(), new UserPrincipal(), 1L))
+        .isInstanceOf(PreconditionFailedException.class)
+        .hasMessageContaining("modified concurrently");
+    verify(userRepository, never()).updateFields(any(), anyLong(), anyMap());
   }
 
   @Test
   void shouldThrow_whenUserNotFound_whileUpdating() {
     // given
     ObjectId userId = ObjectId.get();
-    given(userRepository.findById(userId)).willReturn(Optional.empty());
+    given(userRepository.findViewById(userId)).willReturn(Optional.empty());
     UserPrincipal mockUser = mock(UserPrincipal.class);
 
     // when
     // then
-    assertThatThrownBy(() -> underTest.update(userId, mockUser))
+    assertThatThrownBy(() -> underTest.update(userId, mockUser, 0L))
         .isInstanceOf(UserNotFoundException.class)
         .hasMessageContaining("User not found");
 
@@ -132,10 +441,33 @@ public class UserManagementServiceTest {
     // given
     ObjectId userId = ObjectId.get();
 
+    UserPrincipal deleted = viewPrincipal("Doe");
+    given(userRepository.softDelete(userId)).willReturn(Optional.of(deleted));
+
     // when
     underTest.delete(userId);
 
     // then
-    verify(userRepository).deleteById(userId);
+    verify(userStatsService).userDeleted(deleted);
+    verify(userRepository, never()).deleteById(any());
+    verify(userViewCache).evict(userId);
+  }
+
+  private UserPrincipal viewPrincipal(String lastName) {
+    UserPrincipal principal = new UserPrincipal();
+    principal.setId(ObjectId.get());
+    principal.setFirstName("John");
+    principal.setLastName(lastName);
+    principal.setEmail(lastName.toLowerCase() + "@mail.com");
+    principal.setDateOfBirth(LocalDate.now());
+    return principal;
+  }
+
+  private void setDeclaredField(Object target, String fieldName, Object value)
+      throws NoSuchFieldException, IllegalAccessException {
+    Field field = target.getClass().getDeclaredField(fieldName);
+    field.setAccessible(true);
+    field.set(target, value);
+    field.setAccessible(false);
   }
 }
@@ -42,7 +42,10 @@ public class UserPrincipalServiceTest {
         "qwerty123",
         UserRole.USER,
         false,
-        false);
+        false,
+        0L,
+        null,
+        null);
     given(userRepository.findByEmail(user.getEmail())).willReturn(Optional.of(user));
 
     // when
@@ -3,7 +3,12 @@ package com.drevotiuk.service;
 import static org.mockito.BDDMockito.*;
 import static org.assertj.core.api.Assertions.*;
 
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.bson.types.ObjectId;
@@ -13,16 +18,29 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.adapter.HandlerAdapter;
+import org.springframework.amqp.rabbit.listener.adapter.MessagingMessageListenerAdapter;
+import org.springframework.messaging.handler.annotation.support.DefaultMessageHandlerMethodFactory;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+import com.drevotiuk.config.AppConfig;
+import com.drevotiuk.model.UserEventType;
 import com.drevotiuk.model.UserPrincipal;
 import com.drevotiuk.model.UserRole;
 import com.drevotiuk.model.UserView;
 import com.drevotiuk.model.exception.ForbiddenException;
+import com.drevotiuk.model.exception.PreconditionFailedException;
 import com.drevotiuk.model.exception.UserNotFoundException;
 import com.drevotiuk.repository.UserRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rabbitmq.client.Channel;
 
 @ExtendWith(MockitoExtension.class)
 public class UserServiceTest {
@@ -32,11 +50,18 @@ public class UserServiceTest {
   private Authentication authentication;
   @Mock
   private SecurityContext securityContext;
+  @Mock
+  private RabbitTemplate rabbitTemplate;
+  @Mock
+  private UserEventPublisher userEventPublisher;
+  @Mock
+  private Channel channel;
   private UserService underTest;
 
   @BeforeEach
   void setUp() {
-    underTest = new UserService(userRepository);
+    underTest = new UserService(userRepository,
+        new UserViewCache(Caffeine.newBuilder().build(), rabbitTemplate), userEventPublisher);
   }
 
   @Test
@@ -51,8 +76,11 @@ public class UserServiceTest {
         "qwerty123",
         UserRole.USER,
         false,
-        true);
-    given(userRepository.findById(user.getId())).willReturn(Optional.of(user));
+        true,
+        0L,
+        null,
+        null);
+    given(userRepository.findViewById(user.getId())).willReturn(Optional.of(user));
     given(securityContext.getAuthentication()).willReturn(authentication);
     SecurityContextHolder.setContext(securityContext);
     given(authentication.getName()).willReturn(user.getEmail());
@@ -64,6 +92,36 @@ public class UserServiceTest {
     assertThat(found).isEqualTo(new UserView(user));
   }
 
+  @Test
+  void shouldServeRepeatedFindFromCache() {
+    // given
+    UserPrincipal user = new UserPrincipal(
+        ObjectId.get(),
+        "John",
+        "Doe",
+        LocalDate.now(),
+        "johndoe@mail.com",
+        "qwerty123",
+        UserRole.USER,
+        false,
+        true,
+        0L,
+        null,
+        null);
+    given(userRepository.findViewById(user.getId())).willReturn(Optional.of(user));
+    given(securityContext.getAuthentication()).willReturn(authentication);
+    SecurityContextHolder.setContext(securityContext);
+    given(authentication.getName()).willReturn(user.getEmail());
+
+    // when
+    underTest.find(user.getId());
+    UserView result = underTest.handleUserRequest(user.getId().toString());
+
+    // then
+    assertThat(result).isEqualTo(new UserView(user));
+    verify(userRepository, times(1)).findViewById(user.getId());
+  }
+
   @Test
   void shouldThrow_whenDidNotValidateUser() {
     // given
@@ -76,8 +134,11 @@ public class UserServiceTest {
         "qwerty123",
         UserRole.USER,
         false,
-        true);
-    given(userRepository.findById(user.getId())).willReturn(Optional.of(user));
+        true,
+        0L,
+        null,
+        null);
+    given(userRepository.findViewById(user.getId())).willReturn(Optional.of(user));
     given(securityContext.getAuthentication()).willReturn(authentication);
     SecurityContextHolder.setContext(securityContext);
     given(authentication.getName()).willReturn("some another auth name, will raise exception");
@@ -93,7 +154,7 @@ public class UserServiceTest {
   void shouldThrow_whenUserNotFound() {
     // given
     ObjectId userId = ObjectId.get();
-    given(userRepository.findById(userId)).willReturn(Optional.empty());
+    given(userRepository.findViewById(userId)).willReturn(Optional.empty());
 
     // when
     // then
@@ -105,7 +166,44 @@ public class UserServiceTest {
   @Test
   void shouldUpdateUserById() {
     // given
-    UserPrincipal initial = new UserPrincipal(
+    UserPrincipal updatedUser = new UserPrincipal(
+        ObjectId.get(),
+        "Johansen",
+        "Dowee",
+        LocalDate.now(),
+        "johndoe@mail.com",
+        null,
+        null,
+        false,
+        false,
+        0L,
+        null,
+        null);
+    UserView toUpdate = new UserView("Johansen", "Dowee");
+    Map<String, Object> expectedFields = Map.of("firstName", "Johansen", "lastName", "Dowee");
+    given(userRepository.updateFields(updatedUser.getId(), updatedUser.getEmail(), 0L, expectedFields))
+        .willReturn(Optional.of(updatedUser));
+
+    given(securityContext.getAuthentication()).willReturn(authentication);
+    SecurityContextHolder.setContext(securityContext);
+    given(authentication.getName()).willReturn(updatedUser.getEmail());
+
+    // when
+    UserView result = underTest.update(updatedUser.getId(), toUpdate, 0L);
+
+    // then
+    assertThat(result.getFirstName()).isEqualTo(toUpdate.getFirstName());
+    assertThat(result.getLastName()).isEqualTo(toUpdate.getLastName());
+    verify(userRepository, never()).findViewById(any());
+    verify(userRepository, never()).save(any());
+    verify(rabbitTemplate).convertAndSend(any(), eq(""), eq(updatedUser.getId().toString()));
+    verify(userEventPublisher).publish(UserEventType.UPDATED, updatedUser.getId(), result);
+  }
+
+  @Test
+  void shouldThrow_whenUpdateDidNotMatchOwner() {
+    // given
+    UserPrincipal user = new UserPrincipal(
         ObjectId.get(),
         "John",
         "Doe",
@@ -114,29 +212,84 @@ public class UserServiceTest {
         "qwerty123",
         UserRole.USER,
         false,
-        true);
-    given(userRepository.findById(initial.getId())).willReturn(Optional.of(initial));
-
-    UserView toUpdate = new UserView("Johansen", "Dowee");
+        true,
+        0L,
+        null,
+        null);
+    given(userRepository.updateFields(eq(user.getId()), eq("another@mail.com"), eq(0L), anyMap()))
+        .willReturn(Optional.empty());
+    given(userRepository.findViewById(user.getId())).willReturn(Optional.of(user));
 
     given(securityContext.getAuthentication()).willReturn(authentication);
     SecurityContextHolder.setContext(securityContext);
-    given(authentication.getName()).willReturn(initial.getEmail());
+    given(authentication.getName()).willReturn("another@mail.com");
 
     // when
-    UserView result = underTest.update(initial.getId(), toUpdate);
+    // then
+    assertThatThrownBy(() -> underTest.update(user.getId(), new UserView("Johansen", "Dowee"), 0L))
+        .isInstanceOf(ForbiddenException.class)
+        .hasMessageContaining("Access forbidden");
+  }
 
+  @Test
+  void shouldThrow_whenVersionIsStale_whileUpdating() {
+    // given
+    UserPrincipal user = new UserPrincipal(
+        ObjectId.get(),
+        "John",
+        "Doe",
+        LocalDate.now(),
+        "johndoe@mail.com",
+        "qwerty123",
+        UserRole.USER,
+        false,
+        true,
+        2L,
+        null,
+        null);
+    given(userRepository.updateFields(eq(user.getId()), eq(user.getEmail()), eq(1L), anyMap()))
+        .willReturn(Optional.empty());
+    given(userRepository.findViewById(user.getId())).willReturn(Optional.of(user));
+
+    given(securityContext.getAuthentication()).willReturn(authentication);
+    SecurityContextHolder.setContext(securityContext);
+    given(authentication.getName()).willReturn(user.getEmail());
+
+    // when
     // then
-    assertThat(result.getFirstName()).isEqualTo(toUpdate.getFirstName());
-    assertThat(result.getLastName()).isEqualTo(toUpdate.getLastName());
+    assertThatThrownBy(() -> underTest.update(user.getId(), new UserView("Johansen", "Dowee"), 1L))
+        .isInstanceOf(PreconditionFailedException.class)
+        .hasMessageContaining("modified concurrently");
+  }
+
+  @Test
+  void shouldThrow_whenVersionIsStale_whileUpdatingNoField() {
+    // given
+    UserPrincipal user = new UserPrincipal(
+        ObjectId.get(),
+        "John",
+        "Doe",
+        LocalDate.now(),
+        "johndoe@mail.com",
+        "qwerty123",
+        UserRole.USER,
+        false,
+        true,
+        2L,
+        null,
+        null);
+    given(userRepository.findViewById(user.getId())).willReturn(Optional.of(user));
 
-    ArgumentCaptor<UserPrincipal> userPrincipalArgumentCaptor = ArgumentCaptor.forClass(UserPrincipal.class);
-    verify(userRepository).save(userPrincipalArgumentCaptor.capture());
+    given(securityContext.getAuthentication()).willReturn(authentication);
+    SecurityContextHolder.setContext(securityContext);
+    given(authentication.getName()).willReturn(user.getEmail());
 
-    UserPrincipal capturedUser = userPrincipalArgumentCaptor.getValue();
-    initial.setFirstName(toUpdate.getFirstName());
-    initial.setLastName(toUpdate.getLastName());
-    assertThat(capturedUser).isEqualTo(initial);
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.update(user.getId(), new UserView(null, null), 1L))
+        .isInstanceOf(PreconditionFailedException.class)
+        .hasMessageContaining("modified concurrently");
+    verify(userRepository, never()).updateFields(any(), any(), anyLong(), anyMap());
   }
 
   @Test
@@ -151,8 +304,11 @@ public class UserServiceTest {
         "qwerty123",
         UserRole.USER,
         false,
-        true);
-    given(userRepository.findById(initial.getId())).willReturn(Optional.of(initial));
+        true,
+        0L,
+        null,
+        null);
+    given(userRepository.findViewById(initial.getId())).willReturn(Optional.of(initial));
     UserView mockUserView = mock(UserView.class);
 
     given(securityContext.getAuthentication()).willReturn(authentication);
@@ -161,7 +317,7 @@ public class UserServiceTest {
 
     // when
     // then
-    assertThatThrownBy(() -> underTest.update(initial.getId(), mockUserView))
+    assertThatThrownBy(() -> underTest.update(initial.getId(), mockUserView, 0L))
         .isInstanceOf(ForbiddenException.class)
         .hasMessageContaining("Access forbidden");
   }
@@ -170,11 +326,11 @@ public class UserServiceTest {
   void shouldThrow_whenUserNotFound_whileUpdating() {
     // given
     ObjectId userId = ObjectId.get();
-    given(userRepository.findById(userId)).willReturn(Optional.empty());
+    given(userRepository.findViewById(userId)).willReturn(Optional.empty());
 
     // when
     // then
-    assertThatThrownBy(() -> underTest.update(userId, new UserView()))
+    assertThatThrownBy(() -> underTest.update(userId, new UserView(), 0L))
         .isInstanceOf(UserNotFoundException.class)
         .hasMessageContaining("User not found");
   }
@@ -191,8 +347,11 @@ public class UserServiceTest {
         "qwerty123",
         UserRole.USER,
         false,
-        true);
-    given(userRepository.findById(user.getId())).willReturn(Optional.of(user));
+        true,
+        0L,
+        null,
+        null);
+    given(userRepository.findViewById(user.getId())).willReturn(Optional.of(user));
 
     // when
     UserView result = underTest.handleUserRequest(user.getId().toString());
@@ -205,7 +364,7 @@ public class UserServiceTest {
   void shouldReturnNull_whenUserNotFound_whileHandlingUserRequest() {
     // given
     ObjectId userId = ObjectId.get();
-    given(userRepository.findById(userId)).willReturn(Optional.empty());
+    given(userRepository.findViewById(userId)).willReturn(Optional.empty());
 
     // when
     UserView result = underTest.handleUserRequest(userId.toString());
@@ -214,6 +373,66 @@ public class UserServiceTest {
     assertThat(result).isNull();
   }
 
+  @Test
+  void shouldResolveBatchedUserRequestWithSingleQuery() {
+    // given
+    UserPrincipal cached = viewPrincipal("Doe");
+    UserPrincipal loaded = viewPrincipal("Dowee");
+    ObjectId missingId = ObjectId.get();
+    given(userRepository.findViewById(cached.getId())).willReturn(Optional.of(cached));
+    underTest.handleUserRequest(cached.getId().toString());
+    given(userRepository.findViewsByIdIn(argThat(ids -> ids.size() == 2
+        && ids.containsAll(List.of(loaded.getId(), missingId))))).willReturn(List.of(loaded));
+
+    // when
+    Map<String, UserView> result = underTest.handleUsersRequest(List.of(
+        cached.getId().toString(), loaded.getId().toString(), missingId.toString(), "invalid ObjectId"));
+
+    // then
+    Map<String, UserView> expected = new LinkedHashMap<>();
+    expected.put(cached.getId().toString(), new UserView(cached));
+    expected.put(loaded.getId().toString(), new UserView(loaded));
+    expected.put(missingId.toString(), null);
+    expected.put("invalid ObjectId", null);
+    assertThat(result).containsExactlyEntriesOf(expected);
+    verify(userRepository, times(1)).findViewsByIdIn(anyCollection());
+  }
+
+  @Test
+  void shouldAnswerUserRequest_whenMessageHasNoTypeHeader() throws Exception {
+    // given
+    UserPrincipal user = viewPrincipal("Doe");
+    given(userRepository.findViewById(user.getId())).willReturn(Optional.of(user));
+    Message request = jsonRequest("\"" + user.getId() + "\"");
+
+    // when
+    listenerOf(UserService.class.getMethod("handleUserRequest", String.class)).onMessage(request, channel);
+
+    // then
+    ArgumentCaptor<byte[]> replyCaptor = ArgumentCaptor.forClass(byte[].class);
+    verify(channel).basicPublish(eq(""), eq("reply-queue"), anyBoolean(), any(), replyCaptor.capture());
+    assertThat(new ObjectMapper().readValue(replyCaptor.getValue(), UserView.class)).isEqualTo(new UserView(user));
+  }
+
+  @Test
+  void shouldAnswerBatchedUserRequest_whenMessageHasNoTypeHeader() throws Exception {
+    // given
+    UserPrincipal user = viewPrincipal("Doe");
+    given(userRepository.findViewsByIdIn(List.of(user.getId()))).willReturn(List.of(user));
+    Message request = jsonRequest("[\"" + user.getId() + "\"]");
+
+    // when
+    listenerOf(UserService.class.getMethod("handleUsersRequest", List.class)).onMessage(request, channel);
+
+    // then
+    ArgumentCaptor<byte[]> replyCaptor = ArgumentCaptor.forClass(byte[].class);
+    verify(channel).basicPublish(eq(""), eq("reply-queue"), anyBoolean(), any(), replyCaptor.capture());
+    Map<String, UserView> reply = new ObjectMapper().readValue(replyCaptor.getValue(),
+        new TypeReference<Map<String, UserView>>() {
+        });
+    assertThat(reply).containsExactly(entry(user.getId().toString(), new UserView(user)));
+  }
+
   @Test
   void shouldReturnNull_whenUserIdIsInvalid() {
     // given
@@ -225,4 +444,30 @@ public class UserServiceTest {
     // then
     assertThat(result).isNull();
   }
+
+  private MessagingMessageListenerAdapter listenerOf(Method handler) {
+    DefaultMessageHandlerMethodFactory handlerMethodFactory = new DefaultMessageHandlerMethodFactory();
+    handlerMethodFactory.afterPropertiesSet();
+    MessagingMessageListenerAdapter listener = new MessagingMessageListenerAdapter(underTest, handler, false, null);
+    listener.setHandlerAdapter(new HandlerAdapter(handlerMethodFactory.createInvocableHandlerMethod(underTest, handler)));
+    listener.setMessageConverter(AppConfig.negotiatingMessageConverter(MessageProperties.CONTENT_TYPE_JSON));
+    return listener;
+  }
+
+  private Message jsonRequest(String body) {
+    MessageProperties properties = new MessageProperties();
+    properties.setContentType(MessageProperties.CONTENT_TYPE_JSON);
+    properties.setReplyTo("reply-queue");
+    return new Message(body.getBytes(StandardCharsets.UTF_8), properties);
+  }
+
+  private UserPrincipal viewPrincipal(String lastName) {
+    UserPrincipal principal = new UserPrincipal();
+    principal.setId(ObjectId.get());
+    principal.setFirstName("John");
+    principal.setLastName(lastName);
+    principal.setEmail(lastName.toLowerCase() + "@mail.com");
+    principal.setDateOfBirth(LocalDate.now());
+    return principal;
+  }
 }
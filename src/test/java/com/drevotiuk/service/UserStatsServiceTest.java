@@ -0,0 +1,201 @@
+package com.drevotiuk.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.BDDMockito.*;
+
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.drevotiuk.model.UserDailySignups;
+import com.drevotiuk.model.UserPrincipal;
+import com.drevotiuk.model.UserRole;
+import com.drevotiuk.model.UserStats;
+import com.drevotiuk.model.UserStatsReport;
+import com.drevotiuk.repository.JobLockRepository;
+import com.drevotiuk.repository.UserRepository;
+import com.drevotiuk.repository.UserStatsRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class UserStatsServiceTest {
+  private static final Duration RECONCILE_LOCK = Duration.ofMinutes(30);
+
+  @Mock
+  private UserStatsRepository userStatsRepository;
+  @Mock
+  private UserRepository userRepository;
+  @Mock
+  private JobLockRepository jobLockRepository;
+  private UserStatsService underTest;
+
+  @BeforeEach
+  void setUp() throws NoSuchFieldException, IllegalAccessException {
+    underTest = new UserStatsService(userStatsRepository, userRepository, jobLockRepository);
+    setDeclaredField(underTest, "maxDays", 30);
+    setDeclaredField(underTest, "reconcileDays", 7);
+    setDeclaredField(underTest, "reconcileLock", RECONCILE_LOCK);
+  }
+
+  @Test
+  void shouldCountRegisteredUserAsPending() {
+    // when
+    underTest.userRegistered(UserRole.USER);
+
+    // then
+    verify(userStatsRepository).increment(Map.of("total", 1L, "pending", 1L, "roles.USER", 1L));
+    verify(userStatsRepository).incrementSignups(LocalDate.now(ZoneOffset.UTC));
+  }
+
+  @Test
+  void shouldUncountDeletedUser() {
+    // given
+    UserPrincipal deleted = new UserPrincipal();
+    deleted.setRole(UserRole.ADMIN);
+    deleted.setEnabled(true);
+
+    // when
+    underTest.userDeleted(deleted);
+
+    // then
+    verify(userStatsRepository).increment(Map.of("total", -1L, "enabled", -1L, "roles.ADMIN", -1L));
+  }
+
+  @Test
+  void shouldUncountDeletedUsersWithSingleUpdate() {
+    // given
+    UserPrincipal enabledAdmin = new UserPrincipal();
+    enabledAdmin.setRole(UserRole.ADMIN);
+    enabledAdmin.setEnabled(true);
+    UserPrincipal pendingUser = new UserPrincipal();
+    pendingUser.setRole(UserRole.USER);
+
+    // when
+    underTest.usersDeleted(List.of(enabledAdmin, pendingUser));
+
+    // then
+    verify(userStatsRepository).increment(Map.of(
+        "total", -2L, "enabled", -1L, "pending", -1L, "roles.ADMIN", -1L, "roles.USER", -1L));
+  }
+
+  @Test
+  void shouldCountOnlyPendingUsers_whenUsersEnabled() {
+    // given
+    UserPrincipal pending = new UserPrincipal();
+    UserPrincipal enabled = new UserPrincipal();
+    enabled.setEnabled(true);
+
+    // when
+    underTest.usersEnabled(List.of(pending, enabled));
+
+    // then
+    verify(userStatsRepository).increment(Map.of("enabled", 1L, "pending", -1L));
+  }
+
+  @Test
+  void shouldMoveOnlyChangedRoles_whenRolesChanged() {
+    // given
+    UserPrincipal user = new UserPrincipal();
+    user.setRole(UserRole.USER);
+    UserPrincipal admin = new UserPrincipal();
+    admin.setRole(UserRole.ADMIN);
+
+    // when
+    underTest.rolesChanged(List.of(user, admin), UserRole.ADMIN);
+
+    // then
+    verify(userStatsRepository).increment(Map.of("roles.USER", -1L, "roles.ADMIN", 1L));
+  }
+
+  @Test
+  void shouldNotThrow_whenCounterUpdateFails() {
+    // given
+    willThrow(new IllegalStateException("Mongo is down")).given(userStatsRepository).increment(anyMap());
+
+    // when
+    // then
+    assertThatCode(() -> underTest.userEnabled()).doesNotThrowAnyException();
+  }
+
+  @Test
+  void shouldReportCountersAndSignupsWithinCappedPeriod() {
+    // given
+    UserStats stats = new UserStats(UserStats.GLOBAL_ID, 3, 2, 1, Map.of("USER", 3L), null);
+    given(userStatsRepository.findById(UserStats.GLOBAL_ID)).willReturn(Optional.of(stats));
+    LocalDate from = LocalDate.now(ZoneOffset.UTC).minusDays(29);
+    given(userStatsRepository.findSignupsSince(from))
+        .willReturn(List.of(new UserDailySignups(from.toString(), 3)));
+
+    // when
+    UserStatsReport report = underTest.find(1000);
+
+    // then
+    assertThat(report).isEqualTo(new UserStatsReport(3, 2, 1, Map.of("USER", 3L), Map.of(from.toString(), 3L)));
+    verify(userRepository, never()).findAll();
+  }
+
+  @Test
+  void shouldReplaceCountersWithAggregatedOnes_whenReconciling() {
+    // given
+    UserStats counted = new UserStats(UserStats.GLOBAL_ID, 5, 4, 1, new HashMap<>(Map.of("USER", 5L)), null);
+    given(userRepository.countActive()).willReturn(counted);
+    LocalDate from = LocalDate.now(ZoneOffset.UTC).minusDays(6);
+    Map<LocalDate, Long> signups = Map.of(from, 2L);
+    given(userRepository.countSignupsSince(from)).willReturn(signups);
+
+    // when
+    underTest.reconcile();
+
+    // then
+    ArgumentCaptor<UserStats> statsCaptor = ArgumentCaptor.forClass(UserStats.class);
+    verify(userStatsRepository).save(statsCaptor.capture());
+    assertThat(statsCaptor.getValue().getTotal()).isEqualTo(5);
+    assertThat(statsCaptor.getValue().getReconciledAt()).isNotNull();
+    verify(userStatsRepository).raiseSignups(signups);
+  }
+
+  @Test
+  void shouldReconcilePeriodically_whenLockAcquired() {
+    // given
+    given(jobLockRepository.acquire("user-stats-reconcile", RECONCILE_LOCK)).willReturn(true);
+    given(userRepository.countActive()).willReturn(new UserStats());
+
+    // when
+    underTest.reconcilePeriodically();
+
+    // then
+    verify(userStatsRepository).save(any(UserStats.class));
+  }
+
+  @Test
+  void shouldNotReconcilePeriodically_whenAnotherReplicaHoldsLock() {
+    // given
+    given(jobLockRepository.acquire("user-stats-reconcile", RECONCILE_LOCK)).willReturn(false);
+
+    // when
+    underTest.reconcilePeriodically();
+
+    // then
+    verifyNoInteractions(userRepository, userStatsRepository);
+  }
+
+  private void setDeclaredField(Object target, String fieldName, Object value)
+      throws NoSuchFieldException, IllegalAccessException {
+    Field field = target.getClass().getDeclaredField(fieldName);
+    field.setAccessible(true);
+    field.set(target, value);
+    field.setAccessible(false);
+  }
+}
@@ -0,0 +1,282 @@
+package com.drevotiuk.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.BDDMockito.*;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+
+import com.drevotiuk.model.UserView;
+import com.drevotiuk.model.exception.UserNotFoundException;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+@ExtendWith(MockitoExtension.class)
+public class UserViewCacheTest {
+  @Mock
+  private RabbitTemplate rabbitTemplate;
+  @Mock
+  private Function<ObjectId, UserView> loader;
+  private UserViewCache underTest;
+
+  @BeforeEach
+  void setUp() throws NoSuchFieldException, IllegalAccessException {
+    underTest = new UserViewCache(Caffeine.newBuilder().recordStats().build(), rabbitTemplate);
+    setDeclaredField(underTest, "exchange", "test exchange");
+  }
+
+  @Test
+  void shouldLoadOnceAndServeFromCache() {
+    // given
+    ObjectId userId = ObjectId.get();
+    UserView view = new UserView("John", "Doe");
+    given(loader.apply(userId)).willReturn(view);
+
+    // when
+    UserView first = underTest.get(userId, loader);
+    UserView second = underTest.get(userId, loader);
+
+    // then
+    assertThat(first).isEqualTo(view);
+    assertThat(second).isEqualTo(view);
+    verify(loader, times(1)).apply(userId);
+    assertThat(underTest.stats().hitCount()).isEqualTo(1);
+    assertThat(underTest.stats().missCount()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldCoalesceConcurrentMissesIntoSingleLoad() throws Exception {
+    // given
+    ObjectId userId = ObjectId.get();
+    UserView view = new UserView("John", "Doe");
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger loads = new AtomicInteger();
+    Function<ObjectId, UserView> blockingLoader = id -> {
+      loads.incrementAndGet();
+      loading.countDown();
+      awaitLatch(release);
+      return view;
+    };
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    try {
+      // when
+      Future<UserView> leader = executor.submit(() -> underTest.get(userId, blockingLoader));
+      loading.await(5, TimeUnit.SECONDS);
+      Future<UserView> follower = executor.submit(() -> underTest.get(userId, blockingLoader));
+      while (underTest.coalescedCount() == 0)
+        Thread.onSpinWait();
+      release.countDown();
+
+      // then
+      assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(view);
+      assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo(view);
+      assertThat(loads).hasValue(1);
+      assertThat(underTest.coalescedCount()).isEqualTo(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldNotCacheLoadedView_whenEvictedWhileLoading() {
+    // given
+    ObjectId userId = ObjectId.get();
+    UserView stale = new UserView("John", "Doe");
+    given(loader.apply(userId)).willReturn(new UserView("Johansen", "Doe"));
+
+    // when
+    UserView result = underTest.get(userId, id -> {
+      underTest.evict(id);
+      return stale;
+    });
+
+    // then
+    assertThat(result).isEqualTo(stale);
+    assertThat(underTest.get(userId, loader)).isEqualTo(new UserView("Johansen", "Doe"));
+  }
+
+  @Test
+  void shouldLoadAllMissingViewsWithSingleCall() {
+    // given
+    ObjectId cachedId = ObjectId.get();
+    ObjectId missingId = ObjectId.get();
+    ObjectId absentId = ObjectId.get();
+    UserView cached = new UserView("John", "Doe");
+    UserView missing = new UserView("Jane", "Doe");
+    given(loader.apply(cachedId)).willReturn(cached);
+    underTest.get(cachedId, loader);
+    List<List<ObjectId>> loaded = new ArrayList<>();
+
+    // when
+    Map<ObjectId, UserView> result = underTest.getAll(List.of(cachedId, missingId, absentId), ids -> {
+      loaded.add(ids);
+      return Map.of(missingId, missing);
+    });
+
+    // then
+    assertThat(result).containsOnly(entry(cachedId, cached), entry(missingId, missing));
+    assertThat(loaded).hasSize(1);
+    assertThat(loaded.get(0)).containsExactlyInAnyOrder(missingId, absentId);
+  }
+
+  @Test
+  void shouldNotCacheBulkLoadedView_whenEvictedWhileLoading() {
+    // given
+    ObjectId userId = ObjectId.get();
+    UserView stale = new UserView("John", "Doe");
+    given(loader.apply(userId)).willReturn(new UserView("Johansen", "Doe"));
+
+    // when
+    Map<ObjectId, UserView> result = underTest.getAll(List.of(userId), ids -> {
+      underTest.evict(userId);
+      return Map.of(userId, stale);
+    });
+
+    // then
+    assertThat(result).containsOnly(entry(userId, stale));
+    assertThat(underTest.get(userId, loader)).isEqualTo(new UserView("Johansen", "Doe"));
+  }
+
+  @Test
+  void shouldNotCache_whenLoaderThrows() {
+    // given
+    ObjectId userId = ObjectId.get();
+    given(loader.apply(userId)).willThrow(new UserNotFoundException("User not found"));
+
+    // when
+    // then
+    assertThatThrownBy(() -> underTest.get(userId, loader))
+        .isInstanceOf(UserNotFoundException.class);
+    assertThatThrownBy(() -> underTest.get(userId, loader))
+        .isInstanceOf(UserNotFoundException.class);
+    verify(loader, times(2)).apply(userId);
+  }
+
+  @Test
+  void shouldEvictLocallyAndPublishInvalidation() {
+    // given
+    ObjectId userId = ObjectId.get();
+    given(loader.apply(userId)).willReturn(new UserView("John", "Doe"));
+    underTest.get(userId, loader);
+
+    // when
+    underTest.evict(userId);
+    underTest.get(userId, loader);
+
+    // then
+    verify(rabbitTemplate).convertAndSend("test exchange", "", userId.toString());
+    verify(loader, times(2)).apply(userId);
+  }
+
+  @Test
+  void shouldEvictLocallyAndNotThrow_whenPublishingInvalidationFails() {
+    // given
+    ObjectId userId = ObjectId.get();
+    given(loader.apply(userId)).willReturn(new UserView("John", "Doe"));
+    underTest.get(userId, loader);
+    willThrow(new AmqpException("broker down"))
+        .given(rabbitTemplate).convertAndSend(anyString(), anyString(), any(Object.class));
+
+    // when
+    assertThatCode(() -> underTest.evict(userId)).doesNotThrowAnyException();
+    underTest.get(userId, loader);
+
+    // then
+    verify(loader, times(2)).apply(userId);
+  }
+
+  @Test
+  void shouldEvictAllWithSingleInvalidation() {
+    // given
+    ObjectId first = ObjectId.get();
+    ObjectId second = ObjectId.get();
+    given(loader.apply(any(ObjectId.class))).willReturn(new UserView("John", "Doe"));
+    underTest.get(first, loader);
+    underTest.get(second, loader);
+
+    // when
+    underTest.evictAll(List.of(first, second));
+    underTest.get(first, loader);
+    underTest.get(second, loader);
+
+    // then
+    verify(rabbitTemplate).convertAndSend("test exchange", "", first + "," + second);
+    verify(loader, times(4)).apply(any(ObjectId.class));
+  }
+
+  @Test
+  void shouldEvictEveryUser_whenBatchInvalidationReceived() {
+    // given
+    ObjectId first = ObjectId.get();
+    ObjectId second = ObjectId.get();
+    given(loader.apply(any(ObjectId.class))).willReturn(new UserView("John", "Doe"));
+    underTest.get(first, loader);
+    underTest.get(second, loader);
+
+    // when
+    underTest.handleInvalidation(first + ",invalid ObjectId," + second);
+    underTest.get(first, loader);
+    underTest.get(second, loader);
+
+    // then
+    verify(loader, times(4)).apply(any(ObjectId.class));
+  }
+
+  @Test
+  void shouldEvict_whenInvalidationReceived() {
+    // given
+    ObjectId userId = ObjectId.get();
+    given(loader.apply(userId)).willReturn(new UserView("John", "Doe"));
+    underTest.get(userId, loader);
+
+    // when
+    underTest.handleInvalidation(userId.toString());
+    underTest.get(userId, loader);
+
+    // then
+    verify(loader, times(2)).apply(userId);
+    verify(rabbitTemplate, never()).convertAndSend(anyString(), anyString(), any(Object.class));
+  }
+
+  @Test
+  void shouldIgnoreInvalidation_whenUserIdIsInvalid() {
+    // when
+    // then
+    assertThatCode(() -> underTest.handleInvalidation("invalid ObjectId")).doesNotThrowAnyException();
+  }
+
+  private void awaitLatch(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void setDeclaredField(Object target, String fieldName, Object value)
+      throws NoSuchFieldException, IllegalAccessException {
+    Field field = target.getClass().getDeclaredField(fieldName);
+    field.setAccessible(true);
+    field.set(target, value);
+    field.setAccessible(false);
+  }
+}